@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the regular jmh command line options, but writes
+ * the results as json by default, so that runs of different releases can be
+ * compared.
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar [regexp] [-rff results.json]
+ * </pre>
+ */
+public final class BenchmarkRunner {
+
+    static final String DEFAULT_RESULT = "jmh-result.json";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final CommandLineOptions cmd = new CommandLineOptions(args);
+        final ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+        if (!cmd.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cmd.getResult().hasValue()) {
+            options.result(DEFAULT_RESULT);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.activity;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.params.Ed25519PrivateKeyParameters;
+import org.bouncycastle.crypto.signers.Ed25519Signer;
+import org.hyperledger.oa.benchmarks.Payloads;
+import org.hyperledger.oa.impl.util.Base58;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * In process profile verification. The security context is downloaded once
+ * during setup, so the first run needs network access.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Ed25519VerifierBenchmark {
+
+    private static final String HEADER = Base64.getUrlEncoder().withoutPadding().encodeToString(
+            "{\"alg\":\"EdDSA\",\"b64\":false,\"crit\":[\"b64\"]}".getBytes(StandardCharsets.UTF_8));
+
+    private Ed25519Verifier verifier;
+    private String verkey;
+    private Map<String, Object> signed;
+
+    @Setup
+    public void setup() throws Exception {
+        final JsonLdContextLoader loader = new JsonLdContextLoader();
+        loader.init();
+        verifier = new Ed25519Verifier();
+        verifier.setMapper(Payloads.mapper());
+        verifier.setContextLoader(loader);
+
+        final Ed25519PrivateKeyParameters privateKey = new Ed25519PrivateKeyParameters(new SecureRandom());
+        verkey = Base58.encode(privateKey.generatePublicKey().getEncoded());
+
+        final Map<String, Object> doc = new LinkedHashMap<>();
+        doc.put("@context", Map.of(
+                "legalName", "https://schema.org/legalName",
+                "altName", "https://schema.org/alternateName"));
+        doc.put("id", "did:sov:iil:F6dB7dMVHUQSC64qemnBi7");
+        doc.put("legalName", "Bosch");
+        doc.put("altName", "Robert Bosch GmbH");
+
+        final Map<String, Object> options = new LinkedHashMap<>();
+        options.put("type", Ed25519Verifier.PROOF_TYPE);
+        options.put("verificationMethod", "did:sov:iil:F6dB7dMVHUQSC64qemnBi7#key-1");
+        options.put("proofPurpose", "assertionMethod");
+        options.put("created", "2020-07-03T13:00:25Z");
+
+        final byte[] header = (HEADER + ".").getBytes(StandardCharsets.US_ASCII);
+        final byte[] data = verifier.verifyData(doc, options);
+        final Ed25519Signer signer = new Ed25519Signer();
+        signer.init(true, privateKey);
+        signer.update(header, 0, header.length);
+        signer.update(data, 0, data.length);
+
+        final Map<String, Object> proof = new LinkedHashMap<>(options);
+        proof.put("jws", HEADER + ".." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(signer.generateSignature()));
+        signed = new LinkedHashMap<>(doc);
+        signed.put("proof", proof);
+
+        if (!verify().orElse(Boolean.FALSE).booleanValue()) {
+            throw new IllegalStateException("Benchmark document does not verify");
+        }
+    }
+
+    @Benchmark
+    public Optional<Boolean> verify() {
+        return verifier.verify(verkey, signed);
+    }
+}
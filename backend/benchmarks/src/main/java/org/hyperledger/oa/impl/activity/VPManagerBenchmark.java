@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.activity;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.aries.api.credential.CredentialExchange;
+import org.hyperledger.aries.api.jsonld.VerifiableCredential;
+import org.hyperledger.aries.config.GsonConfig;
+import org.hyperledger.oa.api.CredentialType;
+import org.hyperledger.oa.benchmarks.Payloads;
+import org.hyperledger.oa.impl.util.Converter;
+import org.hyperledger.oa.model.MyCredential;
+import org.hyperledger.oa.model.MyDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VPManagerBenchmark {
+
+    private static final String MY_DID = "did:sov:iil:F6dB7dMVHUQSC64qemnBi7";
+
+    private VPManager vpm;
+    private MyDocument orgProfile;
+    private MyDocument bankAccount;
+    private MyCredential credential;
+
+    @Setup
+    public void setup() throws Exception {
+        final ObjectMapper mapper = Payloads.mapper();
+        final Converter converter = new Converter();
+        converter.setMapper(mapper);
+
+        vpm = new VPManager();
+        vpm.setConverter(converter);
+        vpm.setMapper(mapper);
+
+        orgProfile = document(CredentialType.ORGANIZATIONAL_PROFILE_CREDENTIAL,
+                "{\"id\":\"did:sov:iil:sadfafs\",\"type\":\"LegalEntity\",\"legalName\":\"Bosch\","
+                        + "\"altName\":\"Robert Bosch GmbH\",\"identifier\":[{\"id\":\"HRB 14000\","
+                        + "\"type\":\"Handelsregister\"}],\"registeredSite\":{\"address\":{"
+                        + "\"streetAddress\":\"Robert-Bosch-Platz 1\",\"zipCode\":\"70839\","
+                        + "\"city\":\"Gerlingen\",\"country\":\"DE\"}}}",
+                mapper, converter);
+        bankAccount = document(CredentialType.BANK_ACCOUNT_CREDENTIAL,
+                "{\"iban\":\"DE89370400440532013000\",\"bic\":\"COBADEFFXXX\"}", mapper, converter);
+
+        final CredentialExchange credEx = GsonConfig.defaultConfig()
+                .fromJson(Payloads.load("issue_credential.json"), CredentialExchange.class);
+        credential = MyCredential
+                .builder()
+                .id(UUID.randomUUID())
+                .issuedAt(Instant.now())
+                .type(CredentialType.BANK_ACCOUNT_CREDENTIAL)
+                .isPublic(Boolean.TRUE)
+                .connectionId(credEx.getConnectionId())
+                .credential(converter.toMap(credEx.getCredential()))
+                .build();
+    }
+
+    @Benchmark
+    public VerifiableCredential buildFromDocumentOrgProfile() {
+        return vpm.buildFromDocument(orgProfile, MY_DID);
+    }
+
+    @Benchmark
+    public VerifiableCredential buildFromDocumentBankAccount() {
+        return vpm.buildFromDocument(bankAccount, MY_DID);
+    }
+
+    @Benchmark
+    public VerifiableCredential buildFromCredential() {
+        return vpm.buildFromCredential(credential, MY_DID, null);
+    }
+
+    private static MyDocument document(CredentialType type, String json, ObjectMapper mapper,
+            Converter converter) throws Exception {
+        return new MyDocument()
+                .setId(UUID.randomUUID())
+                .setCreatedAt(Instant.now())
+                .setUpdatedAt(Instant.now())
+                .setIsPublic(Boolean.TRUE)
+                .setType(type)
+                .setDocument(converter.toMap(mapper.readTree(json)));
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.aries;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.aries.api.connection.ConnectionRecord;
+import org.hyperledger.aries.api.credential.CredentialExchange;
+import org.hyperledger.aries.api.message.PingEvent;
+import org.hyperledger.aries.api.proof.PresentationExchangeRecord;
+import org.hyperledger.aries.webhook.EventHandler;
+import org.hyperledger.oa.benchmarks.Payloads;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parsing and dispatching of recorded aca-py webhook payloads, without the
+ * work done by the managers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventHandlerBenchmark {
+
+    private String connection;
+    private String credential;
+    private String proof;
+    private String ping;
+
+    @Setup
+    public void setup() {
+        connection = Payloads.load("connections.json");
+        credential = Payloads.load("issue_credential.json");
+        proof = Payloads.load("present_proof.json");
+        ping = Payloads.load("ping.json");
+    }
+
+    @Benchmark
+    public void connections(Blackhole bh) {
+        new BlackholeEventHandler(bh).handleEvent("connections", connection);
+    }
+
+    @Benchmark
+    public void issueCredential(Blackhole bh) {
+        new BlackholeEventHandler(bh).handleEvent("issue_credential", credential);
+    }
+
+    @Benchmark
+    public void presentProof(Blackhole bh) {
+        new BlackholeEventHandler(bh).handleEvent("present_proof", proof);
+    }
+
+    @Benchmark
+    public void ping(Blackhole bh) {
+        new BlackholeEventHandler(bh).handleEvent("ping", ping);
+    }
+
+    static final class BlackholeEventHandler extends EventHandler {
+
+        private final Blackhole bh;
+
+        BlackholeEventHandler(Blackhole bh) {
+            this.bh = bh;
+        }
+
+        @Override
+        public void handleConnection(ConnectionRecord connection) {
+            bh.consume(connection);
+        }
+
+        @Override
+        public void handlePing(PingEvent ping) {
+            bh.consume(ping);
+        }
+
+        @Override
+        public void handleProof(PresentationExchangeRecord proof) {
+            bh.consume(proof);
+        }
+
+        @Override
+        public void handleCredential(CredentialExchange credential) {
+            bh.consume(credential);
+        }
+
+        @Override
+        public void handleRaw(String eventType, String json) {
+            bh.consume(json);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AriesStringUtilBenchmark {
+
+    // non final, so that the jit can not fold the constants
+    private String did = "did:sov:iil:VoSfM3eGaPxduty34ySygw";
+    private String schemaId = "M6Mbe3qx7vB4wpZF4sBRjt:2:bank_account:1.0";
+    private String credDefId = "VoSfM3eGaPxduty34ySygw:3:CL:571:sparta_bank";
+
+    @Benchmark
+    public String didGetLastSegment() {
+        return AriesStringUtil.didGetLastSegment(did);
+    }
+
+    @Benchmark
+    public String schemaGetName() {
+        return AriesStringUtil.schemaGetName(schemaId);
+    }
+
+    @Benchmark
+    public String credDefIdGetSquenceNo() {
+        return AriesStringUtil.credDefIdGetSquenceNo(credDefId);
+    }
+
+    @Benchmark
+    public String credDefIdGetDid() {
+        return AriesStringUtil.credDefIdGetDid(credDefId);
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.util;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.aries.api.jsonld.VerifiablePresentation;
+import org.hyperledger.oa.api.PartnerAPI;
+import org.hyperledger.oa.benchmarks.Payloads;
+import org.hyperledger.oa.model.Partner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConverterBenchmark {
+
+    private Converter converter;
+    private Partner partner;
+    private VerifiablePresentation vp;
+    private Map<String, Object> vpMap;
+
+    @Setup
+    public void setup() throws Exception {
+        final ObjectMapper mapper = Payloads.mapper();
+        converter = new Converter();
+        converter.setMapper(mapper);
+
+        vpMap = mapper.readValue(Payloads.load("verifiablePresentation.json"), Converter.MAP_TYPEREF);
+        vp = converter.fromMap(vpMap, VerifiablePresentation.class);
+        partner = Partner
+                .builder()
+                .id(UUID.randomUUID())
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .did("did:sov:iil:VoSfM3eGaPxduty34ySygw")
+                .ariesSupport(Boolean.TRUE)
+                .state("active")
+                .alias("bob")
+                .valid(Boolean.TRUE)
+                .verifiablePresentation(vpMap)
+                .build();
+    }
+
+    @Benchmark
+    public PartnerAPI toAPIObjectPartner() {
+        return converter.toAPIObject(partner);
+    }
+
+    @Benchmark
+    public PartnerAPI toAPIObjectPresentation() {
+        return converter.toAPIObject(vp);
+    }
+
+    @Benchmark
+    public Map<String, Object> toMap() {
+        return converter.toMap(vp);
+    }
+
+    @Benchmark
+    public VerifiablePresentation fromMap() {
+        return converter.fromMap(vpMap, VerifiablePresentation.class);
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.web;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.oa.api.DidDocAPI.PublicKey;
+import org.hyperledger.oa.benchmarks.Payloads;
+import org.hyperledger.oa.client.api.DidDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebPartnerFlowBenchmark {
+
+    private List<PublicKey> publicKeys;
+    private String verificationMethod = "did:web:localhost:8020#key-2";
+
+    @Setup
+    public void setup() throws Exception {
+        publicKeys = Payloads.mapper()
+                .readValue(Payloads.load("didLocal.json"), DidDocument.class)
+                .getDidDocument()
+                .getPublicKey();
+    }
+
+    @Benchmark
+    public Optional<String> matchKeyFirst() {
+        return WebPartnerFlow.matchKey(null, publicKeys);
+    }
+
+    @Benchmark
+    public Optional<String> matchKeyById() {
+        return WebPartnerFlow.matchKey(verificationMethod, publicKeys);
+    }
+}
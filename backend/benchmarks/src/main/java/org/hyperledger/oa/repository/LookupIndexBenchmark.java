@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.repository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Latency of the hot repository lookups against a migrated postgres with a
+ * growing number of rows. With indexed=false the lookup indexes are dropped
+ * after the migration, which shows the sequential scans the indexes replace.
+ * Needs a running docker daemon.
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar LookupIndexBenchmark -p rows=10000
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupIndexBenchmark {
+
+    private static final List<String> LOOKUP_INDEXES = List.of(
+            "partner_did_idx",
+            "partner_label_key",
+            "partner_connection_id_key",
+            "my_credential_thread_id_idx",
+            "my_credential_is_public_idx",
+            "my_document_is_public_idx",
+            "my_credential_schema_cred_def_idx",
+            "partner_proof_partner_id_idx");
+
+    @Param({ "10000", "100000", "1000000" })
+    private int rows;
+
+    @Param({ "true", "false" })
+    private boolean indexed;
+
+    private PostgreSQLContainer<?> pg;
+    private Connection con;
+
+    private PreparedStatement partnerByDid;
+    private PreparedStatement partnerByLabel;
+    private PreparedStatement partnerByConnectionId;
+    private PreparedStatement credentialByThreadId;
+    private PreparedStatement publicCredentials;
+    private PreparedStatement credentialBySchema;
+    private PreparedStatement proofsByPartnerId;
+
+    @Setup
+    public void setup() throws SQLException {
+        pg = new PostgreSQLContainer<>("postgres:12");
+        pg.start();
+
+        Flyway.configure()
+                .dataSource(pg.getJdbcUrl(), pg.getUsername(), pg.getPassword())
+                .locations("classpath:databasemigrations")
+                .load()
+                .migrate();
+
+        con = DriverManager.getConnection(pg.getJdbcUrl(), pg.getUsername(), pg.getPassword());
+        try (Statement st = con.createStatement()) {
+            if (!indexed) {
+                for (String idx : LOOKUP_INDEXES) {
+                    st.execute("DROP INDEX " + idx);
+                }
+            }
+            st.execute("INSERT INTO partner (id, created_at, updated_at, did, aries_support, connection_id, label,"
+                    + " state, valid) SELECT md5('p' || i)::uuid, now(), now(), 'did:sov:iil:' || i, true,"
+                    + " 'conn-' || i, 'label-' || i, 'active', true FROM generate_series(0, " + (rows - 1) + ") i");
+            // one percent of the credentials is public
+            st.execute("INSERT INTO my_credential (id, issued_at, type, is_public, connection_id, state, thread_id,"
+                    + " credential) SELECT md5('c' || i)::uuid, now(), 'OTHER', i % 100 = 0, 'conn-' || i,"
+                    + " 'credential_acked', 'thread-' || i, jsonb_build_object("
+                    + "'schemaId', 'schema-' || (i % 100), 'credentialDefinitionId', 'cred-def-' || (i % 1000))"
+                    + " FROM generate_series(0, " + (rows - 1) + ") i");
+            st.execute("INSERT INTO partner_proof (id, partner_id, created_at, issued_at, type, state,"
+                    + " presentation_exchange_id, proof) SELECT md5('pp' || i)::uuid, md5('p' || (i / 2))::uuid,"
+                    + " now(), now(), 'OTHER', 'verified', 'pres-' || i, '{}'::jsonb"
+                    + " FROM generate_series(0, " + (rows - 1) + ") i");
+            st.execute("ANALYZE");
+        }
+
+        partnerByDid = con.prepareStatement("SELECT * FROM partner WHERE did = ?");
+        partnerByLabel = con.prepareStatement("SELECT * FROM partner WHERE label = ?");
+        partnerByConnectionId = con.prepareStatement("SELECT * FROM partner WHERE connection_id = ?");
+        credentialByThreadId = con.prepareStatement("SELECT * FROM my_credential WHERE thread_id = ?");
+        publicCredentials = con.prepareStatement("SELECT * FROM my_credential WHERE is_public = true");
+        credentialBySchema = con.prepareStatement("SELECT * FROM my_credential WHERE credential->>'schemaId' = ?"
+                + " AND credential->>'credentialDefinitionId' = ?");
+        proofsByPartnerId = con.prepareStatement("SELECT * FROM partner_proof WHERE partner_id = md5(?)::uuid");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        con.close();
+        pg.stop();
+    }
+
+    @Benchmark
+    public int partnerByDid() throws SQLException {
+        partnerByDid.setString(1, "did:sov:iil:" + randomRow());
+        return count(partnerByDid);
+    }
+
+    @Benchmark
+    public int partnerByLabel() throws SQLException {
+        partnerByLabel.setString(1, "label-" + randomRow());
+        return count(partnerByLabel);
+    }
+
+    @Benchmark
+    public int partnerByConnectionId() throws SQLException {
+        partnerByConnectionId.setString(1, "conn-" + randomRow());
+        return count(partnerByConnectionId);
+    }
+
+    @Benchmark
+    public int credentialByThreadId() throws SQLException {
+        credentialByThreadId.setString(1, "thread-" + randomRow());
+        return count(credentialByThreadId);
+    }
+
+    @Benchmark
+    public int publicCredentials() throws SQLException {
+        return count(publicCredentials);
+    }
+
+    @Benchmark
+    public int credentialBySchema() throws SQLException {
+        final int i = randomRow();
+        credentialBySchema.setString(1, "schema-" + (i % 100));
+        credentialBySchema.setString(2, "cred-def-" + (i % 1000));
+        return count(credentialBySchema);
+    }
+
+    @Benchmark
+    public int proofsByPartnerId() throws SQLException {
+        proofsByPartnerId.setString(1, "p" + randomRow() / 2);
+        return count(proofsByPartnerId);
+    }
+
+    private int randomRow() {
+        return ThreadLocalRandom.current().nextInt(rows);
+    }
+
+    private static int count(PreparedStatement ps) throws SQLException {
+        int count = 0;
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -51,6 +51,9 @@ public class PartnerAPI {
     @JsonIgnore // internal use only
     private transient VerifiablePresentation verifiablePresentation;
 
+    @JsonIgnore // internal use only, the key the presentation was verified with
+    private transient String verkey;
+
     @Data
     @Builder
     @NoArgsConstructor
@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.api;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Status of a bulk partner import
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartnerImportJobAPI {
+    private String id;
+    private Long createdAt;
+    private Long updatedAt;
+    private String state;
+    private Integer total;
+    private Long pending;
+    private Long imported;
+    private Long exists;
+    private Long failed;
+    private List<Item> items;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private Integer lineNumber;
+        private String did;
+        private String alias;
+        private String state;
+        private String error;
+        private String partnerId;
+    }
+}
@@ -26,6 +26,7 @@ import javax.inject.Singleton;
 import org.hyperledger.aries.AriesClient;
 import org.hyperledger.aries.api.wallet.WalletDidResponse;
 
+import io.micronaut.cache.annotation.CacheInvalidate;
 import io.micronaut.cache.annotation.Cacheable;
 import lombok.Setter;
 
@@ -40,4 +41,9 @@ public class CachingAriesClient {
     public Optional<WalletDidResponse> walletDidPublic() throws IOException {
         return ac.walletDidPublic();
     }
+
+    @CacheInvalidate(value = "did-lookup-cache", all = true)
+    public void invalidateWalletDidPublic() {
+        // evicts the cached public did
+    }
 }
@@ -18,11 +18,20 @@
 package org.hyperledger.oa.client;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.hyperledger.oa.client.api.LedgerQueryResult;
@@ -31,9 +40,15 @@ import org.hyperledger.oa.client.api.LedgerQueryResult.DomainTransaction.TxnMeta
 import org.hyperledger.oa.controller.api.partner.PartnerCredentialType;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 
 import io.micronaut.context.annotation.Value;
+import io.micronaut.scheduling.TaskExecutors;
 import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -42,6 +57,15 @@ import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 
+/**
+ * Ledger browser client
+ *
+ * The credential definitions of an issuer are kept in a local index. An index
+ * that is older than the refresh interval is still returned, and synced in the
+ * background. A sync only fetches the pages after the transactions that are
+ * already known, and only takes transactions with a higher sequence number
+ * than the last known one, the ledger browser returns them in ledger order.
+ */
 @Slf4j
 @Singleton
 public class LedgerClient {
@@ -54,34 +78,145 @@ public class LedgerClient {
     @Setter(value = AccessLevel.PROTECTED)
     private ObjectMapper mapper;
 
+    @Inject
+    @Named(TaskExecutors.IO)
+    @Setter(AccessLevel.PACKAGE)
+    private ExecutorService ioExecutor;
+
+    /** age after which an index is synced in the background on the next access */
+    @Value("${oagent.ledger.cache.refresh-after}")
+    private Duration refreshAfter = Duration.ofMinutes(10);
+
+    @Value("${oagent.ledger.cache.max-size}")
+    private long maxSize = 1000;
+
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${oagent.ledger.cache.page-size}")
+    private int pageSize = 100;
+
+    private LoadingCache<String, CredDefIndex> credDefIndex;
+
     private OkHttpClient ok = new OkHttpClient();
 
+    @PostConstruct
+    void init() {
+        credDefIndex = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(refreshAfter)
+                .executor(ioExecutor)
+                .build(new CacheLoader<String, CredDefIndex>() {
+                    @Override
+                    public CredDefIndex load(String did) throws Exception {
+                        return sync(did, CredDefIndex.EMPTY);
+                    }
+
+                    @Override
+                    public CredDefIndex reload(String did, CredDefIndex old) throws Exception {
+                        return sync(did, old);
+                    }
+                });
+    }
+
+    /**
+     * Credential definitions of an issuer, from the local index
+     *
+     * @param did the issuers did without method
+     * @return list of credential definitions in ledger order, or empty if the
+     *         ledger browser is not reachable and the issuer is not indexed yet
+     */
     public Optional<List<PartnerCredentialType>> getCredentialDefinitionIdsForDid(@NonNull String did) {
         Optional<List<PartnerCredentialType>> result = Optional.empty();
         try {
-            HttpUrl b = HttpUrl.parse(url + "/ledger/domain")
-                    .newBuilder()
-                    .addQueryParameter("query", did)
-                    .addQueryParameter("type", "102") // 102 = credential definition
-                    .build();
-            Request request = new Request.Builder()
-                    .url(b)
-                    .build();
-            try (Response response = ok.newCall(request).execute()) {
-                String body = response.body().string();
-                LedgerQueryResult md = mapper.readValue(body, LedgerQueryResult.class);
-                List<PartnerCredentialType> credDefIds = md.getResults()
-                        .stream()
-                        .map(DomainTransaction::getTxnMetadata)
-                        .map(TxnMetadata::getTxnId)
-                        .distinct()
-                        .map(PartnerCredentialType::fromCredDefId)
-                        .collect(Collectors.toList());
-                result = Optional.of(credDefIds);
-            }
-        } catch (IOException e) {
+            result = Optional.of(credDefIndex.get(did)
+                    .getCredDefIds()
+                    .stream()
+                    .map(PartnerCredentialType::fromCredDefId)
+                    .collect(Collectors.toList()));
+        } catch (UncheckedIOException e) {
             log.error("Ledger Explorer Call Failed", e);
         }
         return result;
     }
+
+    /**
+     * Fetches the transactions that are not part of the index yet
+     *
+     * @param did  the issuers did without method
+     * @param from the current index
+     * @return the updated index, or the same instance if nothing changed
+     * @throws UncheckedIOException if the ledger browser call failed
+     */
+    CredDefIndex sync(String did, CredDefIndex from) {
+        CredDefIndex base = from;
+        int page = base.getTxnCount() / pageSize + 1;
+        final Set<String> credDefIds = new LinkedHashSet<>(base.getCredDefIds());
+        int lastSeqNo = base.getLastSeqNo();
+        int total;
+        try {
+            while (true) {
+                final LedgerQueryResult r = query(did, page);
+                total = r.getTotal() != null ? r.getTotal().intValue() : 0;
+                if (total < base.getTxnCount()) {
+                    // the ledger was reset, start over
+                    log.warn("Ledger has less transactions than indexed for: {}, rebuilding", did);
+                    return sync(did, CredDefIndex.EMPTY);
+                }
+                final List<DomainTransaction> results = r.getResults() != null ? r.getResults() : List.of();
+                for (DomainTransaction txn : results) {
+                    final TxnMetadata md = txn.getTxnMetadata();
+                    if (md != null && md.getSeqNo() != null && md.getSeqNo().intValue() > lastSeqNo) {
+                        credDefIds.add(md.getTxnId());
+                        lastSeqNo = md.getSeqNo().intValue();
+                    }
+                }
+                if (results.isEmpty() || page * pageSize >= total) {
+                    break;
+                }
+                page++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (lastSeqNo == base.getLastSeqNo() && total == base.getTxnCount()) {
+            return base;
+        }
+        log.debug("Indexed {} credential definitions for: {}, last seqNo: {}",
+                Integer.valueOf(credDefIds.size()), did, Integer.valueOf(lastSeqNo));
+        return new CredDefIndex(Collections.unmodifiableList(new ArrayList<>(credDefIds)), lastSeqNo, total);
+    }
+
+    LedgerQueryResult query(String did, int page) throws IOException {
+        HttpUrl b = HttpUrl.parse(url + "/ledger/domain")
+                .newBuilder()
+                .addQueryParameter("query", did)
+                .addQueryParameter("type", "102") // 102 = credential definition
+                .addQueryParameter("page", String.valueOf(page))
+                .addQueryParameter("page_size", String.valueOf(pageSize))
+                .build();
+        Request request = new Request.Builder()
+                .url(b)
+                .build();
+        try (Response response = ok.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("Ledger browser returned: " + response.code());
+            }
+            return mapper.readValue(response.body().string(), LedgerQueryResult.class);
+        }
+    }
+
+    /**
+     * Immutable credential definition index of one issuer
+     */
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PACKAGE)
+    static final class CredDefIndex {
+        static final CredDefIndex EMPTY = new CredDefIndex(List.of(), 0, 0);
+
+        /** distinct credential definition ids in ledger order */
+        private final List<String> credDefIds;
+        /** highest indexed sequence number */
+        private final int lastSeqNo;
+        /** number of transactions of this issuer the index is based on */
+        private final int txnCount;
+    }
 }
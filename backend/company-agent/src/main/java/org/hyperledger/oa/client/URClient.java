@@ -20,34 +20,58 @@ package org.hyperledger.oa.client;
 import static io.micronaut.http.HttpRequest.GET;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 
+import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.hyperledger.aries.api.jsonld.VerifiablePresentation;
 import org.hyperledger.oa.api.DidDocAPI;
 import org.hyperledger.oa.api.exception.PartnerException;
 import org.hyperledger.oa.client.api.DidDocument;
+import org.hyperledger.oa.client.api.PublicProfileResponse;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
-import io.micronaut.cache.annotation.Cacheable;
-import io.micronaut.http.client.BlockingHttpClient;
+import io.micronaut.context.annotation.Value;
 import io.micronaut.http.client.RxHttpClient;
 import io.micronaut.http.client.annotation.Client;
 import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.scheduling.TaskExecutors;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 
 /**
  * Universal Resolver Client
  *
+ * Resolved did documents are cached. Concurrent lookups of the same did share
+ * one resolver call, and entries that are older than the refresh interval are
+ * still returned while they are reloaded in the background.
+ *
+ * All calls are non blocking, the resolver is called with the shared micronaut
+ * client, public profiles with a shared okhttp client, so connections are
+ * pooled in both cases.
  */
 @Slf4j
 @Singleton
@@ -60,6 +84,25 @@ public class URClient {
     @Inject
     private ObjectMapper mapper;
 
+    @Inject
+    @Named(TaskExecutors.IO)
+    private ExecutorService ioExecutor;
+
+    /** age after which an entry is reloaded in the background on the next access */
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${oagent.resolver.cache.refresh-after}")
+    private Duration refreshAfter = Duration.ofSeconds(300);
+
+    /** max age of an entry, after that callers wait for the resolver again */
+    @Value("${oagent.resolver.cache.expire-after}")
+    private Duration expireAfter = Duration.ofHours(1);
+
+    @Value("${oagent.resolver.cache.max-size}")
+    private long maxSize = 1000;
+
+    private AsyncLoadingCache<String, Optional<DidDocAPI>> didCache;
+
+    @Setter(AccessLevel.PACKAGE)
     private OkHttpClient okClient = new OkHttpClient();
 
     private final Map<CharSequence, CharSequence> headers;
@@ -69,47 +112,149 @@ public class URClient {
         this.headers = Map.of("Accept", "application/json, text/plain");
     }
 
-    @Cacheable(cacheNames = { "ur-cache" })
-    public Optional<DidDocAPI> getDidDocument(String did) {
-        DidDocAPI doc = null;
-        try (BlockingHttpClient bc = client.toBlocking()) {
-            doc = bc.retrieve(
-                    GET("/1.0/identifiers/" + did)
-                            .headers(headers),
-                    DidDocument.class)
-                    .getDidDocument();
-        } catch (HttpClientResponseException e) {
-            String msg = "Call to universal resolver failed - msg: " + e.getMessage() + ", status: " + e.getStatus();
-            log.error(msg);
-            throw new PartnerException(msg);
-        } catch (IOException e) {
-            log.warn("Could not close connection", e);
-        }
-        return Optional.ofNullable(doc);
+    @PostConstruct
+    void init() {
+        didCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterWrite(expireAfter)
+                .executor(ioExecutor)
+                .buildAsync((did, executor) -> toFuture(resolveDidDocument(did)
+                        .map(Optional::of)
+                        .toSingle(Optional.empty())));
     }
 
-    public Optional<VerifiablePresentation> getPublicProfile(String url) {
-        Optional<VerifiablePresentation> result = Optional.empty();
-        try {
-            URL url2 = new URL(url);
-            Request request = new Request.Builder()
-                    .url(url2.toString())
-                    .build();
-            try (Response response = okClient.newCall(request).execute()) {
-                String body = response.body().string();
-                VerifiablePresentation md = mapper.readValue(body, VerifiablePresentation.class);
-                result = Optional.of(md);
+    /**
+     * Resolves the did document, cached
+     *
+     * @param did the did
+     * @return {@link Maybe} of the did document, empty if the resolver did not
+     *         return one
+     */
+    public Maybe<DidDocAPI> getDidDocumentAsync(@NonNull String did) {
+        return Single.<Optional<DidDocAPI>>create(emitter -> didCache.get(did).whenComplete((doc, e) -> {
+            if (e != null) {
+                emitter.onError(e instanceof CompletionException ? e.getCause() : e);
+            } else {
+                emitter.onSuccess(doc);
             }
-        } catch (MalformedURLException e) {
+        })).flatMapMaybe(doc -> doc.map(Maybe::just).orElseGet(Maybe::empty));
+    }
+
+    /**
+     * Blocking variant of {@link #getDidDocumentAsync(String)}, only to be used
+     * where the calling thread is allowed to block.
+     *
+     * @param did the did
+     * @return the did document
+     */
+    public Optional<DidDocAPI> getDidDocument(@NonNull String did) {
+        return Optional.ofNullable(getDidDocumentAsync(did).blockingGet());
+    }
+
+    Maybe<DidDocAPI> resolveDidDocument(String did) {
+        return client.retrieve(
+                GET("/1.0/identifiers/" + did)
+                        .headers(headers),
+                DidDocument.class)
+                .firstElement()
+                .flatMap(doc -> doc.getDidDocument() != null ? Maybe.just(doc.getDidDocument()) : Maybe.empty())
+                .onErrorResumeNext(e -> {
+                    String msg = "Call to universal resolver failed - msg: " + e.getMessage();
+                    if (e instanceof HttpClientResponseException) {
+                        msg += ", status: " + ((HttpClientResponseException) e).getStatus();
+                    }
+                    log.error(msg);
+                    return Maybe.error(new PartnerException(msg));
+                });
+    }
+
+    /**
+     * Fetches the public profile from the partners endpoint
+     *
+     * @param url the profile endpoint
+     * @return {@link Maybe} of the {@link VerifiablePresentation}
+     */
+    public Maybe<VerifiablePresentation> getPublicProfileAsync(@NonNull String url) {
+        return getPublicProfileAsync(url, null, null)
+                .filter(r -> r.getProfile() != null)
+                .map(PublicProfileResponse::getProfile);
+    }
+
+    /**
+     * Conditional fetch of the public profile from the partners endpoint, the
+     * validators are taken from a previous response.
+     *
+     * @param url          the profile endpoint
+     * @param etag         optional etag, sent as If-None-Match
+     * @param lastModified optional last modified date, sent as If-Modified-Since
+     * @return {@link Maybe} of the {@link PublicProfileResponse}
+     */
+    public Maybe<PublicProfileResponse> getPublicProfileAsync(
+            @NonNull String url, @Nullable String etag, @Nullable String lastModified) {
+        final HttpUrl httpUrl = HttpUrl.parse(url);
+        if (httpUrl == null) {
             String msg = "Malformed endpoint URL: " + url;
-            log.error(msg, e);
-            throw new PartnerException(msg);
-        } catch (IOException e) {
-            String msg = "Call to partner web endpoint failed - msg: " + e.getMessage();
             log.error(msg);
-            throw new PartnerException(msg);
+            return Maybe.error(new PartnerException(msg));
+        }
+        final Request.Builder request = new Request.Builder().url(httpUrl);
+        if (etag != null) {
+            request.header("If-None-Match", etag);
         }
-        return result;
+        if (lastModified != null) {
+            request.header("If-Modified-Since", lastModified);
+        }
+        return Maybe.create(emitter -> {
+            final Call call = okClient.newCall(request.build());
+            emitter.setCancellable(call::cancel);
+            call.enqueue(new Callback() {
+                @Override
+                public void onResponse(Call c, Response response) {
+                    try (ResponseBody body = response.body()) {
+                        final PublicProfileResponse.PublicProfileResponseBuilder result = PublicProfileResponse
+                                .builder()
+                                .etag(response.header("ETag"))
+                                .lastModified(response.header("Last-Modified"));
+                        if (response.code() == 304) {
+                            emitter.onSuccess(result.notModified(true).build());
+                        } else if (!response.isSuccessful()) {
+                            onFailure(c, new IOException("status: " + response.code()));
+                        } else if (body == null) {
+                            emitter.onComplete();
+                        } else {
+                            emitter.onSuccess(result
+                                    .profile(mapper.readValue(body.string(), VerifiablePresentation.class))
+                                    .build());
+                        }
+                    } catch (IOException e) {
+                        onFailure(c, e);
+                    }
+                }
+
+                @Override
+                public void onFailure(Call c, IOException e) {
+                    String msg = "Call to partner web endpoint failed - msg: " + e.getMessage();
+                    log.error(msg);
+                    emitter.tryOnError(new PartnerException(msg));
+                }
+            });
+        });
     }
 
+    /**
+     * Blocking variant of {@link #getPublicProfileAsync(String)}
+     *
+     * @param url the profile endpoint
+     * @return the {@link VerifiablePresentation}
+     */
+    public Optional<VerifiablePresentation> getPublicProfile(@NonNull String url) {
+        return Optional.ofNullable(getPublicProfileAsync(url).blockingGet());
+    }
+
+    private static <T> CompletableFuture<T> toFuture(Single<T> single) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        single.subscribe(future::complete, future::completeExceptionally);
+        return future;
+    }
 }
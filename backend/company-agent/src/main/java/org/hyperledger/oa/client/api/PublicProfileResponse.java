@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.client.api;
+
+import org.hyperledger.aries.api.jsonld.VerifiablePresentation;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Result of a conditional public profile request
+ */
+@Value
+@Builder
+public class PublicProfileResponse {
+
+    /** true if the partner answered with 304, the profile is null then */
+    private boolean notModified;
+
+    private VerifiablePresentation profile;
+
+    private String etag;
+
+    private String lastModified;
+}
@@ -17,13 +17,16 @@
  */
 package org.hyperledger.oa.config;
 
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.hyperledger.aries.AriesClient;
 
 import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Primary;
 import io.micronaut.context.annotation.Requires;
 import io.micronaut.context.annotation.Value;
 import io.micronaut.context.env.Environment;
@@ -39,17 +42,35 @@ public class AriesClientFactory {
     private String url;
     @Value("${oagent.acapy.apiKey}")
     private String apiKey;
+    @Value("${oagent.ping.timeout}")
+    private Duration pingTimeout;
 
+    @Primary
     @Singleton
     public AriesClient ariesClient() {
+        return build(TimeUnit.SECONDS.toMillis(FIVE));
+    }
+
+    /**
+     * Used for trust pings only, a ping to an unreachable partner gives up after
+     * {@code oagent.ping.timeout} and does not block a thread of the ping job any
+     * longer
+     */
+    @Singleton
+    @Named("ping")
+    public AriesClient pingClient() {
+        return build(pingTimeout.toMillis());
+    }
+
+    private AriesClient build(long timeoutMillis) {
         return AriesClient.builder()
                 .url(url)
                 .apiKey(apiKey)
                 .client(new OkHttpClient.Builder()
-                        .writeTimeout(FIVE, TimeUnit.SECONDS)
-                        .readTimeout(FIVE, TimeUnit.SECONDS)
-                        .connectTimeout(FIVE, TimeUnit.SECONDS)
-                        .callTimeout(FIVE, TimeUnit.SECONDS)
+                        .writeTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                        .readTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                        .connectTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                        .callTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
                         .build())
                 .build();
     }
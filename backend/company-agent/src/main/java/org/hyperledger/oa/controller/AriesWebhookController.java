@@ -19,10 +19,13 @@ package org.hyperledger.oa.controller;
 
 import javax.inject.Inject;
 
-import org.hyperledger.aries.webhook.EventHandler;
+import org.hyperledger.oa.impl.aries.WebhookInbox;
 
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
 import io.micronaut.http.annotation.Body;
 import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Get;
 import io.micronaut.http.annotation.PathVariable;
 import io.micronaut.http.annotation.Post;
 import io.micronaut.scheduling.TaskExecutors;
@@ -34,7 +37,8 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Handles aries webhooks
+ * Handles aries webhooks, events are stored in the {@link WebhookInbox} and
+ * acknowledged before they are processed.
  */
 @Slf4j
 @Hidden
@@ -45,22 +49,37 @@ import lombok.extern.slf4j.Slf4j;
 public class AriesWebhookController {
 
     @Inject
-    private EventHandler handler;
+    private WebhookInbox inbox;
 
     @Post("/log/topic/{eventType}")
-    public void logTopic(
+    public HttpResponse<Void> logTopic(
             @PathVariable String eventType,
             @Body String eventBody) {
-        logEvent(eventType, eventBody);
+        return logEvent(eventType, eventBody);
     }
 
     @Post("/log/{eventType}")
-    public void logEvent(
+    public HttpResponse<Void> logEvent(
             @PathVariable String eventType,
             @Body String eventBody) {
 
         log.info("Webhook received, type: {}", eventType);
 
-        handler.handleEvent(eventType, eventBody);
+        if (!inbox.offer(eventType, eventBody)) {
+            // aca-py retries the delivery
+            return HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        return HttpResponse.ok();
+    }
+
+    /**
+     * Webhook inbox depth, lag and counters
+     *
+     * @return {@link WebhookInbox.Stats}
+     */
+    @Secured(SecurityRule.IS_AUTHENTICATED)
+    @Get("/log/stats")
+    public HttpResponse<WebhookInbox.Stats> stats() {
+        return HttpResponse.ok(inbox.getStats());
     }
 }
@@ -21,20 +21,30 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 
 import org.hyperledger.oa.api.PartnerAPI;
+import org.hyperledger.oa.api.PartnerImportJobAPI;
+import org.hyperledger.oa.api.PartnerSummaryAPI;
 import org.hyperledger.oa.api.aries.AriesProof;
 import org.hyperledger.oa.controller.api.partner.AddPartnerRequest;
 import org.hyperledger.oa.controller.api.partner.PartnerCredentialType;
+import org.hyperledger.oa.controller.api.partner.PartnerFilter;
 import org.hyperledger.oa.controller.api.partner.RequestCredentialRequest;
 import org.hyperledger.oa.controller.api.partner.RequestProofRequest;
 import org.hyperledger.oa.controller.api.partner.UpdatePartnerRequest;
+import org.hyperledger.oa.impl.PartnerImportManager;
 import org.hyperledger.oa.impl.PartnerManager;
 import org.hyperledger.oa.impl.aries.AriesCredentialManager;
 import org.hyperledger.oa.impl.aries.ProofManager;
+import org.hyperledger.oa.impl.util.KeysetCursor;
+import org.hyperledger.oa.model.Partner;
+import org.hyperledger.oa.model.PartnerSummary;
 
 import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpResponse;
 import io.micronaut.http.annotation.Body;
 import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Delete;
@@ -42,11 +52,14 @@ import io.micronaut.http.annotation.Get;
 import io.micronaut.http.annotation.PathVariable;
 import io.micronaut.http.annotation.Post;
 import io.micronaut.http.annotation.Put;
+import io.micronaut.http.annotation.QueryValue;
 import io.micronaut.scheduling.TaskExecutors;
 import io.micronaut.scheduling.annotation.ExecuteOn;
 import io.micronaut.security.annotation.Secured;
 import io.micronaut.security.rules.SecurityRule;
 import io.micronaut.validation.Validated;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 @Controller("/api/partners")
@@ -56,9 +69,18 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @ExecuteOn(TaskExecutors.IO)
 public class PartnerController {
 
+    static final String TOTAL_COUNT = "X-Total-Count";
+    static final String NEXT_CURSOR = "X-Next-Cursor";
+    static final int MAX_LIMIT = 1000;
+    static final String VIEW_SUMMARY = "summary";
+    static final String TEXT_CSV = "text/csv";
+
     @Inject
     private PartnerManager pm;
 
+    @Inject
+    private PartnerImportManager importMgmt;
+
     @Inject
     private Optional<AriesCredentialManager> credM;
 
@@ -66,13 +88,70 @@ public class PartnerController {
     private Optional<ProofManager> proofM;
 
     /**
-     * Get known partners
+     * Get known partners, ordered by creation date. The total number of matching
+     * partners is returned in the X-Total-Count header. If a limit is set, the
+     * X-Next-Cursor header holds the cursor of the next page, otherwise all
+     * partners are streamed.
      *
-     * @return list of partners
+     * @param state        optional aries connection state
+     * @param ariesSupport optional aries support flag
+     * @param incoming     optional incoming connection flag
+     * @param valid        optional profile validation flag
+     * @param alias        optional alias prefix
+     * @param limit        optional page size, max 1000
+     * @param cursor       optional cursor from a previous page
+     * @param view         optional, summary returns {@link PartnerSummaryAPI}
+     *                     without the public profile
+     * @return list of {@link PartnerAPI} or {@link PartnerSummaryAPI}
      */
     @Get
-    public HttpResponse<List<PartnerAPI>> getPartners() {
-        return HttpResponse.ok(pm.getPartners());
+    public HttpResponse<Flowable<?>> getPartners(
+            @Nullable @QueryValue String state,
+            @Nullable @QueryValue Boolean ariesSupport,
+            @Nullable @QueryValue Boolean incoming,
+            @Nullable @QueryValue Boolean valid,
+            @Nullable @QueryValue String alias,
+            @Nullable @QueryValue Integer limit,
+            @Nullable @QueryValue String cursor,
+            @Nullable @QueryValue String view) {
+        final PartnerFilter filter = PartnerFilter
+                .builder()
+                .state(state)
+                .ariesSupport(ariesSupport)
+                .incoming(incoming)
+                .valid(valid)
+                .aliasPrefix(alias)
+                .build();
+        final KeysetCursor after = cursor != null ? KeysetCursor.decode(cursor) : null;
+        final boolean summary = VIEW_SUMMARY.equals(view);
+        final long total = pm.countPartners(filter);
+
+        final MutableHttpResponse<Flowable<?>> response;
+        if (limit == null) {
+            response = HttpResponse.ok(summary
+                    ? pm.streamPartnerSummaries(filter, after)
+                    : pm.streamPartners(filter, after));
+        } else {
+            final int pageSize = Math.max(1, Math.min(limit.intValue(), MAX_LIMIT));
+            KeysetCursor next = null;
+            if (summary) {
+                final List<PartnerSummary> page = pm.findPartnerSummaries(filter, after, pageSize);
+                if (page.size() == pageSize) {
+                    next = PartnerManager.cursorOf(page.get(page.size() - 1));
+                }
+                response = HttpResponse.ok(pm.toSummaryAPIObjects(page));
+            } else {
+                final List<Partner> page = pm.findPartners(filter, after, pageSize);
+                if (page.size() == pageSize) {
+                    next = PartnerManager.cursorOf(page.get(page.size() - 1));
+                }
+                response = HttpResponse.ok(pm.toAPIObjects(page));
+            }
+            if (next != null) {
+                response.header(NEXT_CURSOR, next.encode());
+            }
+        }
+        return response.header(TOTAL_COUNT, String.valueOf(total));
     }
 
     /**
@@ -137,8 +216,64 @@ public class PartnerController {
      * @return {@link PartnerAPI}
      */
     @Get("/lookup/{did}")
-    public HttpResponse<PartnerAPI> lookupPartner(@PathVariable String did) {
-        return HttpResponse.ok(pm.lookupPartner(did));
+    public Single<HttpResponse<PartnerAPI>> lookupPartner(@PathVariable String did) {
+        return pm.lookupPartnerAsync(did).<HttpResponse<PartnerAPI>>map(HttpResponse::ok);
+    }
+
+    /**
+     * Bulk import partners from a json list of dids. The import runs in the
+     * background, its progress can be polled with the returned job id.
+     *
+     * @param partners list of {@link AddPartnerRequest}
+     * @return {@link PartnerImportJobAPI}
+     */
+    @Post(value = "/import", consumes = MediaType.APPLICATION_JSON)
+    public HttpResponse<PartnerImportJobAPI> importPartners(@Body List<AddPartnerRequest> partners) {
+        return HttpResponse.accepted().body(importMgmt.startImport(partners));
+    }
+
+    /**
+     * Bulk import partners from a csv list, one did and optional alias per line
+     *
+     * @param csv the csv content
+     * @return {@link PartnerImportJobAPI}
+     */
+    @Post(value = "/import", consumes = TEXT_CSV)
+    public HttpResponse<PartnerImportJobAPI> importPartnersCsv(@Body String csv) {
+        return HttpResponse.accepted().body(importMgmt.startImport(PartnerImportManager.parseCsv(csv)));
+    }
+
+    /**
+     * Get the status of a bulk import
+     *
+     * @param id    the job id
+     * @param items optional, true to include the status of every did
+     * @return {@link PartnerImportJobAPI}
+     */
+    @Get("/import/{id}")
+    public HttpResponse<PartnerImportJobAPI> getImport(
+            @PathVariable String id,
+            @Nullable @QueryValue Boolean items) {
+        Optional<PartnerImportJobAPI> job = importMgmt.getImport(UUID.fromString(id), Boolean.TRUE.equals(items));
+        if (job.isPresent()) {
+            return HttpResponse.ok(job.get());
+        }
+        return HttpResponse.notFound();
+    }
+
+    /**
+     * Resume a bulk import that was interrupted
+     *
+     * @param id the job id
+     * @return {@link PartnerImportJobAPI}
+     */
+    @Post("/import/{id}/resume")
+    public HttpResponse<PartnerImportJobAPI> resumeImport(@PathVariable String id) {
+        Optional<PartnerImportJobAPI> job = importMgmt.resumeImport(UUID.fromString(id));
+        if (job.isPresent()) {
+            return HttpResponse.accepted().body(job.get());
+        }
+        return HttpResponse.notFound();
     }
 
     /**
@@ -21,12 +21,16 @@ import java.util.Optional;
 
 import javax.inject.Inject;
 
-import org.hyperledger.aries.api.jsonld.VerifiablePresentation;
 import org.hyperledger.oa.api.DidDocAPI;
 import org.hyperledger.oa.impl.DidDocManager;
+import org.hyperledger.oa.impl.activity.ProfileSnapshot;
 import org.hyperledger.oa.impl.activity.VPManager;
 
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpResponse;
 import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Get;
 import io.micronaut.scheduling.TaskExecutors;
@@ -49,13 +53,38 @@ public class PublicProfileController {
     @Inject
     private DidDocManager didDocManager;
 
-    @Get("/profile.jsonld")
-    public HttpResponse<VerifiablePresentation> getMasterdata() {
-        Optional<VerifiablePresentation> vp = vpMgmt.getVerifiablePresentation();
-        if (vp.isPresent()) {
-            return HttpResponse.ok(vp.get());
+    /**
+     * Public profile, served from the pre-serialized snapshot. Supports
+     * conditional requests via If-None-Match and gzip encoded responses.
+     *
+     * @param request the {@link HttpRequest}
+     * @return the verifiable presentation as json
+     */
+    @Get(value = "/profile.jsonld", produces = MediaType.APPLICATION_JSON)
+    public HttpResponse<byte[]> getMasterdata(HttpRequest<?> request) {
+        Optional<ProfileSnapshot> snapshot = vpMgmt.getProfileSnapshot();
+        if (snapshot.isEmpty()) {
+            return HttpResponse.notFound();
         }
-        return HttpResponse.notFound();
+        final ProfileSnapshot s = snapshot.get();
+        final HttpHeaders headers = request.getHeaders();
+        final boolean gzip = ProfileSnapshot.acceptsGzip(headers.get(HttpHeaders.ACCEPT_ENCODING));
+        if (s.matches(headers.get(HttpHeaders.IF_NONE_MATCH), gzip)) {
+            return HttpResponse.<byte[]>notModified()
+                    .header(HttpHeaders.ETAG, s.getEtag(gzip))
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        final MutableHttpResponse<byte[]> response;
+        if (gzip) {
+            response = HttpResponse.ok(s.getGzip())
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        } else {
+            response = HttpResponse.ok(s.getJson());
+        }
+        return response
+                .contentType(MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.ETAG, s.getEtag(gzip))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
     }
 
     @Get("/.well-known/did.json")
@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.controller;
+
+import java.util.Optional;
+
+import javax.inject.Inject;
+
+import org.hyperledger.oa.impl.activity.VerificationCache;
+import org.hyperledger.oa.impl.aries.PingManager;
+
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Get;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.annotation.ExecuteOn;
+import io.micronaut.security.annotation.Secured;
+import io.micronaut.security.rules.SecurityRule;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+/**
+ * Runtime statistics of the background jobs and caches, all values are local
+ * to the node that answers the request
+ */
+@Controller("/api/stats")
+@Tag(name = "Statistics")
+@Secured(SecurityRule.IS_AUTHENTICATED)
+@ExecuteOn(TaskExecutors.IO)
+public class StatsController {
+
+    @Inject
+    private Optional<PingManager> pingMgmt;
+
+    @Inject
+    private VerificationCache verificationCache;
+
+    /**
+     * Run duration and round trip time histograms of the trust ping job
+     *
+     * @return {@link PingManager.Stats}, not found if the agent does not ping
+     */
+    @Get("/ping")
+    public HttpResponse<PingManager.Stats> pingStats() {
+        return pingMgmt.map(p -> HttpResponse.ok(p.getStats())).orElseGet(HttpResponse::notFound);
+    }
+
+    /**
+     * Statistics of the public profile verification cache
+     *
+     * @return {@link VerificationCache.Stats}
+     */
+    @Get("/verification")
+    public HttpResponse<VerificationCache.Stats> verificationStats() {
+        return HttpResponse.ok(verificationCache.getStats());
+    }
+}
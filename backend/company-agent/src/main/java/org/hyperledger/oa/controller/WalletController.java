@@ -21,16 +21,22 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 
+import org.hyperledger.oa.api.CredentialType;
 import org.hyperledger.oa.api.MyDocumentAPI;
 import org.hyperledger.oa.api.aries.AriesCredential;
 import org.hyperledger.oa.controller.api.wallet.WalletDocumentRequest;
+import org.hyperledger.oa.controller.api.wallet.WalletFilter;
 import org.hyperledger.oa.impl.MyDocumentManager;
 import org.hyperledger.oa.impl.aries.AriesCredentialManager;
+import org.hyperledger.oa.impl.util.KeysetCursor;
 import org.hyperledger.oa.model.MyCredential;
+import org.hyperledger.oa.model.MyDocument;
 
 import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MutableHttpResponse;
 import io.micronaut.http.annotation.Body;
 import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Delete;
@@ -38,11 +44,13 @@ import io.micronaut.http.annotation.Get;
 import io.micronaut.http.annotation.PathVariable;
 import io.micronaut.http.annotation.Post;
 import io.micronaut.http.annotation.Put;
+import io.micronaut.http.annotation.QueryValue;
 import io.micronaut.scheduling.TaskExecutors;
 import io.micronaut.scheduling.annotation.ExecuteOn;
 import io.micronaut.security.annotation.Secured;
 import io.micronaut.security.rules.SecurityRule;
 import io.micronaut.validation.Validated;
+import io.reactivex.Flowable;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 @Controller("/api/wallet")
@@ -63,14 +71,40 @@ public class WalletController {
     // -------------------------------------
 
     /**
-     * List wallet documents
+     * List wallet documents, ordered by creation date. The total number of
+     * matching documents is returned in the X-Total-Count header. If a limit is
+     * set, the X-Next-Cursor header holds the cursor of the next page, otherwise
+     * all documents are streamed.
      *
+     * @param type     optional document type
+     * @param isPublic optional visibility
+     * @param limit    optional page size, max 1000
+     * @param cursor   optional cursor from a previous page
      * @return list of {@link MyDocumentAPI}
      */
     @Get("/document")
-    public HttpResponse<List<MyDocumentAPI>> getDocuments() {
-        final List<MyDocumentAPI> myCreds = docMgmt.getMyDocuments();
-        return HttpResponse.ok(myCreds);
+    public HttpResponse<Flowable<MyDocumentAPI>> getDocuments(
+            @Nullable @QueryValue CredentialType type,
+            @Nullable @QueryValue Boolean isPublic,
+            @Nullable @QueryValue Integer limit,
+            @Nullable @QueryValue String cursor) {
+        final WalletFilter filter = WalletFilter.builder().type(type).isPublic(isPublic).build();
+        final KeysetCursor after = cursor != null ? KeysetCursor.decode(cursor) : null;
+        final long total = docMgmt.countDocuments(filter);
+
+        final MutableHttpResponse<Flowable<MyDocumentAPI>> response;
+        if (limit == null) {
+            response = HttpResponse.ok(docMgmt.streamDocuments(filter, after));
+        } else {
+            final int pageSize = Math.max(1, Math.min(limit.intValue(), PartnerController.MAX_LIMIT));
+            final List<MyDocument> page = docMgmt.findDocuments(filter, after, pageSize);
+            response = HttpResponse.ok(docMgmt.toApiObjects(page));
+            if (page.size() == pageSize) {
+                response.header(PartnerController.NEXT_CURSOR,
+                        MyDocumentManager.cursorOf(page.get(page.size() - 1)).encode());
+            }
+        }
+        return response.header(PartnerController.TOTAL_COUNT, String.valueOf(total));
     }
 
     /**
@@ -131,16 +165,44 @@ public class WalletController {
     // -------------------------------------
 
     /**
-     * Aries: List aries wallet credentials
+     * Aries: List aries wallet credentials, ordered by issue date. Paging works
+     * the same way as for documents.
      *
+     * @param type     optional credential type
+     * @param isPublic optional visibility
+     * @param state    optional credential exchange state
+     * @param limit    optional page size, max 1000
+     * @param cursor   optional cursor from a previous page
      * @return list of {@link AriesCredential}
      */
     @Get("/credential")
-    public HttpResponse<List<AriesCredential>> getCredentials() {
-        if (credMgmt.isPresent()) {
-            return HttpResponse.ok(credMgmt.get().listCredentials());
+    public HttpResponse<Flowable<AriesCredential>> getCredentials(
+            @Nullable @QueryValue CredentialType type,
+            @Nullable @QueryValue Boolean isPublic,
+            @Nullable @QueryValue String state,
+            @Nullable @QueryValue Integer limit,
+            @Nullable @QueryValue String cursor) {
+        if (credMgmt.isEmpty()) {
+            return HttpResponse.notFound();
         }
-        return HttpResponse.notFound();
+        final AriesCredentialManager mgmt = credMgmt.get();
+        final WalletFilter filter = WalletFilter.builder().type(type).isPublic(isPublic).state(state).build();
+        final KeysetCursor after = cursor != null ? KeysetCursor.decode(cursor) : null;
+        final long total = mgmt.countCredentials(filter);
+
+        final MutableHttpResponse<Flowable<AriesCredential>> response;
+        if (limit == null) {
+            response = HttpResponse.ok(mgmt.streamCredentials(filter, after));
+        } else {
+            final int pageSize = Math.max(1, Math.min(limit.intValue(), PartnerController.MAX_LIMIT));
+            final List<MyCredential> page = mgmt.findCredentials(filter, after, pageSize);
+            response = HttpResponse.ok(mgmt.toApiObjects(page));
+            if (page.size() == pageSize) {
+                response.header(PartnerController.NEXT_CURSOR,
+                        AriesCredentialManager.cursorOf(page.get(page.size() - 1)).encode());
+            }
+        }
+        return response.header(PartnerController.TOTAL_COUNT, String.valueOf(total));
     }
 
     /**
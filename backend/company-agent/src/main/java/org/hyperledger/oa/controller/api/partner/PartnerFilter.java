@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.controller.api.partner;
+
+import javax.annotation.Nullable;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Server side filter for the partner list, unset fields match all partners
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PartnerFilter {
+
+    @Nullable
+    private String state;
+
+    @Nullable
+    private Boolean ariesSupport;
+
+    @Nullable
+    private Boolean incoming;
+
+    @Nullable
+    private Boolean valid;
+
+    /** case sensitive prefix of the alias */
+    @Nullable
+    private String aliasPrefix;
+
+    /**
+     * @return the alias prefix as LIKE pattern, or null if not set
+     */
+    public String aliasPattern() {
+        if (aliasPrefix == null || aliasPrefix.isEmpty()) {
+            return null;
+        }
+        return aliasPrefix
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.controller.api.wallet;
+
+import javax.annotation.Nullable;
+
+import org.hyperledger.oa.api.CredentialType;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Server side filter for the wallet document and credential lists, unset
+ * fields match all entries
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WalletFilter {
+
+    @Nullable
+    private CredentialType type;
+
+    @Nullable
+    private Boolean isPublic;
+
+    /** aries credential exchange state, only applies to credentials */
+    @Nullable
+    private String state;
+
+    /**
+     * @return the type as stored in the database, or null if not set
+     */
+    public String typeName() {
+        return type != null ? type.name() : null;
+    }
+}
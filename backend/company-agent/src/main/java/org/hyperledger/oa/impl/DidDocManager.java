@@ -20,8 +20,20 @@ package org.hyperledger.oa.impl;
 import java.util.Optional;
 
 import org.hyperledger.oa.api.DidDocAPI;
+import org.hyperledger.oa.impl.activity.IdentitySnapshot;
 
 public interface DidDocManager {
 
     Optional<DidDocAPI> getDidDocument();
+
+    /**
+     * Called after the public did or its key changed, before the public profile
+     * is signed again. The ledger did document is maintained by aca-py, so there
+     * is nothing to do by default.
+     *
+     * @param current the new {@link IdentitySnapshot}
+     */
+    default void identityChanged(IdentitySnapshot current) {
+        // ledger
+    }
 }
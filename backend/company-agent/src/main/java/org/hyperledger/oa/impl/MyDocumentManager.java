@@ -21,18 +21,27 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.hyperledger.oa.api.CredentialType;
 import org.hyperledger.oa.api.MyDocumentAPI;
 import org.hyperledger.oa.api.exception.WrongApiUsageException;
+import org.hyperledger.oa.controller.api.wallet.WalletFilter;
 import org.hyperledger.oa.impl.activity.VPManager;
 import org.hyperledger.oa.impl.util.Converter;
+import org.hyperledger.oa.impl.util.KeysetCursor;
+import org.hyperledger.oa.impl.util.KeysetPager;
 import org.hyperledger.oa.model.MyDocument;
 import org.hyperledger.oa.repository.MyDocumentRepository;
 
+import io.micronaut.scheduling.TaskExecutors;
+import io.reactivex.Flowable;
+import io.reactivex.schedulers.Schedulers;
 import lombok.NonNull;
 
 @Singleton
@@ -47,6 +56,13 @@ public class MyDocumentManager {
     @Inject
     private Converter converter;
 
+    @Inject
+    @Named(TaskExecutors.IO)
+    private ExecutorService ioExecutor;
+
+    /** rows fetched per query when streaming all documents */
+    static final int STREAM_PAGE_SIZE = 500;
+
     @SuppressWarnings("boxing")
     public MyDocumentAPI saveNewDocument(@NonNull MyDocumentAPI document) {
         // there should be only one Masterdata credential
@@ -55,7 +71,7 @@ public class MyDocumentManager {
         final MyDocument vc = docRepo.save(converter.toModelObject(document));
 
         if (document.getIsPublic()) { // new credential, so no need to change the VP when it's private
-            vp.recreateVerifiablePresentation();
+            vp.documentChanged(vc);
         }
         return converter.toApiObject(vc);
     }
@@ -68,9 +84,9 @@ public class MyDocumentManager {
         }
 
         MyDocument dbCredUpdated = converter.updateMyCredential(document, dbCred.get());
-        docRepo.update(dbCredUpdated);
+        dbCredUpdated = docRepo.update(dbCredUpdated);
 
-        vp.recreateVerifiablePresentation(); // update, so we always need to check, only exception private stays private
+        vp.documentChanged(dbCredUpdated); // only re-signs if the public part changed
 
         return converter.toApiObject(dbCredUpdated);
     }
@@ -84,6 +100,54 @@ public class MyDocumentManager {
         return result;
     }
 
+    public long countDocuments(@NonNull WalletFilter filter) {
+        return docRepo.countFiltered(filter.typeName(), filter.getIsPublic());
+    }
+
+    /**
+     * One page of documents ordered by creation date
+     *
+     * @param filter {@link WalletFilter}
+     * @param after  position of the last document of the previous page, null for
+     *               the first page
+     * @param limit  max page size
+     * @return list of documents, model objects
+     */
+    public List<MyDocument> findDocuments(@NonNull WalletFilter filter, @Nullable KeysetCursor after, int limit) {
+        return docRepo.findPage(
+                filter.typeName(),
+                filter.getIsPublic(),
+                after != null ? after.getTimestamp() : null,
+                after != null ? after.getId() : null,
+                limit);
+    }
+
+    /**
+     * Streams all matching documents. Pages are fetched from the db while the
+     * response is written, so only one page is held in memory.
+     *
+     * @param filter {@link WalletFilter}
+     * @param after  optional start position
+     * @return {@link Flowable} of documents
+     */
+    public Flowable<MyDocumentAPI> streamDocuments(@NonNull WalletFilter filter, @Nullable KeysetCursor after) {
+        return KeysetPager.<MyDocument>stream(
+                c -> findDocuments(filter, c, STREAM_PAGE_SIZE), MyDocumentManager::cursorOf, after,
+                STREAM_PAGE_SIZE)
+                .map(converter::toApiObject)
+                .subscribeOn(Schedulers.from(ioExecutor));
+    }
+
+    public Flowable<MyDocumentAPI> toApiObjects(@NonNull List<MyDocument> docs) {
+        return Flowable.fromIterable(docs)
+                .map(converter::toApiObject)
+                .subscribeOn(Schedulers.from(ioExecutor));
+    }
+
+    public static KeysetCursor cursorOf(@NonNull MyDocument doc) {
+        return KeysetCursor.of(doc.getCreatedAt(), doc.getId());
+    }
+
     public Optional<MyDocumentAPI> getMyDocumentById(UUID id) {
         Optional<MyDocument> myDoc = docRepo.findById(id);
         if (myDoc.isPresent()) {
@@ -94,7 +158,7 @@ public class MyDocumentManager {
 
     public void deleteMyDocumentById(UUID id) {
         docRepo.deleteById(id);
-        vp.recreateVerifiablePresentation();
+        vp.documentRemoved(id);
     }
 
     private void verifyOnlyOneMasterdata(MyDocumentAPI doc) {
@@ -0,0 +1,461 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hyperledger.oa.api.PartnerAPI;
+import org.hyperledger.oa.api.PartnerImportJobAPI;
+import org.hyperledger.oa.api.exception.WrongApiUsageException;
+import org.hyperledger.oa.controller.api.partner.AddPartnerRequest;
+import org.hyperledger.oa.impl.aries.ConnectionManager;
+import org.hyperledger.oa.impl.cluster.ClusterLeader;
+import org.hyperledger.oa.impl.cluster.ClusterNotifications;
+import org.hyperledger.oa.impl.cluster.LeadershipAcquiredEvent;
+import org.hyperledger.oa.impl.util.Converter;
+import org.hyperledger.oa.model.Partner;
+import org.hyperledger.oa.model.PartnerImportItem;
+import org.hyperledger.oa.model.PartnerImportJob;
+import org.hyperledger.oa.repository.PartnerImportItemRepository;
+import org.hyperledger.oa.repository.PartnerImportJobRepository;
+import org.hyperledger.oa.repository.PartnerRepository;
+import org.hyperledger.oa.repository.WorkLeases;
+
+import io.micronaut.context.annotation.Value;
+import io.micronaut.runtime.event.annotation.EventListener;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.annotation.Async;
+import io.micronaut.scheduling.annotation.Scheduled;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Imports a list of partners. The dids are resolved and the public profiles
+ * are fetched and verified in parallel, the resulting partners are inserted in
+ * batches. Progress is kept per did, so that an interrupted import can be
+ * resumed with the same job id.
+ * <p>
+ * A job is processed by the node that holds its lease. The lease is renewed
+ * while the job is running, jobs of nodes that are gone are resumed by the
+ * cluster leader. A job that stops with an error is resumed after a growing
+ * delay, and marked as failed after {@code oagent.partner-import.max-attempts}.
+ */
+@Slf4j
+@Singleton
+public class PartnerImportManager {
+
+    @Inject
+    private PartnerManager pm;
+
+    @Inject
+    private PartnerRepository partnerRepo;
+
+    @Inject
+    private PartnerImportJobRepository jobRepo;
+
+    @Inject
+    private PartnerImportItemRepository itemRepo;
+
+    @Inject
+    private Converter converter;
+
+    @Inject // conditional bean
+    private Optional<ConnectionManager> cm;
+
+    @Inject
+    @Named(TaskExecutors.IO)
+    private ExecutorService ioExecutor;
+
+    @Inject
+    private WorkLeases leases;
+
+    @Inject
+    private ClusterNotifications cluster;
+
+    @Inject
+    private ClusterLeader leader;
+
+    /** jobs that are not renewed within this time are resumed by another node */
+    @Value("${oagent.cluster.lease:60s}")
+    private Duration lease = Duration.ofSeconds(60);
+
+    /** max number of partner lookups that are running at the same time */
+    @Value("${oagent.partner-import.concurrency}")
+    private int concurrency = 10;
+
+    /** partners that are inserted per statement */
+    @Value("${oagent.partner-import.batch-size}")
+    private int batchSize = 50;
+
+    /** runs that may stop with an error before the job is given up */
+    @Value("${oagent.partner-import.max-attempts}")
+    private int maxAttempts = 5;
+
+    /** wait before a job is resumed after an error, multiplied by the attempts */
+    @Value("${oagent.partner-import.retry-delay}")
+    private Duration retryDelay = Duration.ofMinutes(1);
+
+    /** ids of the jobs that are processed right now */
+    private final Set<UUID> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates the import job and starts processing it in the background
+     *
+     * @param partners list of did and optional alias, duplicate dids are ignored
+     * @return {@link PartnerImportJobAPI}
+     */
+    public PartnerImportJobAPI startImport(@NonNull List<AddPartnerRequest> partners) {
+        final PartnerImportJob job = createJob(partners);
+        start(job.getId());
+        return toAPIObject(job, false);
+    }
+
+    /**
+     * Continues processing the pending dids of an import, e.g. after a restart.
+     * A failed job starts over with its attempts. Nothing happens if another node
+     * is processing the job.
+     *
+     * @param id the job id
+     * @return {@link PartnerImportJobAPI}
+     */
+    public Optional<PartnerImportJobAPI> resumeImport(@NonNull UUID id) {
+        return jobRepo.findById(id).map(job -> {
+            if (PartnerImportJob.FAILED.equals(job.getState())) {
+                jobRepo.update(id, PartnerImportJob.RUNNING, Integer.valueOf(0));
+                job.setState(PartnerImportJob.RUNNING);
+            }
+            if (PartnerImportJob.RUNNING.equals(job.getState())) {
+                if (leases.claimJob(id, cluster.getNodeId(), lease, !cluster.isEnabled())) {
+                    start(id);
+                } else {
+                    log.info("Partner import {} is processed by another node", id);
+                }
+            }
+            return toAPIObject(job, false);
+        });
+    }
+
+    /**
+     * Resumes all jobs that no node is processing any more, e.g. because they did
+     * not finish before the last shutdown
+     */
+    public void resumeRunningImports() {
+        leases.claimJobs(cluster.getNodeId(), lease, !cluster.isEnabled()).forEach(id -> {
+            log.info("Resuming partner import: {}", id);
+            start(id);
+        });
+    }
+
+    /**
+     * Keeps the jobs of this node, and on the leader resumes the jobs of nodes
+     * that are gone
+     */
+    @Scheduled(fixedDelay = "${oagent.cluster.lease-renewal:20s}")
+    void renewLeases() {
+        if (!running.isEmpty()) {
+            leases.renewJobs(cluster.getNodeId(), lease);
+        }
+        if (cluster.isEnabled() && leader.isLeader()) {
+            resumeRunningImports();
+        }
+    }
+
+    @EventListener
+    @Async
+    public void onLeadershipAcquired(LeadershipAcquiredEvent event) {
+        resumeRunningImports();
+    }
+
+    public Optional<PartnerImportJobAPI> getImport(@NonNull UUID id, boolean withItems) {
+        return jobRepo.findById(id).map(job -> toAPIObject(job, withItems));
+    }
+
+    PartnerImportJob createJob(List<AddPartnerRequest> partners) {
+        final Map<String, String> dids = new LinkedHashMap<>();
+        partners.stream()
+                .filter(p -> StringUtils.isNotBlank(p.getDid()))
+                .forEach(p -> dids.putIfAbsent(p.getDid().trim(), StringUtils.trimToNull(p.getAlias())));
+        if (dids.isEmpty()) {
+            throw new WrongApiUsageException("Import contains no did");
+        }
+        final PartnerImportJob job = jobRepo.save(PartnerImportJob
+                .builder()
+                .state(PartnerImportJob.RUNNING)
+                .total(Integer.valueOf(dids.size()))
+                .attempts(Integer.valueOf(0))
+                .owner(cluster.getNodeId())
+                .leaseUntil(Instant.now().plus(lease))
+                .build());
+        final List<PartnerImportItem> items = new ArrayList<>(dids.size());
+        int line = 1;
+        for (Map.Entry<String, String> e : dids.entrySet()) {
+            items.add(PartnerImportItem
+                    .builder()
+                    .jobId(job.getId())
+                    .lineNumber(Integer.valueOf(line++))
+                    .did(e.getKey())
+                    .alias(e.getValue())
+                    .state(PartnerImportItem.PENDING)
+                    .build());
+        }
+        itemRepo.saveAll(items);
+        return job;
+    }
+
+    /**
+     * @param id the id of a job that is owned by this node
+     */
+    private void start(UUID id) {
+        if (running.add(id)) {
+            ioExecutor.submit(() -> {
+                try {
+                    run(id);
+                    leases.releaseJob(id, cluster.getNodeId());
+                } catch (Exception e) {
+                    attemptFailed(id, e);
+                } finally {
+                    running.remove(id);
+                }
+            });
+        } else {
+            log.debug("Partner import {} is already running", id);
+        }
+    }
+
+    /**
+     * Counts the failed run. The job is resumed after a delay that grows with
+     * every attempt, or given up once the max attempts are reached, so that a
+     * job that can never succeed is not retried forever.
+     *
+     * @param id the job id
+     * @param e  the error that stopped the run
+     */
+    void attemptFailed(UUID id, Exception e) {
+        final int attempts = jobRepo.findById(id).map(PartnerImportJob::getAttempts).orElse(Integer.valueOf(0))
+                .intValue() + 1;
+        if (attempts >= maxAttempts) {
+            log.error("Partner import {} failed {} times, giving up", id, Integer.valueOf(attempts), e);
+            jobRepo.update(id, PartnerImportJob.FAILED, Integer.valueOf(attempts));
+            leases.releaseJob(id, cluster.getNodeId());
+        } else {
+            final Duration delay = retryDelay.multipliedBy(attempts);
+            log.error("Partner import {} stopped, attempt {} of {}, resuming in {}",
+                    id, Integer.valueOf(attempts), Integer.valueOf(maxAttempts), delay, e);
+            jobRepo.update(id, PartnerImportJob.RUNNING, Integer.valueOf(attempts));
+            leases.deferJob(id, cluster.getNodeId(), delay);
+        }
+    }
+
+    /**
+     * Processes all pending items of the job. The lookups run in parallel, all
+     * database writes happen on the calling thread.
+     *
+     * @param id the job id
+     */
+    void run(UUID id) {
+        final List<PartnerImportItem> pending = itemRepo.findByJobIdAndStateOrderByLineNumber(
+                id, PartnerImportItem.PENDING);
+        log.debug("Partner import {}, {} dids pending", id, Integer.valueOf(pending.size()));
+
+        Flowable.fromIterable(pending)
+                .buffer(batchSize)
+                .concatMapIterable(this::skipExisting)
+                .flatMapSingle(this::lookup, false, concurrency)
+                .buffer(batchSize)
+                .blockingSubscribe(this::persist);
+
+        if (itemRepo.countByJobIdAndState(id, PartnerImportItem.PENDING) == 0) {
+            jobRepo.updateState(id, PartnerImportJob.FINISHED);
+            log.info("Partner import {} finished", id);
+        }
+    }
+
+    /**
+     * Marks the items where a partner with the same did already exists
+     *
+     * @param batch list of {@link PartnerImportItem}
+     * @return the remaining items
+     */
+    private List<PartnerImportItem> skipExisting(List<PartnerImportItem> batch) {
+        final Set<String> existing = new HashSet<>(partnerRepo.findDidByDidInList(
+                batch.stream().map(PartnerImportItem::getDid).collect(Collectors.toList())));
+        final List<PartnerImportItem> result = new ArrayList<>(batch.size());
+        for (PartnerImportItem item : batch) {
+            if (existing.contains(item.getDid())) {
+                itemRepo.update(item.getId(), PartnerImportItem.EXISTS, null, null);
+            } else {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    private Single<Lookup> lookup(PartnerImportItem item) {
+        return pm.lookupPartnerAsync(item.getDid())
+                .map(partner -> new Lookup(item, partner, null))
+                .onErrorReturn(e -> new Lookup(item, null, e.getMessage() != null ? e.getMessage() : e.toString()));
+    }
+
+    private void persist(List<Lookup> batch) {
+        final List<Lookup> found = new ArrayList<>(batch.size());
+        final List<Partner> partners = new ArrayList<>(batch.size());
+        for (Lookup l : batch) {
+            if (l.partner == null) {
+                itemRepo.update(l.item.getId(), PartnerImportItem.FAILED, l.error, null);
+            } else {
+                found.add(l);
+                partners.add(converter.toModelObject(l.item.getDid(), l.partner)
+                        .setLabel(UUID.randomUUID().toString())
+                        .setAriesSupport(l.partner.getAriesSupport())
+                        .setAlias(l.item.getAlias())
+                        .setState("requested"));
+            }
+        }
+        if (partners.isEmpty()) {
+            return;
+        }
+        final Iterator<Lookup> it = found.iterator();
+        for (Partner p : partnerRepo.saveAll(partners)) { // same order as the input
+            // sent one after the other, so a large import does not flood aca-py
+            final String error = Boolean.TRUE.equals(p.getAriesSupport()) && cm.isPresent()
+                    ? connect(p)
+                    : null;
+            itemRepo.update(it.next().item.getId(), PartnerImportItem.IMPORTED, error, p.getId());
+        }
+    }
+
+    /**
+     * @param p the imported {@link Partner}
+     * @return error message if the connection request could not be sent
+     */
+    private String connect(Partner p) {
+        try {
+            cm.get().receiveInvitation(p.getDid(), p.getLabel(), p.getAlias());
+            return null;
+        } catch (Exception e) {
+            log.error("Could not send connection request to imported partner: {}", p.getDid(), e);
+            return "Connection request failed: " + (e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    private PartnerImportJobAPI toAPIObject(PartnerImportJob job, boolean withItems) {
+        final UUID id = job.getId();
+        return PartnerImportJobAPI
+                .builder()
+                .id(id.toString())
+                .createdAt(job.getCreatedAt() != null ? Long.valueOf(job.getCreatedAt().toEpochMilli()) : null)
+                .updatedAt(job.getUpdatedAt() != null ? Long.valueOf(job.getUpdatedAt().toEpochMilli()) : null)
+                .state(job.getState())
+                .total(job.getTotal())
+                .pending(Long.valueOf(itemRepo.countByJobIdAndState(id, PartnerImportItem.PENDING)))
+                .imported(Long.valueOf(itemRepo.countByJobIdAndState(id, PartnerImportItem.IMPORTED)))
+                .exists(Long.valueOf(itemRepo.countByJobIdAndState(id, PartnerImportItem.EXISTS)))
+                .failed(Long.valueOf(itemRepo.countByJobIdAndState(id, PartnerImportItem.FAILED)))
+                .items(withItems ? itemRepo.findByJobIdOrderByLineNumber(id)
+                        .stream()
+                        .map(PartnerImportManager::toAPIObject)
+                        .collect(Collectors.toList()) : null)
+                .build();
+    }
+
+    private static PartnerImportJobAPI.Item toAPIObject(PartnerImportItem item) {
+        return PartnerImportJobAPI.Item
+                .builder()
+                .lineNumber(item.getLineNumber())
+                .did(item.getDid())
+                .alias(item.getAlias())
+                .state(item.getState())
+                .error(item.getError())
+                .partnerId(item.getPartnerId() != null ? item.getPartnerId().toString() : null)
+                .build();
+    }
+
+    /**
+     * Parses a csv list of partners, one partner per line with the did in the
+     * first and the optional alias in the second column. Empty lines, lines
+     * starting with # and a header line starting with did are skipped.
+     *
+     * @param csv the csv content
+     * @return list of {@link AddPartnerRequest}
+     */
+    public static List<AddPartnerRequest> parseCsv(@Nullable String csv) {
+        final List<AddPartnerRequest> result = new ArrayList<>();
+        if (csv == null) {
+            return result;
+        }
+        try (BufferedReader r = new BufferedReader(new StringReader(csv))) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                final String[] columns = line.split("[,;]", 2);
+                final String did = unquote(columns[0]);
+                if (did == null || "did".equalsIgnoreCase(did)) {
+                    continue;
+                }
+                final AddPartnerRequest p = new AddPartnerRequest();
+                p.setDid(did);
+                if (columns.length > 1) {
+                    p.setAlias(unquote(columns[1]));
+                }
+                result.add(p);
+            }
+        } catch (IOException e) {
+            throw new WrongApiUsageException("Could not read csv: " + e.getMessage());
+        }
+        return result;
+    }
+
+    private static String unquote(String s) {
+        return StringUtils.trimToNull(StringUtils.strip(s.strip(), "\""));
+    }
+
+    @AllArgsConstructor
+    private static final class Lookup {
+        private final PartnerImportItem item;
+        private final PartnerAPI partner;
+        private final String error;
+    }
+}
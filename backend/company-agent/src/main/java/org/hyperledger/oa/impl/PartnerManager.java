@@ -17,30 +17,41 @@
  */
 package org.hyperledger.oa.impl;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.hyperledger.aries.api.ledger.EndpointType;
 import org.hyperledger.oa.api.DidDocAPI;
 import org.hyperledger.oa.api.DidDocAPI.Service;
 import org.hyperledger.oa.api.PartnerAPI;
+import org.hyperledger.oa.api.PartnerSummaryAPI;
 import org.hyperledger.oa.api.exception.PartnerException;
 import org.hyperledger.oa.client.URClient;
+import org.hyperledger.oa.controller.api.partner.PartnerFilter;
 import org.hyperledger.oa.impl.aries.ConnectionManager;
 import org.hyperledger.oa.impl.util.Converter;
+import org.hyperledger.oa.impl.util.KeysetCursor;
+import org.hyperledger.oa.impl.util.KeysetPager;
 import org.hyperledger.oa.impl.web.WebPartnerFlow;
 import org.hyperledger.oa.model.Partner;
+import org.hyperledger.oa.model.PartnerSummary;
 import org.hyperledger.oa.repository.PartnerRepository;
 
 import io.micronaut.cache.annotation.Cacheable;
+import io.micronaut.scheduling.TaskExecutors;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
 import lombok.NonNull;
 
 @Singleton
@@ -61,12 +72,106 @@ public class PartnerManager {
     @Inject
     private WebPartnerFlow webFlow;
 
-    public List<PartnerAPI> getPartners() {
-        List<PartnerAPI> result = new ArrayList<>();
-        repo.findAll().forEach(dbPartner -> {
-            result.add(converter.toAPIObject(dbPartner));
-        });
-        return result;
+    @Inject
+    @Named(TaskExecutors.IO)
+    private ExecutorService ioExecutor;
+
+    /** rows fetched per query when streaming all partners */
+    static final int STREAM_PAGE_SIZE = 500;
+
+    public long countPartners(@NonNull PartnerFilter filter) {
+        return repo.countFiltered(
+                filter.getState(),
+                filter.getAriesSupport(),
+                filter.getIncoming(),
+                filter.getValid(),
+                filter.aliasPattern());
+    }
+
+    /**
+     * One page of partners ordered by creation date
+     *
+     * @param filter {@link PartnerFilter}
+     * @param after  position of the last partner of the previous page, null for
+     *               the first page
+     * @param limit  max page size
+     * @return list of partners, model objects
+     */
+    public List<Partner> findPartners(@NonNull PartnerFilter filter, @Nullable KeysetCursor after, int limit) {
+        return repo.findPage(
+                filter.getState(),
+                filter.getAriesSupport(),
+                filter.getIncoming(),
+                filter.getValid(),
+                filter.aliasPattern(),
+                after != null ? after.getTimestamp() : null,
+                after != null ? after.getId() : null,
+                limit);
+    }
+
+    /**
+     * Same as {@link #findPartners}, but without the public profile
+     *
+     * @param filter {@link PartnerFilter}
+     * @param after  position of the last partner of the previous page, null for
+     *               the first page
+     * @param limit  max page size
+     * @return list of partner summaries
+     */
+    public List<PartnerSummary> findPartnerSummaries(
+            @NonNull PartnerFilter filter, @Nullable KeysetCursor after, int limit) {
+        return repo.findSummaryPage(
+                filter.getState(),
+                filter.getAriesSupport(),
+                filter.getIncoming(),
+                filter.getValid(),
+                filter.aliasPattern(),
+                after != null ? after.getTimestamp() : null,
+                after != null ? after.getId() : null,
+                limit);
+    }
+
+    /**
+     * Streams all matching partners. Pages are fetched from the db while the
+     * response is written, so only one page is held in memory.
+     *
+     * @param filter {@link PartnerFilter}
+     * @param after  optional start position
+     * @return {@link Flowable} of partners
+     */
+    public Flowable<PartnerAPI> streamPartners(@NonNull PartnerFilter filter, @Nullable KeysetCursor after) {
+        return KeysetPager.<Partner>stream(
+                c -> findPartners(filter, c, STREAM_PAGE_SIZE), PartnerManager::cursorOf, after, STREAM_PAGE_SIZE)
+                .map(converter::toAPIObject)
+                .subscribeOn(Schedulers.from(ioExecutor));
+    }
+
+    public Flowable<PartnerSummaryAPI> streamPartnerSummaries(
+            @NonNull PartnerFilter filter, @Nullable KeysetCursor after) {
+        return KeysetPager.<PartnerSummary>stream(
+                c -> findPartnerSummaries(filter, c, STREAM_PAGE_SIZE), PartnerManager::cursorOf, after,
+                STREAM_PAGE_SIZE)
+                .map(converter::toAPIObject)
+                .subscribeOn(Schedulers.from(ioExecutor));
+    }
+
+    public Flowable<PartnerAPI> toAPIObjects(@NonNull List<Partner> partners) {
+        return Flowable.fromIterable(partners)
+                .map(converter::toAPIObject)
+                .subscribeOn(Schedulers.from(ioExecutor));
+    }
+
+    public Flowable<PartnerSummaryAPI> toSummaryAPIObjects(@NonNull List<PartnerSummary> partners) {
+        return Flowable.fromIterable(partners)
+                .map(converter::toAPIObject);
+    }
+
+    public static KeysetCursor cursorOf(@NonNull Partner p) {
+        return KeysetCursor.of(p.getCreatedAt(), p.getId());
+    }
+
+    public static KeysetCursor cursorOf(@NonNull PartnerSummary p) {
+        return KeysetCursor.of(p.getCreatedAt(), p.getId());
     }
 
     public Optional<PartnerAPI> getPartnerById(UUID id) {
@@ -132,36 +237,62 @@ public class PartnerManager {
         if (dbPartner.isPresent()) {
             Partner dbP = dbPartner.get();
             PartnerAPI pAPI = lookupPartner(dbP.getDid());
-            dbP.setValid(pAPI.getValid());
-            dbP.setVerifiablePresentation(converter.toMap(pAPI.getVerifiablePresentation()));
-            dbP = repo.update(dbP);
+            final Map<String, Object> vp = converter.toMap(pAPI.getVerifiablePresentation());
+            final String vpHash = converter.toHash(vp);
+            if (!vpHash.equals(dbP.getVpHash()) || !Objects.equals(pAPI.getVerkey(), dbP.getVerkey())
+                    || !Objects.equals(pAPI.getValid(), dbP.getValid())) {
+                dbP.setValid(pAPI.getValid());
+                dbP.setVerifiablePresentation(vp);
+                dbP.setVpHash(vpHash);
+                dbP.setVerkey(pAPI.getVerkey());
+                dbP = repo.update(dbP);
+            }
             result = Optional.of(converter.toAPIObject(dbP));
         }
         return result;
     }
 
-    @Cacheable(cacheNames = { "partner-lookup-cache" })
+    /**
+     * Blocking variant of {@link #lookupPartnerAsync(String)}
+     *
+     * @param did the partners did
+     * @return {@link PartnerAPI}
+     */
     public PartnerAPI lookupPartner(@NonNull String did) {
-        Optional<DidDocAPI> didDocument = ur.getDidDocument(did);
-        if (didDocument.isPresent()) {
-            Optional<Map<String, String>> services = filterServices(didDocument.get());
-            if (services.isPresent()) {
-                PartnerAPI partner = new PartnerAPI();
-                if (services.get().containsKey(EndpointType.Profile.getLedgerName())) {
-                    partner = webFlow.lookupPartner(
-                            services.get().get(EndpointType.Profile.getLedgerName()),
-                            didDocument.get().getPublicKey());
-                }
-                if (services.get().containsKey(EndpointType.Endpoint.getLedgerName())) {
-                    partner.setAriesSupport(Boolean.TRUE);
-                } else {
-                    partner.setAriesSupport(Boolean.FALSE);
-                }
-                return partner;
-            }
-            throw new PartnerException("Could not resolve profile and/or aries endpoint from did document");
-        }
-        throw new PartnerException("Could not retreive did document from universal resolver");
+        return lookupPartnerAsync(did).blockingGet();
+    }
+
+    /**
+     * Resolves the partners did document and fetches the public profile from the
+     * profile endpoint, if there is one.
+     *
+     * @param did the partners did
+     * @return {@link Single} of the {@link PartnerAPI}
+     */
+    @Cacheable(cacheNames = { "partner-lookup-cache" })
+    public Single<PartnerAPI> lookupPartnerAsync(@NonNull String did) {
+        return ur.getDidDocumentAsync(did)
+                .switchIfEmpty(Single.error(
+                        () -> new PartnerException("Could not retreive did document from universal resolver")))
+                .flatMap(didDocument -> {
+                    Optional<Map<String, String>> services = filterServices(didDocument);
+                    if (services.isEmpty()) {
+                        return Single.error(new PartnerException(
+                                "Could not resolve profile and/or aries endpoint from did document"));
+                    }
+                    final Boolean ariesSupport = Boolean.valueOf(
+                            services.get().containsKey(EndpointType.Endpoint.getLedgerName()));
+                    Single<PartnerAPI> partner = Single.just(new PartnerAPI());
+                    if (services.get().containsKey(EndpointType.Profile.getLedgerName())) {
+                        partner = webFlow.lookupPartner(
+                                services.get().get(EndpointType.Profile.getLedgerName()),
+                                didDocument.getPublicKey());
+                    }
+                    return partner.map(p -> {
+                        p.setAriesSupport(ariesSupport);
+                        return p;
+                    });
+                });
     }
 
     static Optional<Map<String, String>> filterServices(@NonNull DidDocAPI doc) {
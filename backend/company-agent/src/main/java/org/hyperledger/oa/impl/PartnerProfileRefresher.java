@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.hyperledger.aries.api.ledger.EndpointType;
+import org.hyperledger.oa.api.DidDocAPI;
+import org.hyperledger.oa.api.PartnerAPI;
+import org.hyperledger.oa.client.URClient;
+import org.hyperledger.oa.client.api.PublicProfileResponse;
+import org.hyperledger.oa.controller.api.partner.PartnerFilter;
+import org.hyperledger.oa.impl.cluster.ClusterLeader;
+import org.hyperledger.oa.impl.util.Converter;
+import org.hyperledger.oa.impl.util.HostRateLimiter;
+import org.hyperledger.oa.impl.util.KeysetCursor;
+import org.hyperledger.oa.impl.util.LatencyHistogram;
+import org.hyperledger.oa.impl.web.WebPartnerFlow;
+import org.hyperledger.oa.model.Partner;
+import org.hyperledger.oa.repository.PartnerRepository;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.env.Environment;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.annotation.Scheduled;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Periodically checks the public profiles of all partners. Profiles are
+ * requested conditionally, and only profiles whose content changed are verified
+ * and written again.
+ */
+@Slf4j
+@Singleton
+@Requires(notEnv = { Environment.TEST })
+public class PartnerProfileRefresher {
+
+    enum Outcome {
+        NO_PROFILE,
+        NOT_MODIFIED,
+        UNCHANGED,
+        UPDATED,
+        FAILED
+    }
+
+    @Inject
+    private PartnerManager pm;
+
+    @Inject
+    private PartnerRepository repo;
+
+    @Inject
+    private URClient ur;
+
+    @Inject
+    private WebPartnerFlow webFlow;
+
+    @Inject
+    private Converter converter;
+
+    @Inject
+    private ClusterLeader leader;
+
+    @Inject
+    @Named(TaskExecutors.IO)
+    private ExecutorService ioExecutor;
+
+    @Value("${oagent.profile-refresh.batch-size}")
+    private int batchSize = 100;
+
+    @Value("${oagent.profile-refresh.concurrency}")
+    private int concurrency = 10;
+
+    /** min time between two profile requests to the same host */
+    @Value("${oagent.profile-refresh.host-interval}")
+    private Duration hostInterval = Duration.ofSeconds(1);
+
+    private HostRateLimiter limiter;
+
+    @Getter
+    private final LatencyHistogram runDuration = new LatencyHistogram();
+
+    @PostConstruct
+    void init() {
+        limiter = new HostRateLimiter(hostInterval);
+    }
+
+    @Scheduled(fixedDelay = "${oagent.profile-refresh.interval}",
+            initialDelay = "${oagent.profile-refresh.initial-delay}")
+    public void refreshAll() {
+        if (!leader.isLeader()) {
+            return;
+        }
+        final long start = System.nanoTime();
+        final Map<Outcome, Integer> outcomes = new EnumMap<>(Outcome.class);
+        try {
+            final PartnerFilter all = PartnerFilter.builder().build();
+            KeysetCursor after = null;
+            List<Partner> page;
+            do {
+                page = pm.findPartners(all, after, batchSize);
+                Flowable.fromIterable(page)
+                        .flatMapSingle(this::refresh, false, concurrency)
+                        .blockingSubscribe(o -> outcomes.merge(o, Integer.valueOf(1), Integer::sum));
+                if (!page.isEmpty()) {
+                    after = PartnerManager.cursorOf(page.get(page.size() - 1));
+                }
+            } while (page.size() == batchSize);
+        } catch (Exception e) {
+            log.error("Profile refresh job failed.", e);
+        }
+        limiter.evictIdle();
+        runDuration.record(Duration.ofNanos(System.nanoTime() - start));
+        log.debug("Profile refresh finished, duration: {}, outcomes: {}", runDuration, outcomes);
+    }
+
+    private Single<Outcome> refresh(Partner p) {
+        return ur.getDidDocumentAsync(p.getDid())
+                .flatMap(doc -> {
+                    final String url = PartnerManager.filterServices(doc)
+                            .map(s -> s.get(EndpointType.Profile.getLedgerName()))
+                            .orElse(null);
+                    final String host = url != null ? URI.create(url).getHost() : null;
+                    if (host == null) {
+                        return Maybe.just(Outcome.NO_PROFILE);
+                    }
+                    final Duration wait = limiter.reserve(host);
+                    return Maybe.timer(wait.toNanos(), TimeUnit.NANOSECONDS)
+                            .flatMap(t -> ur.getPublicProfileAsync(
+                                    url, p.getProfileEtag(), p.getProfileLastModified()))
+                            .observeOn(Schedulers.from(ioExecutor))
+                            .map(r -> apply(p, doc, r));
+                })
+                .toSingle(Outcome.NO_PROFILE)
+                .onErrorReturn(e -> {
+                    log.warn("Could not refresh profile of partner: {}, {}", p.getDid(), e.getMessage());
+                    return Outcome.FAILED;
+                });
+    }
+
+    /**
+     * Writes the response, the signature is only verified again if the profile
+     * content or the key changed
+     *
+     * @param p   the stored partner
+     * @param doc the partners did document
+     * @param r   the profile response
+     * @return {@link Outcome}
+     */
+    Outcome apply(Partner p, DidDocAPI doc, PublicProfileResponse r) {
+        if (r.isNotModified()) {
+            return Outcome.NOT_MODIFIED;
+        }
+        final Map<String, Object> vp = converter.toMap(r.getProfile());
+        final String vpHash = converter.toHash(vp);
+        final String verkey = WebPartnerFlow.matchKey(
+                r.getProfile().getProof() != null ? r.getProfile().getProof().getVerificationMethod() : null,
+                doc.getPublicKey()).orElse(null);
+        if (vpHash.equals(p.getVpHash()) && Objects.equals(verkey, p.getVerkey())) {
+            if (!Objects.equals(r.getEtag(), p.getProfileEtag())
+                    || !Objects.equals(r.getLastModified(), p.getProfileLastModified())) {
+                repo.updateProfileValidators(p.getId(), r.getEtag(), r.getLastModified());
+            }
+            return Outcome.UNCHANGED;
+        }
+        final PartnerAPI verified = webFlow.verify(r.getProfile(), doc.getPublicKey());
+        repo.updateProfile(p.getId(), vp, vpHash, verified.getVerkey(), verified.getValid(),
+                r.getEtag(), r.getLastModified());
+        log.info("Public profile of partner {} changed, valid: {}", p.getDid(), verified.getValid());
+        return Outcome.UPDATED;
+    }
+}
@@ -6,6 +6,8 @@ import java.util.Optional;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import org.hyperledger.oa.impl.activity.DidDocWebHolder;
+import org.hyperledger.oa.impl.activity.JsonLdContextLoader;
 import org.hyperledger.oa.impl.aries.AriesStartupTasks;
 import org.hyperledger.oa.impl.web.WebStartupTasks;
 import org.hyperledger.oa.model.BPAState;
@@ -29,6 +31,12 @@ public class StartupTasks {
     @Inject
     private BPAStateRepository stateRepo;
 
+    @Inject
+    private JsonLdContextLoader contextLoader;
+
+    @Inject
+    private DidDocWebHolder didDocHolder;
+
     @Inject
     private Optional<WebStartupTasks> webTasks;
 
@@ -39,6 +47,10 @@ public class StartupTasks {
     public void onServiceStartedEvent(@SuppressWarnings("unused") StartupEvent startEvent) {
         checkModeChange();
 
+        contextLoader.preload();
+
+        didDocHolder.get();
+
         if (envState.booleanValue()) {
             log.info("Running in Web Only mode.");
             webTasks.ifPresent(at -> at.onServiceStartedEvent());
@@ -30,6 +30,7 @@ import org.hyperledger.aries.api.jsonld.VerifiablePresentation;
 import org.hyperledger.aries.api.jsonld.VerifyResponse;
 import org.hyperledger.oa.api.exception.NetworkException;
 
+import io.micronaut.context.annotation.Value;
 import lombok.NonNull;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -45,6 +46,13 @@ public class CryptoManager {
     @Inject
     private Identity id;
 
+    @Inject
+    private Ed25519Verifier localVerifier;
+
+    /** verify Ed25519Signature2018 proofs in process before asking aca-py */
+    @Value("${oagent.verification.local}")
+    private boolean localVerification = true;
+
     /**
      * Self sign a {@link VerifiablePresentation}
      *
@@ -54,15 +62,14 @@ public class CryptoManager {
     public Optional<VerifiablePresentation> sign(@NonNull VerifiablePresentation inputVp) {
         Optional<VerifiablePresentation> result = Optional.empty();
         try {
-            final Optional<String> verkey = id.getVerkey();
-            String myDid = id.getMyDid();
-            String myVerkey = id.getMyKeyId(myDid);
-            if (verkey.isPresent()) {
+            // did, key id and verkey always come from the same snapshot
+            final IdentitySnapshot me = id.getSnapshot();
+            if (me.getVerkey() != null) {
                 SignRequest sr = SignRequest.from(
-                        verkey.get(),
+                        me.getVerkey(),
                         inputVp,
                         Options.builderWithDefaults()
-                                .verificationMethod(myVerkey)
+                                .verificationMethod(me.getKeyId())
                                 .build());
                 final Optional<VerifiablePresentation> signedVp = acaPy.jsonldSign(sr, VerifiablePresentation.class);
                 result = signedVp;
@@ -79,19 +86,23 @@ public class CryptoManager {
      *
      * @param verkey  the own or the partners verkey
      * @param inputVp {@link VerifiablePresentation}
-     * @return verification success or failure
+     * @return verification success or failure, empty if aca-py did not answer
      */
-    public Boolean verify(String verkey, VerifiablePresentation inputVp) {
-        Boolean result = Boolean.FALSE;
+    public Optional<Boolean> verify(String verkey, VerifiablePresentation inputVp) {
+        if (localVerification) {
+            // a negative local result is checked by aca-py as well, so that a
+            // canonicalization difference can never reject a valid profile
+            final Optional<Boolean> local = localVerifier.verify(verkey, inputVp);
+            if (local.isPresent() && local.get().booleanValue()) {
+                return local;
+            }
+        }
         try {
             Optional<VerifyResponse> state = acaPy.jsonldVerify(verkey, inputVp);
-            if (state.isPresent()) {
-                result = Boolean.valueOf(state.get().isValid());
-            }
+            return state.map(s -> Boolean.valueOf(s.isValid()));
         } catch (IOException e) {
             log.error(e.getMessage(), e);
             throw new NetworkException(e.getMessage());
         }
-        return result;
     }
 }
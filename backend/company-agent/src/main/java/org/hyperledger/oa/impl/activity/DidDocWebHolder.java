@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.activity;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.hyperledger.oa.api.DidDocAPI;
+import org.hyperledger.oa.impl.cluster.ClusterNotifications;
+import org.hyperledger.oa.model.DidDocWeb;
+import org.hyperledger.oa.repository.DidDocWebRepository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micronaut.context.event.ApplicationEventPublisher;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the single {@link DidDocWeb} row in memory, so that the did document
+ * and the public profile can be served without reading the table. All writes
+ * have to go through this class, they drop the local copy and tell the other
+ * nodes of a cluster to do the same.
+ */
+@Slf4j
+@Singleton
+public class DidDocWebHolder {
+
+    static final String CHANNEL = "did_doc_web";
+
+    @Inject
+    @Setter(AccessLevel.PACKAGE)
+    private DidDocWebRepository didRepo;
+
+    @Inject
+    @Setter(AccessLevel.PACKAGE)
+    private ObjectMapper mapper;
+
+    @Inject
+    @Setter(AccessLevel.PACKAGE)
+    private ClusterNotifications cluster;
+
+    @Inject
+    @Setter(AccessLevel.PACKAGE)
+    private ApplicationEventPublisher publisher;
+
+    private volatile Snapshot current;
+
+    // incremented on every change, a load that raced with a change is not kept
+    private long version;
+
+    @PostConstruct
+    void init() {
+        cluster.subscribe(CHANNEL, nodeId -> {
+            invalidate();
+            publisher.publishEvent(new DidDocWebChangedEvent(nodeId));
+        });
+    }
+
+    /**
+     * @return the did doc row, empty if there is none yet
+     * @throws IllegalStateException if the table holds more than one row
+     */
+    public Optional<DidDocWeb> get() {
+        return load().getRow();
+    }
+
+    /**
+     * @return the web did document, empty if not in web mode or not created yet
+     */
+    public Optional<DidDocAPI> getDidDocument() {
+        return Optional.ofNullable(load().getDidDoc());
+    }
+
+    public DidDocWeb save(@NonNull DidDocWeb didDocWeb) {
+        final DidDocWeb saved = didRepo.save(didDocWeb);
+        changed();
+        return saved;
+    }
+
+    public void updateDidDoc(@NonNull UUID id, Map<String, Object> didDoc) {
+        didRepo.updateDidDoc(id, didDoc);
+        changed();
+    }
+
+    public void updateProfileJson(@NonNull UUID id, Map<String, Object> profileJson) {
+        didRepo.updateProfileJson(id, profileJson);
+        changed();
+    }
+
+    /**
+     * Drops the local copy, the next read loads the row again
+     */
+    public synchronized void invalidate() {
+        version++;
+        current = null;
+    }
+
+    private void changed() {
+        invalidate();
+        cluster.publish(CHANNEL, cluster.getNodeId());
+    }
+
+    private Snapshot load() {
+        Snapshot s = current;
+        if (s != null) {
+            return s;
+        }
+        final long v;
+        synchronized (this) {
+            v = version;
+        }
+        s = read();
+        synchronized (this) {
+            if (v == version) {
+                current = s;
+            }
+        }
+        return s;
+    }
+
+    private Snapshot read() {
+        final Iterator<DidDocWeb> iterator = didRepo.findAll().iterator();
+        if (!iterator.hasNext()) {
+            return new Snapshot(Optional.empty(), null);
+        }
+        final DidDocWeb row = iterator.next();
+        if (iterator.hasNext()) {
+            throw new IllegalStateException("More than one did doc entity found");
+        }
+        DidDocAPI didDoc = null;
+        if (row.getDidDoc() != null) {
+            try {
+                didDoc = mapper.convertValue(row.getDidDoc(), DidDocAPI.class);
+            } catch (IllegalArgumentException e) {
+                log.error("", e);
+            }
+        }
+        return new Snapshot(Optional.of(row), didDoc);
+    }
+
+    @Value
+    private static class Snapshot {
+        private Optional<DidDocWeb> row;
+        @Nullable
+        private DidDocAPI didDoc;
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.activity;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.bouncycastle.crypto.params.Ed25519PublicKeyParameters;
+import org.bouncycastle.crypto.signers.Ed25519Signer;
+import org.hyperledger.aries.api.jsonld.VerifiablePresentation;
+import org.hyperledger.oa.impl.util.Base58;
+
+import com.apicatalog.jsonld.JsonLd;
+import com.apicatalog.jsonld.document.JsonDocument;
+import com.apicatalog.rdf.RdfDataset;
+import com.apicatalog.rdf.io.nquad.NQuadsWriter;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.setl.rdf.normalization.RdfNormalize;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In process verification of Ed25519Signature2018 proofs as created by aca-py:
+ * a detached jws over sha-256(canonical proof options) + sha-256(canonical
+ * document), canonicalized with URDNA2015.
+ */
+@Slf4j
+@Singleton
+public class Ed25519Verifier {
+
+    static final String PROOF_TYPE = "Ed25519Signature2018";
+    static final String SECURITY_V2 = "https://w3id.org/security/v2";
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPEREF = new TypeReference<>() {
+    };
+
+    @Inject
+    @Setter
+    private ObjectMapper mapper;
+
+    @Inject
+    @Setter
+    private JsonLdContextLoader contextLoader;
+
+    /**
+     * Verify a signed {@link VerifiablePresentation}
+     *
+     * @param verkey base58 encoded ed25519 public key
+     * @param vp     {@link VerifiablePresentation}
+     * @return the verification result, empty if the proof can not be checked
+     *         locally, e.g. because of an unsupported proof type or a context
+     *         that could not be loaded
+     */
+    public Optional<Boolean> verify(@NonNull String verkey, @NonNull VerifiablePresentation vp) {
+        return verify(verkey, mapper.convertValue(vp, MAP_TYPEREF));
+    }
+
+    Optional<Boolean> verify(String verkey, Map<String, Object> signed) {
+        try {
+            final Map<String, Object> doc = new LinkedHashMap<>(signed);
+            final Object proof = doc.remove("proof");
+            if (!(proof instanceof Map)) {
+                return Optional.empty();
+            }
+            @SuppressWarnings("unchecked")
+            final Map<String, Object> options = new LinkedHashMap<>((Map<String, Object>) proof);
+            final Object jws = options.remove("jws");
+            if (!PROOF_TYPE.equals(options.get("type")) || !(jws instanceof String)) {
+                return Optional.empty();
+            }
+            final String[] parts = ((String) jws).split("\\.", -1);
+            if (parts.length != 3 || !parts[1].isEmpty() || !isDetachedEdDSA(parts[0])) {
+                return Optional.empty();
+            }
+            final byte[] key = Base58.decode(verkey);
+            if (key.length != Ed25519PublicKeyParameters.KEY_SIZE) {
+                return Optional.empty();
+            }
+            final byte[] header = (parts[0] + ".").getBytes(StandardCharsets.US_ASCII);
+            final byte[] data = verifyData(doc, options);
+            final byte[] signature = Base64.getUrlDecoder().decode(parts[2]);
+
+            final Ed25519Signer signer = new Ed25519Signer();
+            signer.init(false, new Ed25519PublicKeyParameters(key, 0));
+            signer.update(header, 0, header.length);
+            signer.update(data, 0, data.length);
+            return Optional.of(Boolean.valueOf(signer.verifySignature(signature)));
+        } catch (Exception e) {
+            log.warn("Local signature verification not possible: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @param doc     the document without its proof
+     * @param options the proof without the signature
+     * @return the signed bytes, without the jws header
+     */
+    byte[] verifyData(Map<String, Object> doc, Map<String, Object> options) throws Exception {
+        final Map<String, Object> o = new LinkedHashMap<>(options);
+        o.put("@context", SECURITY_V2);
+        final byte[] optionsHash = sha256(canonicalize(o));
+        final byte[] docHash = sha256(canonicalize(doc));
+        final byte[] result = Arrays.copyOf(optionsHash, optionsHash.length + docHash.length);
+        System.arraycopy(docHash, 0, result, optionsHash.length, docHash.length);
+        return result;
+    }
+
+    /**
+     * URDNA2015 canonicalization to n-quads
+     *
+     * @param json json-ld document
+     * @return sorted n-quads, one per line
+     */
+    String canonicalize(Map<String, Object> json) throws Exception {
+        final RdfDataset dataset = JsonLd
+                .toRdf(JsonDocument.of(new ByteArrayInputStream(mapper.writeValueAsBytes(json))))
+                .loader(contextLoader)
+                .get();
+        final StringWriter w = new StringWriter();
+        new NQuadsWriter(w).write(RdfNormalize.normalize(dataset));
+        final String[] quads = w.toString().split("\n");
+        Arrays.sort(quads);
+        final StringBuilder sb = new StringBuilder();
+        for (String quad : quads) {
+            if (!quad.isEmpty()) {
+                sb.append(quad).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private boolean isDetachedEdDSA(String encodedHeader) throws Exception {
+        final Map<String, Object> header = mapper.readValue(
+                Base64.getUrlDecoder().decode(encodedHeader), MAP_TYPEREF);
+        return "EdDSA".equals(header.get("alg")) && Boolean.FALSE.equals(header.get("b64"));
+    }
+
+    private static byte[] sha256(String s) throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+    }
+}
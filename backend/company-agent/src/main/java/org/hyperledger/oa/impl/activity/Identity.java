@@ -20,9 +20,13 @@ package org.hyperledger.oa.impl.activity;
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.hyperledger.aries.AriesClient;
@@ -33,8 +37,12 @@ import org.hyperledger.oa.api.DidDocAPI.PublicKey;
 import org.hyperledger.oa.api.exception.NetworkException;
 import org.hyperledger.oa.client.CachingAriesClient;
 import org.hyperledger.oa.client.URClient;
+import org.hyperledger.oa.impl.cluster.ClusterNotifications;
 
 import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.annotation.Scheduled;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -42,6 +50,10 @@ import lombok.extern.slf4j.Slf4j;
 @Singleton
 public class Identity {
 
+    static final String NO_PUBLIC_DID = "no-public-did";
+
+    static final String CHANNEL = "identity";
+
     @Value("${oagent.host}")
     private String host;
 
@@ -60,9 +72,121 @@ public class Identity {
     private CachingAriesClient acaCache;
 
     @Inject
+    @Setter
     private URClient ur;
 
+    @Inject
+    @Setter
+    private ApplicationEventPublisher publisher;
+
+    @Inject
+    @Setter
+    private ClusterNotifications cluster;
+
+    @Inject
+    @Named(TaskExecutors.IO)
+    @Setter
+    private ExecutorService ioExecutor;
+
+    private final AtomicReference<IdentitySnapshot> snapshot = new AtomicReference<>();
+
+    /**
+     * As soon as one node detected a rotation the other nodes of a cluster check
+     * their identity against the one they hold, so that every node publishes its
+     * own {@link IdentityChangedEvent}, including the leader.
+     */
+    @PostConstruct
+    void init() {
+        cluster.subscribe(CHANNEL, payload -> {
+            if (snapshot.get() != null) {
+                // resolving calls aca-py, which must not block the listener
+                ioExecutor.execute(() -> check(false));
+            }
+        });
+    }
+
+    /**
+     * Returns the current identity without any remote call, only the first call,
+     * or the first call after an invalidation, resolves it.
+     *
+     * @return {@link IdentitySnapshot}
+     * @throws NetworkException if aca-py is not available
+     */
+    public IdentitySnapshot getSnapshot() {
+        final IdentitySnapshot current = snapshot.get();
+        return current != null ? current : refresh();
+    }
+
     public @Nullable String getMyDid() {
+        return getSnapshot().getDid();
+    }
+
+    /**
+     * Resolves did, key id and verkey again and publishes the result.
+     * Incomplete results, e.g. because there is no public did yet, are kept until
+     * the periodic check replaces them, but never replace a complete one. If a
+     * complete identity changed an {@link IdentityChangedEvent} is published.
+     *
+     * @return the newly resolved {@link IdentitySnapshot}
+     * @throws NetworkException if aca-py is not available
+     */
+    public IdentitySnapshot refresh() {
+        return refresh(true);
+    }
+
+    private synchronized IdentitySnapshot refresh(boolean notifyCluster) {
+        final String did = resolveDid();
+        final IdentitySnapshot next = IdentitySnapshot.of(did, resolveKeyId(did), resolveVerkey().orElse(null));
+        final IdentitySnapshot previous = snapshot.get();
+        if (next.isComplete()) {
+            snapshot.set(next);
+            if (previous != null && previous.isComplete() && !previous.equals(next)) {
+                log.info("Identity changed from: {} to: {}", previous, next);
+                publisher.publishEvent(new IdentityChangedEvent(previous, next));
+                if (notifyCluster) {
+                    cluster.publish(CHANNEL, next.getDid());
+                }
+            }
+        } else {
+            log.warn("Identity could not be fully resolved: {}", next);
+            if (previous == null || !previous.isComplete()) {
+                snapshot.set(next);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Drops the current snapshot, the next call resolves the identity again
+     */
+    public void invalidate() {
+        acaCache.invalidateWalletDidPublic();
+        snapshot.set(null);
+    }
+
+    /**
+     * aca-py does not emit an event when the public did or its key is rotated,
+     * so the identity is checked periodically.
+     */
+    @Scheduled(fixedDelay = "${oagent.identity.check-interval}",
+            initialDelay = "${oagent.identity.check-interval}")
+    public void checkForRotation() {
+        check(true);
+    }
+
+    private void check(boolean notifyCluster) {
+        if (snapshot.get() == null) {
+            return; // nothing resolved yet, the next use resolves it
+        }
+        try {
+            acaCache.invalidateWalletDidPublic();
+            refresh(notifyCluster);
+        } catch (Exception e) {
+            log.warn("Could not check the identity for changes: {}", e.getMessage());
+        }
+    }
+
+    private @Nullable String resolveDid() {
         String myDid = null;
         if (webOnly) {
             myDid = ApiConstants.DID_METHOD_WEB + host;
@@ -79,8 +203,8 @@ public class Identity {
         return myDid;
     }
 
-    public @Nullable String getMyKeyId(String myDid) {
-        String myKeyId = "no-public-did";
+    private String resolveKeyId(@Nullable String myDid) {
+        String myKeyId = NO_PUBLIC_DID;
         if (myDid != null) {
             if (webOnly) {
                 myKeyId = myDid + ApiConstants.DEFAULT_KEY_ID;
@@ -98,7 +222,7 @@ public class Identity {
         return myKeyId;
     }
 
-    public Optional<String> getVerkey() {
+    private Optional<String> resolveVerkey() {
         Optional<String> verkey = Optional.empty();
         try {
             Optional<WalletDidResponse> walletDid = acaCache.walletDidPublic();
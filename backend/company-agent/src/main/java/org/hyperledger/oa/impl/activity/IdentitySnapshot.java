@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.activity;
+
+import javax.annotation.Nullable;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Immutable view of the own identity as used for signing: did, the id of the
+ * verification key and the verkey. The snapshot is resolved once and then
+ * handed out as is, so that signing does neither hit aca-py nor the universal
+ * resolver.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class IdentitySnapshot {
+
+    private final @Nullable String did;
+
+    private final String keyId;
+
+    private final @Nullable String verkey;
+
+    public static IdentitySnapshot of(@Nullable String did, String keyId, @Nullable String verkey) {
+        return new IdentitySnapshot(did, keyId, verkey);
+    }
+
+    /**
+     * @return true if all parts could be resolved, only complete snapshots are
+     *         compared for rotations
+     */
+    public boolean isComplete() {
+        return did != null && verkey != null && !Identity.NO_PUBLIC_DID.equals(keyId);
+    }
+}
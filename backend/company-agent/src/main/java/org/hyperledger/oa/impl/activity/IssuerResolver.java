@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.activity;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.hyperledger.oa.model.MyCredential;
+import org.hyperledger.oa.model.PartnerDid;
+import org.hyperledger.oa.repository.PartnerRepository;
+
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.Setter;
+
+/**
+ * Resolves the issuer dids of a batch of credentials with a single query
+ * instead of one partner lookup per credential.
+ */
+@Singleton
+public class IssuerResolver {
+
+    @Inject
+    @Setter(AccessLevel.PACKAGE)
+    private PartnerRepository partnerRepo;
+
+    /**
+     * @param creds the credentials to resolve
+     * @return connection id to issuer did, connections without a partner are
+     *         missing
+     */
+    public Map<String, String> resolve(@NonNull Collection<MyCredential> creds) {
+        final List<String> connectionIds = creds
+                .stream()
+                .map(MyCredential::getConnectionId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        if (connectionIds.isEmpty()) {
+            return Map.of();
+        }
+        final Map<String, String> result = new HashMap<>();
+        for (PartnerDid p : partnerRepo.findByConnectionIdInList(connectionIds)) {
+            if (p.getDid() != null) {
+                result.put(p.getConnectionId(), p.getDid());
+            }
+        }
+        return result;
+    }
+}
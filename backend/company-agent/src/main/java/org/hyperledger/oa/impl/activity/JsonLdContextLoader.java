@@ -0,0 +1,389 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.activity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hyperledger.oa.api.ApiConstants;
+import org.hyperledger.oa.api.CredentialType;
+
+import com.apicatalog.jsonld.JsonLdError;
+import com.apicatalog.jsonld.JsonLdErrorCode;
+import com.apicatalog.jsonld.document.Document;
+import com.apicatalog.jsonld.document.JsonDocument;
+import com.apicatalog.jsonld.loader.DocumentLoader;
+import com.apicatalog.jsonld.loader.DocumentLoaderOptions;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micronaut.context.annotation.Value;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.annotation.Async;
+import lombok.AllArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Resolves remote json-ld contexts during the local canonicalization of
+ * {@link Ed25519Verifier}, so that verifying never waits on the context hosts.
+ * Signing is done by aca-py, which resolves contexts with its own document
+ * loader and is not covered by this cache. A context is looked up in this
+ * order:
+ * <ol>
+ * <li>in memory</li>
+ * <li>bundled with the application under {@code jsonld/contexts/<host>/<path>},
+ * bundled contexts are pinned. The w3c credential and security contexts and the
+ * contexts of the {@link CredentialType}s are shipped, so that a fresh
+ * installation can canonicalize without network access.</li>
+ * <li>on disk below {@code oagent.jsonld.context.dir}, one file per url named
+ * {@code <host>/<sha-256 of the url>.jsonld}</li>
+ * <li>downloaded and written to disk, unless running offline</li>
+ * </ol>
+ * Only https urls are downloaded, and only if they are preloaded, pinned or
+ * their host is in {@code oagent.jsonld.context.allowed-hosts}, so that a
+ * partner profile can not make the agent fetch arbitrary urls. Contexts that
+ * are older than the ttl are still served, and refreshed in the background.
+ * Pinned contexts are never refreshed. A disk cache of a connected instance can
+ * be copied as is into an air-gapped deployment, or into the bundle.
+ */
+@Slf4j
+@Singleton
+public class JsonLdContextLoader implements DocumentLoader {
+
+    static final String BUNDLE = "jsonld/contexts/";
+    static final String SECURITY_V1 = "https://w3id.org/security/v1";
+
+    @Value("${oagent.jsonld.context.max-size}")
+    private long maxSize = 100;
+
+    @Value("${oagent.jsonld.context.dir}")
+    @Setter
+    private String dir = "jsonld-contexts";
+
+    @Value("${oagent.jsonld.context.ttl}")
+    @Setter
+    private Duration ttl = Duration.ofDays(7);
+
+    /** never download, only use bundled and on disk contexts */
+    @Value("${oagent.jsonld.context.offline}")
+    @Setter
+    private boolean offline = false;
+
+    /** comma separated, additional contexts to load at startup */
+    @Value("${oagent.jsonld.context.preload}")
+    @Setter
+    private String preload = "";
+
+    /** comma separated, contexts that are never refreshed once loaded */
+    @Value("${oagent.jsonld.context.pinned}")
+    @Setter
+    private String pinned = "";
+
+    /** comma separated, hosts other contexts may be downloaded from */
+    @Value("${oagent.jsonld.context.allowed-hosts}")
+    @Setter
+    private String allowedHosts = "";
+
+    /** larger responses are rejected */
+    @Value("${oagent.jsonld.context.max-bytes}")
+    @Setter
+    private int maxBytes = 1024 * 1024;
+
+    @Inject
+    @Named(TaskExecutors.IO)
+    @Setter
+    private ExecutorService ioExecutor;
+
+    private Cache<String, Entry> contexts;
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final OkHttpClient okClient = new OkHttpClient.Builder()
+            .callTimeout(Duration.ofSeconds(10))
+            .followSslRedirects(false)
+            .build();
+
+    @PostConstruct
+    void init() {
+        contexts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /**
+     * Loads all contexts used by the {@link CredentialType}s and the proofs, plus
+     * the configured ones, so that the first canonicalization does not have to
+     * wait
+     */
+    @Async
+    public void preload() {
+        for (String url : preloadUrls()) {
+            try {
+                loadDocument(URI.create(url), new DocumentLoaderOptions());
+            } catch (Exception e) {
+                log.warn("Could not preload json-ld context: {}, {}", url, e.getMessage());
+            }
+        }
+        log.info("Preloaded {} json-ld contexts", Long.valueOf(contexts.estimatedSize()));
+    }
+
+    @Override
+    public Document loadDocument(URI url, DocumentLoaderOptions options) throws JsonLdError {
+        final String key = url.toString();
+        Entry entry = contexts.getIfPresent(key);
+        if (entry == null) {
+            entry = load(url);
+            contexts.put(key, entry);
+        } else if (!entry.pinned && !offline
+                && entry.checkedAt.plus(ttl).isBefore(Instant.now())
+                && refreshing.add(key)) {
+            ioExecutor.execute(() -> refresh(url));
+        }
+        return entry.document;
+    }
+
+    long size() {
+        return contexts.estimatedSize();
+    }
+
+    private Entry load(URI url) throws JsonLdError {
+        final String fileName = toFileName(url);
+        final boolean pin = isPinned(url);
+
+        // curated by url path, or copied from a disk cache
+        for (String path : new String[] { toPath(url), fileName }) {
+            try (InputStream is = getClass().getClassLoader().getResourceAsStream(BUNDLE + path)) {
+                if (is != null) {
+                    log.debug("Using bundled json-ld context: {}", url);
+                    return new Entry(parse(url, is.readAllBytes()), Instant.now(), true);
+                }
+            } catch (IOException e) {
+                log.warn("Could not read bundled json-ld context: {}", url);
+            }
+        }
+
+        final Path file = Paths.get(dir).resolve(fileName);
+        if (Files.isRegularFile(file)) {
+            try {
+                log.debug("Using json-ld context from disk: {}", file);
+                return new Entry(parse(url, Files.readAllBytes(file)),
+                        Files.getLastModifiedTime(file).toInstant(), pin);
+            } catch (IOException e) {
+                log.warn("Could not read json-ld context: {}, {}", file, e.getMessage());
+            }
+        }
+
+        if (offline) {
+            throw new JsonLdError(JsonLdErrorCode.LOADING_DOCUMENT_FAILED,
+                    "Json-ld context not available offline: " + url);
+        }
+        return new Entry(parse(url, downloadAndStore(url, file)), Instant.now(), pin);
+    }
+
+    private void refresh(URI url) {
+        final String key = url.toString();
+        try {
+            final byte[] content = downloadAndStore(url, Paths.get(dir).resolve(toFileName(url)));
+            contexts.put(key, new Entry(parse(url, content), Instant.now(), false));
+            log.debug("Refreshed json-ld context: {}", url);
+        } catch (Exception e) {
+            // keep serving the stale context, and try again after the next ttl
+            log.warn("Could not refresh json-ld context: {}, {}", url, e.getMessage());
+            final Entry stale = contexts.getIfPresent(key);
+            if (stale != null) {
+                contexts.put(key, new Entry(stale.document, Instant.now(), false));
+            }
+        } finally {
+            refreshing.remove(key);
+        }
+    }
+
+    private byte[] downloadAndStore(URI url, Path file) throws JsonLdError {
+        checkAllowed(url);
+        final byte[] content = download(url);
+        parse(url, content); // do not store anything that is not json
+        try {
+            Files.createDirectories(file.getParent());
+            final Path tmp = Files.createTempFile(file.getParent(), ".context", ".tmp");
+            Files.write(tmp, content);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not store json-ld context: {}, {}", file, e.getMessage());
+        }
+        return content;
+    }
+
+    byte[] download(URI url) throws JsonLdError {
+        log.debug("Loading json-ld context: {}", url);
+        final Request request = new Request.Builder()
+                .url(url.toString())
+                .header("Accept", "application/ld+json, application/json")
+                .build();
+        try (Response response = okClient.newCall(request).execute();
+                ResponseBody body = response.body()) {
+            if (!response.isSuccessful() || body == null) {
+                throw new JsonLdError(JsonLdErrorCode.LOADING_DOCUMENT_FAILED,
+                        "Could not load context: " + url + ", status: " + response.code());
+            }
+            if (body.contentLength() > maxBytes) {
+                throw tooLarge(url);
+            }
+            try (InputStream is = body.byteStream()) {
+                return readLimited(url, is, maxBytes);
+            }
+        } catch (IOException e) {
+            throw new JsonLdError(JsonLdErrorCode.LOADING_DOCUMENT_FAILED,
+                    "Could not load context: " + url + ", " + e.getMessage());
+        }
+    }
+
+    static byte[] readLimited(URI url, InputStream is, int max) throws IOException, JsonLdError {
+        final byte[] content = is.readNBytes(max + 1);
+        if (content.length > max) {
+            throw tooLarge(url);
+        }
+        return content;
+    }
+
+    private static JsonLdError tooLarge(URI url) {
+        return new JsonLdError(JsonLdErrorCode.LOADING_DOCUMENT_FAILED, "Context is too large: " + url);
+    }
+
+    /**
+     * @param url context url
+     * @throws JsonLdError if the url must not be downloaded
+     */
+    void checkAllowed(URI url) throws JsonLdError {
+        if (!"https".equalsIgnoreCase(url.getScheme())) {
+            throw new JsonLdError(JsonLdErrorCode.LOADING_DOCUMENT_FAILED, "Only https contexts are loaded: " + url);
+        }
+        final String key = url.toString();
+        final String host = StringUtils.defaultString(url.getHost()).toLowerCase();
+        if (!preloadUrls().contains(key) && !isPinned(url)
+                && split(allowedHosts).stream().noneMatch(host::equalsIgnoreCase)) {
+            throw new JsonLdError(JsonLdErrorCode.LOADING_DOCUMENT_FAILED, "Context host not allowed: " + url);
+        }
+    }
+
+    private static Document parse(URI url, byte[] content) throws JsonLdError {
+        final Document doc = JsonDocument.of(new ByteArrayInputStream(content));
+        doc.setDocumentUrl(url);
+        return doc;
+    }
+
+    /**
+     * Maps a context url to the name of its disk copy. The whole url is hashed,
+     * so that urls which only differ in scheme, port or query do not share a file.
+     *
+     * @param url context url
+     * @return relative path, host and base64url encoded sha-256, e.g.
+     *         www.w3.org/PmF0...Xw.jsonld
+     * @throws JsonLdError if the url has no host
+     */
+    static String toFileName(URI url) throws JsonLdError {
+        final String host = toPath(url).split("/", 2)[0];
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(url.toString().getBytes(StandardCharsets.UTF_8));
+            return host + "/" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + ".jsonld";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Maps a context url to the relative path of a curated bundle file: host
+     * followed by the url path, characters that are not safe in file names are
+     * replaced
+     *
+     * @param url context url
+     * @return relative path, e.g. www.w3.org/2018/credentials/v1
+     * @throws JsonLdError if the url has no host
+     */
+    static String toPath(URI url) throws JsonLdError {
+        if (StringUtils.isEmpty(url.getHost())) {
+            throw new JsonLdError(JsonLdErrorCode.LOADING_DOCUMENT_FAILED, "Not a remote context: " + url);
+        }
+        final String path = Arrays.stream(StringUtils.defaultString(url.getPath()).split("/"))
+                .filter(StringUtils::isNotEmpty)
+                .map(s -> s.replaceAll("[^A-Za-z0-9._-]", "_"))
+                .map(s -> ".".equals(s) || "..".equals(s) ? "_" : s)
+                .collect(Collectors.joining("/"));
+        final String host = url.getHost().toLowerCase().replaceAll("[^a-z0-9._-]", "_");
+        return host + "/" + (path.isEmpty() ? "index" : path);
+    }
+
+    Set<String> preloadUrls() {
+        final Set<String> urls = new LinkedHashSet<>();
+        urls.add(ApiConstants.CREDENTIALS_V1);
+        urls.add(Ed25519Verifier.SECURITY_V2);
+        urls.add(SECURITY_V1);
+        urls.add(ApiConstants.INDY_CREDENTIAL_SCHEMA);
+        Arrays.stream(CredentialType.values()).forEach(t -> urls.addAll(t.getContext()));
+        urls.addAll(split(preload));
+        return urls;
+    }
+
+    private boolean isPinned(URI url) {
+        return split(pinned).contains(url.toString());
+    }
+
+    private static Set<String> split(String s) {
+        return Arrays.stream(StringUtils.defaultString(s).split(","))
+                .map(String::trim)
+                .filter(StringUtils::isNotEmpty)
+                .collect(Collectors.toSet());
+    }
+
+    @AllArgsConstructor
+    private static final class Entry {
+        private final Document document;
+        /** when the context was last downloaded or checked */
+        private final Instant checkedAt;
+        private final boolean pinned;
+    }
+}
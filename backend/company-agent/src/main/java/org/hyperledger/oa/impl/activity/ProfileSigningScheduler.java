@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.activity;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import io.micronaut.context.annotation.Value;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.TaskScheduler;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Debounces signing requests for the public profile. Every request restarts
+ * the quiet period, but a pending request is never delayed longer than the max
+ * delay. All requests that arrive while one is pending are collapsed into a
+ * single signing call, and signing calls never run in parallel.
+ */
+@Slf4j
+@Singleton
+public class ProfileSigningScheduler {
+
+    @Inject
+    @Named(TaskExecutors.SCHEDULED)
+    @Setter(AccessLevel.PACKAGE)
+    private TaskScheduler scheduler;
+
+    @Value("${oagent.vp.sign.quiet-period:2s}")
+    @Setter(AccessLevel.PACKAGE)
+    private Duration quietPeriod;
+
+    @Value("${oagent.vp.sign.max-delay:10s}")
+    @Setter(AccessLevel.PACKAGE)
+    private Duration maxDelay;
+
+    @Setter(AccessLevel.PACKAGE)
+    private LongSupplier nanoClock = System::nanoTime;
+
+    private final AtomicLong requested = new AtomicLong();
+
+    private final AtomicLong executed = new AtomicLong();
+
+    private final Object runLock = new Object();
+
+    private Runnable latest;
+
+    private ScheduledFuture<?> pending;
+
+    private long firstRequestNanos;
+
+    /**
+     * Request a signing run. Only the task of the latest request is executed once
+     * the quiet period elapsed.
+     *
+     * @param task the signing task
+     */
+    public synchronized void request(@NonNull Runnable task) {
+        requested.incrementAndGet();
+        latest = task;
+
+        final long now = nanoClock.getAsLong();
+        if (pending == null) {
+            firstRequestNanos = now;
+        } else {
+            pending.cancel(false);
+        }
+        long delay = quietPeriod.toNanos();
+        final long remaining = firstRequestNanos + maxDelay.toNanos() - now;
+        if (remaining < delay) {
+            delay = Math.max(0, remaining);
+        }
+        pending = scheduler.schedule(Duration.ofNanos(delay), this::run);
+    }
+
+    private void run() {
+        final Runnable task;
+        synchronized (this) {
+            task = latest;
+            latest = null;
+            pending = null;
+        }
+        if (task == null) {
+            return;
+        }
+        synchronized (runLock) {
+            final long count = executed.incrementAndGet();
+            log.debug("Signing public profile, requested: {}, executed: {}", requested.get(), count);
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Signing of the public profile failed", e);
+            }
+        }
+    }
+
+    /**
+     * @return number of signing requests since startup
+     */
+    public long getRequestedCount() {
+        return requested.get();
+    }
+
+    /**
+     * @return number of signing calls that were actually executed since startup
+     */
+    public long getExecutedCount() {
+        return executed.get();
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.activity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.Nullable;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Immutable, pre-serialized representation of the public profile
+ * (profile.jsonld). The snapshot is created once per signed
+ * {@link org.hyperledger.aries.api.jsonld.VerifiablePresentation} and served
+ * as is, so that anonymous requests neither hit the database nor the json
+ * serializer.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ProfileSnapshot {
+
+    /** Monotonic version, a snapshot with a higher version always wins */
+    private final long version;
+
+    /** Canonical json bytes as written to the client */
+    private final byte[] json;
+
+    /** Gzip encoded variant of the json bytes */
+    private final byte[] gzip;
+
+    /** Strong ETag of the json bytes, including quotes */
+    private final String etag;
+
+    /**
+     * Strong ETag of the gzip bytes, a different content coding needs a
+     * different strong validator
+     */
+    private final String gzipEtag;
+
+    public static ProfileSnapshot of(long version, @NonNull byte[] json) {
+        final String etag = etag(json);
+        return new ProfileSnapshot(version, json, gzip(json), etag, etag.replaceFirst("\"$", "-gzip\""));
+    }
+
+    /**
+     * @param gzip true for the gzip encoded variant
+     * @return the ETag of the variant
+     */
+    public String getEtag(boolean gzip) {
+        return gzip ? gzipEtag : etag;
+    }
+
+    /**
+     * Checks the value of an If-None-Match header against the json variant
+     *
+     * @param ifNoneMatch header value, might be a list of etags or *
+     * @return true if the client already has the current version
+     */
+    public boolean matches(String ifNoneMatch) {
+        return matches(ifNoneMatch, false);
+    }
+
+    /**
+     * Checks the value of an If-None-Match header against one variant of this
+     * snapshot
+     *
+     * @param ifNoneMatch header value, might be a list of etags or *
+     * @param gzip        true for the gzip encoded variant
+     * @return true if the client already has the current version
+     */
+    public boolean matches(String ifNoneMatch, boolean gzip) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        final String tag = getEtag(gzip);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String t = candidate.trim();
+            if ("*".equals(t) || tag.equals(t) || ("W/" + tag).equals(t)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evaluates an Accept-Encoding header including its q-values, e.g.
+     * {@code gzip;q=0} refuses gzip, {@code *;q=0.5} accepts it
+     *
+     * @param acceptEncoding header value
+     * @return true if the gzip variant may be sent
+     */
+    public static boolean acceptsGzip(@Nullable String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            final String[] parts = coding.split(";");
+            final String name = parts[0].trim().toLowerCase();
+            final double q = qValue(parts);
+            if ("gzip".equals(name) || "x-gzip".equals(name)) {
+                return q > 0;
+            } else if ("*".equals(name)) {
+                wildcard = Double.valueOf(q);
+            }
+        }
+        return wildcard != null && wildcard.doubleValue() > 0;
+    }
+
+    private static double qValue(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            final String p = parts[i].trim();
+            if (p.length() > 2 && (p.startsWith("q=") || p.startsWith("Q="))) {
+                try {
+                    return Double.parseDouble(p.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0; // invalid, fall back to identity
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(bos)) {
+            gz.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bos.toByteArray();
+    }
+
+    private static String etag(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -18,16 +18,20 @@
 package org.hyperledger.oa.impl.activity;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.hyperledger.aries.api.credential.Credential;
 import org.hyperledger.aries.api.jsonld.VerifiableCredential;
-import org.hyperledger.aries.api.jsonld.VerifiableCredential.VerifiableCredentialBuilder;
 import org.hyperledger.aries.api.jsonld.VerifiablePresentation;
 import org.hyperledger.aries.api.jsonld.VerifiablePresentation.VerifiablePresentationBuilder;
 import org.hyperledger.aries.config.GsonConfig;
@@ -36,27 +40,42 @@ import org.hyperledger.oa.api.ApiConstants;
 import org.hyperledger.oa.api.CredentialType;
 import org.hyperledger.oa.api.aries.BankAccount;
 import org.hyperledger.oa.api.aries.BankAccountVC;
+import org.hyperledger.oa.impl.DidDocManager;
+import org.hyperledger.oa.impl.activity.VerifiableCredentialCache.Source;
+import org.hyperledger.oa.impl.cluster.ClusterLeader;
+import org.hyperledger.oa.impl.cluster.ClusterNotifications;
+import org.hyperledger.oa.impl.cluster.LeadershipAcquiredEvent;
 import org.hyperledger.oa.impl.util.Converter;
 import org.hyperledger.oa.model.DidDocWeb;
 import org.hyperledger.oa.model.MyCredential;
 import org.hyperledger.oa.model.MyDocument;
-import org.hyperledger.oa.repository.DidDocWebRepository;
 import org.hyperledger.oa.repository.MyCredentialRepository;
 import org.hyperledger.oa.repository.MyDocumentRepository;
-import org.hyperledger.oa.repository.PartnerRepository;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
-import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.runtime.event.annotation.EventListener;
 import io.micronaut.scheduling.annotation.Async;
 import lombok.AccessLevel;
 import lombok.NonNull;
 import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Builds and signs the public profile. In a cluster only the leader signs, the
+ * other nodes forward their changes, so that concurrent changes on two nodes
+ * end up in the same profile.
+ */
+@Slf4j
 @Singleton
 public class VPManager {
 
+    static final String CHANNEL = "profile_changed";
+
     @Inject
+    @Setter(AccessLevel.PACKAGE)
     private Identity id;
 
     @Inject
@@ -66,10 +85,10 @@ public class VPManager {
     private MyCredentialRepository credRepo;
 
     @Inject
-    private DidDocWebRepository didRepo;
+    private DidDocWebHolder didDocHolder;
 
     @Inject
-    private PartnerRepository partnerRepo;
+    private IssuerResolver issuerResolver;
 
     @Inject
     private CryptoManager crypto;
@@ -78,25 +97,249 @@ public class VPManager {
     @Setter(AccessLevel.PROTECTED)
     private Converter converter;
 
+    @Inject
+    @Setter(AccessLevel.PROTECTED)
+    private ObjectMapper mapper;
+
+    @Inject
+    @Setter(AccessLevel.PACKAGE)
+    private ProfileSigningScheduler signScheduler;
+
+    @Inject
+    @Setter(AccessLevel.PACKAGE)
+    private ClusterLeader leader;
+
+    @Inject
+    @Setter(AccessLevel.PACKAGE)
+    private ClusterNotifications cluster;
+
+    @Inject
+    private DidDocManager didDocMgmt;
+
+    private final AtomicLong snapshotVersion = new AtomicLong();
+
+    private final Object writeLock = new Object();
+
+    private long writtenVersion;
+
+    private final AtomicReference<ProfileSnapshot> snapshot = new AtomicReference<>();
+
+    private final VerifiableCredentialCache cache = new VerifiableCredentialCache();
+
+    @PostConstruct
+    void init() {
+        // a null payload means notifications might have been missed, so the
+        // leader rebuilds in both cases
+        cluster.subscribe(CHANNEL, nodeId -> {
+            cache.invalidate();
+            if (leader.isLeader()) {
+                requestSigning();
+            }
+        });
+    }
+
+    /**
+     * Rebuilds all verifiable credentials of the public profile from the
+     * database and signs the resulting VP.
+     */
     public void recreateVerifiablePresentation() {
-        List<VerifiableCredential> vcs = new ArrayList<>();
+        if (forwardToLeader()) {
+            return;
+        }
+        recreate();
+    }
 
-        String myDid = id.getMyDid();
+    private void recreate() {
+        rebuild(id.getMyDid());
+        requestSigning();
+    }
 
+    private void rebuild(String myDid) {
+        cache.reset(myDid);
         docRepo.findByIsPublicTrue().forEach(doc -> {
-            vcs.add(buildFromDocument(doc, myDid));
+            cache.put(Source.DOCUMENT, doc.getId(), doc.getUpdatedAt(), buildFromDocument(doc, myDid));
         });
-        credRepo.findByIsPublicTrue().forEach(cred -> {
-            vcs.add(buildFromCredential(cred, myDid));
+        final List<MyCredential> creds = credRepo.findByIsPublicTrue();
+        final Map<String, String> issuers = issuerResolver.resolve(creds);
+        creds.forEach(cred -> {
+            cache.put(Source.CREDENTIAL, cred.getId(), cred.getIssuedAt(),
+                    buildFromCredential(cred, myDid, issuers.get(cred.getConnectionId())));
         });
+    }
+
+    /**
+     * Incremental update of the public profile after a document was created or
+     * changed. Only the changed document is rebuilt, the VP is only signed again if
+     * its content changed.
+     *
+     * @param doc the saved {@link MyDocument}
+     */
+    public void documentChanged(@NonNull MyDocument doc) {
+        if (forwardToLeader()) {
+            return;
+        }
+        String myDid = id.getMyDid();
+        if (!cache.isCurrent(myDid)) {
+            recreate();
+            return;
+        }
+        boolean changed;
+        if (Boolean.TRUE.equals(doc.getIsPublic())) {
+            changed = cache.isOutdated(Source.DOCUMENT, doc.getId(), doc.getUpdatedAt())
+                    && cache.put(Source.DOCUMENT, doc.getId(), doc.getUpdatedAt(), buildFromDocument(doc, myDid));
+        } else {
+            changed = cache.remove(Source.DOCUMENT, doc.getId());
+        }
+        if (changed) {
+            requestSigning();
+        }
+    }
 
-        // only split up into own method, because of a weird issue that the second
-        // thread does
-        // not see the newly created document otherwise.
-        signVP(vcs);
+    /**
+     * Incremental update of the public profile after a document was deleted
+     *
+     * @param docId the id of the deleted document
+     */
+    public void documentRemoved(@NonNull UUID docId) {
+        if (forwardToLeader()) {
+            return;
+        }
+        if (!cache.isCurrent(id.getMyDid())) {
+            recreate();
+        } else if (cache.remove(Source.DOCUMENT, docId)) {
+            requestSigning();
+        }
+    }
+
+    /**
+     * Incremental update of the public profile after a credential changed its
+     * visibility
+     *
+     * @param cred the {@link MyCredential} in its new state
+     */
+    public void credentialChanged(@NonNull MyCredential cred) {
+        if (forwardToLeader()) {
+            return;
+        }
+        String myDid = id.getMyDid();
+        if (!cache.isCurrent(myDid)) {
+            recreate();
+            return;
+        }
+        boolean changed;
+        if (Boolean.TRUE.equals(cred.getIsPublic())) {
+            changed = cache.isOutdated(Source.CREDENTIAL, cred.getId(), cred.getIssuedAt())
+                    && cache.put(Source.CREDENTIAL, cred.getId(), cred.getIssuedAt(),
+                            buildFromCredential(cred, myDid,
+                                    issuerResolver.resolve(List.of(cred)).get(cred.getConnectionId())));
+        } else {
+            changed = cache.remove(Source.CREDENTIAL, cred.getId());
+        }
+        if (changed) {
+            requestSigning();
+        }
+    }
+
+    /**
+     * Incremental update of the public profile after a credential was deleted
+     *
+     * @param credId the id of the deleted credential
+     */
+    public void credentialRemoved(@NonNull UUID credId) {
+        if (forwardToLeader()) {
+            return;
+        }
+        if (!cache.isCurrent(id.getMyDid())) {
+            recreate();
+        } else if (cache.remove(Source.CREDENTIAL, credId)) {
+            requestSigning();
+        }
+    }
+
+    /**
+     * Drops the credential cache, the next change triggers a full rebuild
+     */
+    public void invalidateCredentialCache() {
+        cache.invalidate();
+    }
+
+    /**
+     * All credentials carry the own did, so the did document is updated and the
+     * profile is rebuilt and signed with the new identity
+     *
+     * @param event {@link IdentityChangedEvent}
+     */
+    @EventListener
+    @Async
+    public void onIdentityChanged(IdentityChangedEvent event) {
+        // every node sees the rotation, but one profile is enough
+        if (!leader.isLeader()) {
+            cache.invalidate();
+            return;
+        }
+        // the did document has to carry the new key before the profile is signed with it
+        didDocMgmt.identityChanged(event.getCurrent());
+        log.info("Recreating the public profile for: {}", event.getCurrent().getDid());
+        recreateVerifiablePresentation();
+    }
+
+    /**
+     * Changes that were forwarded while there was no leader are lost, so the new
+     * leader rebuilds the profile from the database
+     *
+     * @param event {@link LeadershipAcquiredEvent}
+     */
+    @EventListener
+    @Async
+    public void onLeadershipAcquired(LeadershipAcquiredEvent event) {
+        log.info("Recreating the public profile after becoming leader");
+        recreateVerifiablePresentation();
+    }
+
+    /**
+     * Another node changed the public profile, so the local snapshot and the
+     * credential cache are outdated. Runs async, as the event is published on
+     * the cluster listener thread.
+     *
+     * @param event {@link DidDocWebChangedEvent}
+     */
+    @EventListener
+    @Async
+    public void onDidDocWebChanged(DidDocWebChangedEvent event) {
+        cache.invalidate();
+        snapshot.set(null);
+    }
+
+    /**
+     * Tells the other nodes that the profile changed. Only the leader signs, any
+     * other node drops its cache and leaves the rebuild to the leader.
+     *
+     * @return true if the change was forwarded and must not be signed locally
+     */
+    private boolean forwardToLeader() {
+        cluster.publish(CHANNEL, cluster.getNodeId());
+        if (leader.isLeader()) {
+            return false;
+        }
+        cache.invalidate();
+        return true;
+    }
+
+    /**
+     * Schedules a debounced signing run, concurrent requests are collapsed into one
+     * signing call that always uses the latest state of the credential cache. If
+     * the cache was dropped in the meantime it is rebuilt from the database first.
+     */
+    private void requestSigning() {
+        signScheduler.request(() -> {
+            final String myDid = id.getMyDid();
+            if (!cache.isCurrent(myDid)) {
+                rebuild(myDid);
+            }
+            signVP(cache.values());
+        });
     }
 
-    @Async(value = TaskExecutors.SCHEDULED)
     public void signVP(List<VerifiableCredential> vcs) {
         final VerifiablePresentationBuilder vpBuilder = VerifiablePresentation.builder();
         if (vcs.size() > 0) {
@@ -104,15 +347,54 @@ public class VPManager {
         } else {
             vpBuilder.verifiableCredential(null);
         }
+        long version = snapshotVersion.incrementAndGet();
         Optional<VerifiablePresentation> vp = crypto.sign(vpBuilder.build());
-        getVerifiablePresentationInternal().ifPresentOrElse(didWeb -> {
-            didRepo.updateProfileJson(didWeb.getId(), converter.toMap(vp));
-        }, () -> {
-            didRepo.save(DidDocWeb
-                    .builder()
-                    .profileJson(converter.toMap(vp))
-                    .build());
-        });
+        synchronized (writeLock) {
+            if (version < writtenVersion) {
+                log.debug("Discarding stale signature, version: {}, latest: {}", version, writtenVersion);
+                return;
+            }
+            writtenVersion = version;
+            getVerifiablePresentationInternal().ifPresentOrElse(didWeb -> {
+                didDocHolder.updateProfileJson(didWeb.getId(), converter.toMap(vp));
+            }, () -> {
+                didDocHolder.save(DidDocWeb
+                        .builder()
+                        .profileJson(converter.toMap(vp))
+                        .build());
+            });
+        }
+        vp.ifPresent(signed -> publishSnapshot(version, signed));
+    }
+
+    /**
+     * Returns the pre-serialized public profile. The snapshot is loaded from the
+     * database once and then replaced every time the VP is signed.
+     *
+     * @return {@link ProfileSnapshot} or empty if there is no public profile yet
+     */
+    public Optional<ProfileSnapshot> getProfileSnapshot() {
+        ProfileSnapshot current = snapshot.get();
+        if (current == null) {
+            final Optional<VerifiablePresentation> vp = getVerifiablePresentation();
+            if (vp.isPresent()) {
+                publishSnapshot(snapshotVersion.get(), vp.get());
+            }
+            current = snapshot.get();
+        }
+        return Optional.ofNullable(current);
+    }
+
+    private void publishSnapshot(long version, @NonNull VerifiablePresentation vp) {
+        final ProfileSnapshot next;
+        try {
+            next = ProfileSnapshot.of(version, mapper.writeValueAsBytes(vp));
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize the public profile", e);
+            return;
+        }
+        // never replace a newer snapshot with an older one
+        snapshot.accumulateAndGet(next, (prev, n) -> prev == null || n.getVersion() >= prev.getVersion() ? n : prev);
     }
 
     protected VerifiableCredential buildFromDocument(@NonNull MyDocument doc, @NonNull String myDid) {
@@ -139,7 +421,8 @@ public class VPManager {
                 .build();
     }
 
-    private VerifiableCredential buildFromCredential(@NonNull MyCredential cred, @NonNull String myDid) {
+    protected VerifiableCredential buildFromCredential(@NonNull MyCredential cred, @NonNull String myDid,
+            @Nullable String issuerDid) {
         final ArrayList<String> type = new ArrayList<>(cred.getType().getType());
         type.add("IndyCredential");
 
@@ -155,16 +438,16 @@ public class VPManager {
         } else {
             credSubj = converter.fromMap(cred.getCredential(), Object.class);
         }
-        VerifiableCredentialBuilder builder = VerifiableCredential.builder()
+        return VerifiableCredential.builder()
                 .id("urn:" + cred.getId().toString())
                 .type(type)
                 .context(context)
                 .issuanceDate(TimeUtil.currentTimeFormatted(cred.getIssuedAt()))
                 .schemaId(ariesCred.getSchemaId())
                 .credDefId(ariesCred.getCredentialDefinitionId())
-                .credentialSubject(credSubj);
-        partnerRepo.findByConnectionId(cred.getConnectionId()).ifPresent(p -> builder.indyIssuer(p.getDid()));
-        return builder.build();
+                .credentialSubject(credSubj)
+                .indyIssuer(issuerDid)
+                .build();
     }
 
     public Optional<VerifiablePresentation> getVerifiablePresentation() {
@@ -176,14 +459,6 @@ public class VPManager {
     }
 
     private Optional<DidDocWeb> getVerifiablePresentationInternal() {
-        Optional<DidDocWeb> result = Optional.empty();
-        final Iterator<DidDocWeb> iterator = didRepo.findAll().iterator();
-        if (iterator.hasNext()) {
-            result = Optional.of(iterator.next());
-            if (iterator.hasNext()) {
-                throw new IllegalStateException("More than one did doc entity found");
-            }
-        }
-        return result;
+        return didDocHolder.get();
     }
 }
@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.activity;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+import org.hyperledger.aries.api.jsonld.VerifiableCredential;
+
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+
+/**
+ * In memory index of the verifiable credentials that make up the public
+ * profile. Entries are keyed by the id of the underlying document or credential
+ * and carry a version (the last modification date), so that a change to a
+ * single document only requires to rebuild this one entry.
+ */
+class VerifiableCredentialCache {
+
+    enum Source {
+        DOCUMENT,
+        CREDENTIAL
+    }
+
+    private final Map<UUID, Entry> documents = new LinkedHashMap<>();
+
+    private final Map<UUID, Entry> credentials = new LinkedHashMap<>();
+
+    private String myDid;
+
+    private boolean initialized;
+
+    /**
+     * Drops all entries, the next put operations are building up a new index for
+     * the given did
+     *
+     * @param did the did the credentials are issued for
+     */
+    synchronized void reset(@Nullable String did) {
+        documents.clear();
+        credentials.clear();
+        myDid = did;
+        initialized = true;
+    }
+
+    synchronized void invalidate() {
+        documents.clear();
+        credentials.clear();
+        myDid = null;
+        initialized = false;
+    }
+
+    /**
+     * @param did the current did
+     * @return true if the index was fully built for the given did
+     */
+    synchronized boolean isCurrent(@Nullable String did) {
+        return initialized && Objects.equals(myDid, did);
+    }
+
+    /**
+     * @param source  {@link Source}
+     * @param id      document or credential id
+     * @param version last modification date, may be null
+     * @return true if the entry is unknown or older than the given version
+     */
+    synchronized boolean isOutdated(@NonNull Source source, @NonNull UUID id, @Nullable Instant version) {
+        final Entry e = entries(source).get(id);
+        return e == null || isNewer(version, e.version);
+    }
+
+    /**
+     * Adds or replaces an entry, unless the cache already holds a newer version
+     *
+     * @return true if the cache was modified
+     */
+    synchronized boolean put(
+            @NonNull Source source, @NonNull UUID id, @Nullable Instant version, @NonNull VerifiableCredential vc) {
+        final Map<UUID, Entry> entries = entries(source);
+        final Entry e = entries.get(id);
+        if (e != null && !isNewer(version, e.version)) {
+            return false;
+        }
+        entries.put(id, new Entry(version, vc));
+        return true;
+    }
+
+    /**
+     * @return true if an entry was removed
+     */
+    synchronized boolean remove(@NonNull Source source, @NonNull UUID id) {
+        return entries(source).remove(id) != null;
+    }
+
+    /**
+     * @return documents first, then credentials, both in insertion order
+     */
+    synchronized List<VerifiableCredential> values() {
+        List<VerifiableCredential> result = new ArrayList<>(documents.size() + credentials.size());
+        documents.values().forEach(e -> result.add(e.vc));
+        credentials.values().forEach(e -> result.add(e.vc));
+        return result;
+    }
+
+    private Map<UUID, Entry> entries(Source source) {
+        return Source.DOCUMENT.equals(source) ? documents : credentials;
+    }
+
+    private static boolean isNewer(Instant version, Instant cached) {
+        if (version == null || cached == null) {
+            return !Objects.equals(version, cached);
+        }
+        return version.isAfter(cached);
+    }
+
+    @AllArgsConstructor
+    private static final class Entry {
+        private final Instant version;
+        private final VerifiableCredential vc;
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.activity;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.hyperledger.aries.api.jsonld.VerifiablePresentation;
+import org.hyperledger.oa.impl.util.Converter;
+import org.hyperledger.oa.repository.PartnerRepository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micronaut.context.annotation.Value;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Results of the public profile signature check, keyed by the content hash of
+ * the presentation and the verkey. The in memory tier is backed by the
+ * partners table, which keeps the hash, the verkey and the result of every
+ * stored profile, so a presentation is only sent to aca-py again if its
+ * content or the key changed.
+ */
+@Slf4j
+@Singleton
+public class VerificationCache {
+
+    @Inject
+    private CryptoManager crypto;
+
+    @Inject
+    private Converter converter;
+
+    @Inject
+    private PartnerRepository repo;
+
+    @Value("${oagent.verification.cache.max-size}")
+    private long maxSize = 10000;
+
+    @Value("${oagent.verification.cache.expire-after}")
+    private Duration expireAfter = Duration.ofHours(24);
+
+    private Cache<String, Boolean> results;
+
+    private final LongAdder persistentHits = new LongAdder();
+
+    private final LongAdder verifications = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        results = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfter)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Verify a signed {@link VerifiablePresentation}, cached
+     *
+     * @param verkey the partners verkey
+     * @param vp     {@link VerifiablePresentation}
+     * @return true if the presentation is valid, empty if it could not be
+     *         verified, in which case nothing is cached
+     */
+    public Optional<Boolean> verify(@NonNull String verkey, @NonNull VerifiablePresentation vp) {
+        final String vpHash = converter.toHash(vp);
+        // a null result is not stored by caffeine
+        final Boolean valid = results.get(vpHash + "|" + verkey, k -> repo.findValidByVpHashAndVerkey(vpHash, verkey)
+                .map(valid -> {
+                    persistentHits.increment();
+                    return valid;
+                })
+                .orElseGet(() -> {
+                    verifications.increment();
+                    log.debug("Verifying presentation with hash: {}", vpHash);
+                    return crypto.verify(verkey, vp).orElse(null);
+                }));
+        return Optional.ofNullable(valid);
+    }
+
+    public Stats getStats() {
+        final CacheStats s = results.stats();
+        return Stats
+                .builder()
+                .size(results.estimatedSize())
+                .hits(s.hitCount())
+                .misses(s.missCount())
+                .evictions(s.evictionCount())
+                .persistentHits(persistentHits.sum())
+                .verifications(verifications.sum())
+                .build();
+    }
+
+    @Getter
+    @Builder
+    public static class Stats {
+        private long size;
+        private long hits;
+        private long misses;
+        private long evictions;
+        /** misses that were answered from the partners table */
+        private long persistentHits;
+        /** misses that were sent to aca-py */
+        private long verifications;
+    }
+}
@@ -19,13 +19,16 @@ package org.hyperledger.oa.impl.aries;
 
 import java.io.IOException;
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.apache.commons.lang3.StringUtils;
@@ -39,16 +42,19 @@ import org.hyperledger.aries.api.schema.SchemaSendResponse.Schema;
 import org.hyperledger.oa.api.ApiConstants;
 import org.hyperledger.oa.api.CredentialType;
 import org.hyperledger.oa.api.aries.AriesCredential;
-import org.hyperledger.oa.api.aries.AriesCredential.AriesCredentialBuilder;
 import org.hyperledger.oa.api.aries.BankAccount;
 import org.hyperledger.oa.api.exception.NetworkException;
 import org.hyperledger.oa.api.exception.PartnerException;
 import org.hyperledger.oa.client.LedgerClient;
 import org.hyperledger.oa.config.runtime.RequiresAries;
 import org.hyperledger.oa.controller.api.partner.PartnerCredentialType;
+import org.hyperledger.oa.controller.api.wallet.WalletFilter;
+import org.hyperledger.oa.impl.activity.IssuerResolver;
 import org.hyperledger.oa.impl.activity.VPManager;
 import org.hyperledger.oa.impl.util.AriesStringUtil;
 import org.hyperledger.oa.impl.util.Converter;
+import org.hyperledger.oa.impl.util.KeysetCursor;
+import org.hyperledger.oa.impl.util.KeysetPager;
 import org.hyperledger.oa.model.MyCredential;
 import org.hyperledger.oa.model.MyDocument;
 import org.hyperledger.oa.model.Partner;
@@ -56,6 +62,9 @@ import org.hyperledger.oa.repository.MyCredentialRepository;
 import org.hyperledger.oa.repository.MyDocumentRepository;
 import org.hyperledger.oa.repository.PartnerRepository;
 
+import io.micronaut.scheduling.TaskExecutors;
+import io.reactivex.Flowable;
+import io.reactivex.schedulers.Schedulers;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
@@ -67,6 +76,9 @@ public class AriesCredentialManager {
     @Inject
     private AriesClient ac;
 
+    @Inject
+    private SchemaCache schemaCache;
+
     @Inject
     private PartnerRepository partnerRepo;
 
@@ -79,12 +91,22 @@ public class AriesCredentialManager {
     @Inject
     private VPManager vpMgmt;
 
+    @Inject
+    private IssuerResolver issuerResolver;
+
     @Inject
     private Converter conv;
 
     @Inject
     private LedgerClient ledger;
 
+    @Inject
+    @Named(TaskExecutors.IO)
+    private ExecutorService ioExecutor;
+
+    /** rows fetched per query when streaming all credentials */
+    static final int STREAM_PAGE_SIZE = 500;
+
     public Optional<List<PartnerCredentialType>> getPartnerCredDefs(@NonNull UUID partnerId) {
         Optional<List<PartnerCredentialType>> result = Optional.empty();
         final Optional<Partner> p = partnerRepo.findById(partnerId);
@@ -123,8 +145,7 @@ public class AriesCredentialManager {
                         final Optional<String> baCredDefId = findBACredentialDefinitionId(partnerId);
                         if (baCredDefId.isPresent()) {
                             String schemaId = null;
-                            Optional<Schema> schema = ac.schemasGetById(AriesStringUtil.credDefIdGetSquenceNo(
-                                    baCredDefId.get()));
+                            Optional<Schema> schema = schemaCache.getForCredDefId(baCredDefId.get());
                             if (schema.isPresent()) {
                                 schemaId = schema.get().getId();
                             }
@@ -204,33 +225,78 @@ public class AriesCredentialManager {
     public Optional<MyCredential> toggleVisibility(UUID id) {
         final Optional<MyCredential> cred = credRepo.findById(id);
         if (cred.isPresent()) {
-            credRepo.updateIsPublic(id, !cred.get().getIsPublic());
-            vpMgmt.recreateVerifiablePresentation();
+            boolean isPublic = !cred.get().getIsPublic();
+            credRepo.updateIsPublic(id, isPublic);
+            vpMgmt.credentialChanged(cred.get().setIsPublic(isPublic));
         }
         return cred;
     }
 
     // credential CRUD operations
 
-    public List<AriesCredential> listCredentials() {
-        List<AriesCredential> result = new ArrayList<>();
-        credRepo.findAll().forEach(c -> result.add(AriesCredential.fromMyCredential(c).build()));
-        return result;
+    public long countCredentials(@NonNull WalletFilter filter) {
+        return credRepo.countFiltered(filter.typeName(), filter.getIsPublic(), filter.getState());
+    }
+
+    /**
+     * One page of credentials ordered by issue date, credentials that are not
+     * issued yet come first
+     *
+     * @param filter {@link WalletFilter}
+     * @param after  position of the last credential of the previous page, null
+     *               for the first page
+     * @param limit  max page size
+     * @return list of credentials, model objects
+     */
+    public List<MyCredential> findCredentials(@NonNull WalletFilter filter, @Nullable KeysetCursor after, int limit) {
+        return credRepo.findPage(
+                filter.typeName(),
+                filter.getIsPublic(),
+                filter.getState(),
+                after != null ? after.getTimestamp() : null,
+                after != null ? after.getId() : null,
+                limit);
+    }
+
+    /**
+     * Streams all matching credentials. Pages are fetched from the db while the
+     * response is written, so only one page is held in memory.
+     *
+     * @param filter {@link WalletFilter}
+     * @param after  optional start position
+     * @return {@link Flowable} of credentials
+     */
+    public Flowable<AriesCredential> streamCredentials(@NonNull WalletFilter filter, @Nullable KeysetCursor after) {
+        return KeysetPager.<MyCredential>stream(
+                c -> findCredentials(filter, c, STREAM_PAGE_SIZE), AriesCredentialManager::cursorOf, after,
+                STREAM_PAGE_SIZE)
+                // issuers are resolved per page
+                .buffer(STREAM_PAGE_SIZE)
+                .concatMap(this::toApiObjects)
+                .subscribeOn(Schedulers.from(ioExecutor));
+    }
+
+    public Flowable<AriesCredential> toApiObjects(@NonNull List<MyCredential> creds) {
+        final Map<String, String> issuers = issuerResolver.resolve(creds);
+        return Flowable.fromIterable(creds)
+                .map(c -> AriesCredential.fromMyCredential(c)
+                        .issuer(issuers.get(c.getConnectionId()))
+                        .build());
+    }
+
+    public static KeysetCursor cursorOf(@NonNull MyCredential c) {
+        return KeysetCursor.of(c.getIssuedAt(), c.getId());
     }
 
     public Optional<AriesCredential> getAriesCredentialById(@NonNull UUID id) {
-        final Optional<MyCredential> dbCred = credRepo.findById(id);
-        if (dbCred.isPresent()) {
-            final AriesCredentialBuilder myCred = AriesCredential.fromMyCredential(dbCred.get());
-            final Credential ariesCred = conv.fromMap(dbCred.get().getCredential(), Credential.class);
-            myCred
+        return credRepo.findWithIssuerById(id).map(dbCred -> {
+            final Credential ariesCred = conv.fromMap(dbCred.getCredential(), Credential.class);
+            return AriesCredential.fromMyCredential(dbCred.toMyCredential())
                     .schemaId(ariesCred.getSchemaId())
-                    .credentialData(ariesCred.getAttrs());
-            partnerRepo.findByConnectionId(dbCred.get().getConnectionId())
-                    .ifPresent(p -> myCred.issuer(p.getDid()));
-            return Optional.of(myCred.build());
-        }
-        return Optional.empty();
+                    .credentialData(ariesCred.getAttrs())
+                    .issuer(dbCred.getIssuerDid())
+                    .build();
+        });
     }
 
     public void deleteCredentialById(UUID id) {
@@ -243,6 +309,9 @@ public class AriesCredentialManager {
                 throw new NetworkException("aca-py not reachable", e);
             }
             credRepo.deleteById(id);
+            if (Boolean.TRUE.equals(c.getIsPublic())) {
+                vpMgmt.credentialRemoved(id);
+            }
         });
     }
 }
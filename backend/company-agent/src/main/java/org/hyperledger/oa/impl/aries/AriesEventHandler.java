@@ -27,8 +27,8 @@ import org.hyperledger.aries.api.credential.CredentialExchange;
 import org.hyperledger.aries.api.message.PingEvent;
 import org.hyperledger.aries.api.proof.PresentationExchangeRecord;
 import org.hyperledger.aries.webhook.EventHandler;
+import org.hyperledger.oa.impl.cluster.ClusterBroadcaster;
 
-import io.micronaut.websocket.WebSocketBroadcaster;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -48,12 +48,13 @@ public class AriesEventHandler extends EventHandler {
     private Optional<ProofManager> proofMgmt;
 
     @Inject
-    private WebSocketBroadcaster broadcaster;
+    private ClusterBroadcaster broadcaster;
 
     @Override
     public void handleConnection(ConnectionRecord connection) {
         log.debug("Connection Event: {}", connection);
         conMgmt.ifPresent(mgmt -> mgmt.handleConnectionEvent(connection));
+        pingMgmt.ifPresent(mgmt -> mgmt.handleConnectionStateChanged(connection.getConnectionId()));
     }
 
     @Override
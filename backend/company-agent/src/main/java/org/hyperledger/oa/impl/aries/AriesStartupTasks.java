@@ -29,7 +29,10 @@ import org.hyperledger.aries.api.ledger.EndpointResponse;
 import org.hyperledger.aries.api.ledger.EndpointType;
 import org.hyperledger.aries.api.wallet.SetDidEndpointRequest;
 import org.hyperledger.oa.config.runtime.RequiresAries;
+import org.hyperledger.oa.impl.PartnerImportManager;
+import org.hyperledger.oa.impl.activity.Identity;
 import org.hyperledger.oa.impl.activity.VPManager;
+import org.hyperledger.oa.impl.cluster.ClusterLeader;
 
 import io.micronaut.context.annotation.Requires;
 import io.micronaut.context.annotation.Value;
@@ -46,9 +49,21 @@ public class AriesStartupTasks {
     @Inject
     private VPManager vpMgmt;
 
+    @Inject
+    private PartnerImportManager importMgmt;
+
     @Inject
     private AriesClient ac;
 
+    @Inject
+    private WebhookInbox inbox;
+
+    @Inject
+    private Identity id;
+
+    @Inject
+    private ClusterLeader leader;
+
     @Value("${oagent.host}")
     private String host;
 
@@ -56,8 +71,18 @@ public class AriesStartupTasks {
     public void onServiceStartedEvent() {
         log.debug("Running aries startup tasks...");
 
+        // only takes events that no node holds a lease on
+        inbox.recover();
+
         ac.statusWaitUntilReady(Duration.ofSeconds(60));
 
+        id.refresh();
+
+        // shared state is only initialized once per cluster
+        if (!leader.isLeader()) {
+            return;
+        }
+
         vpMgmt.getVerifiablePresentation().ifPresentOrElse(vp -> {
             log.info("VP already exists, skipping: {}", host);
         }, () -> {
@@ -65,6 +90,8 @@ public class AriesStartupTasks {
             vpMgmt.recreateVerifiablePresentation();
         });
 
+        importMgmt.resumeRunningImports();
+
         // currently done by aca-py --profile-endpoint option
         // registerProfileEndpoint();
     }
@@ -19,6 +19,7 @@ package org.hyperledger.oa.impl.aries;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
@@ -31,10 +32,12 @@ import org.hyperledger.aries.api.connection.ReceiveInvitationRequest;
 import org.hyperledger.aries.api.proof.PresentationExchangeRecord;
 import org.hyperledger.oa.config.runtime.RequiresAries;
 import org.hyperledger.oa.impl.util.AriesStringUtil;
+import org.hyperledger.oa.impl.util.StripedLock;
 import org.hyperledger.oa.model.Partner;
 import org.hyperledger.oa.model.PartnerProof;
 import org.hyperledger.oa.repository.PartnerProofRepository;
 import org.hyperledger.oa.repository.PartnerRepository;
+import org.hyperledger.oa.repository.PartnerStateUpdater;
 
 import io.micronaut.context.annotation.Value;
 import io.micronaut.core.util.CollectionUtils;
@@ -59,43 +62,71 @@ public class ConnectionManager {
     @Inject
     private PartnerProofRepository partnerPrepo;
 
+    @Inject
+    private PartnerStateUpdater partnerUpdater;
+
+    // events of one connection are handled one after the other, others in parallel
+    private final StripedLock locks = new StripedLock(64);
+
     @Async
     public void createConnection(@NonNull String did, @NonNull String label, @Nullable String alias) {
         try {
-            ac.connectionsReceiveInvitation(
-                    ReceiveInvitationRequest.builder()
-                            .did(AriesStringUtil.didGetLastSegment(did))
-                            .label(label)
-                            .build(),
-                    alias);
+            receiveInvitation(did, label, alias);
         } catch (IOException e) {
             log.error("Could not create aries connection", e);
         }
     }
 
-    public synchronized void handleConnectionEvent(ConnectionRecord connection) {
-        partnerRepo.findByLabel(connection.getTheirLabel()).ifPresentOrElse(dbP -> {
-            if (dbP.getConnectionId() == null) {
-                dbP.setConnectionId(connection.getConnectionId());
-                dbP.setState(connection.getState());
-                partnerRepo.update(dbP);
-            } else {
-                partnerRepo.updateState(dbP.getId(), connection.getState());
-            }
-        }, () -> {
-            // new incoming connetion
-            Partner p = Partner
-                    .builder()
-                    .ariesSupport(Boolean.TRUE)
-                    .alias(connection.getTheirLabel())
-                    .connectionId(connection.getConnectionId())
-                    .did(didPrefix + connection.getTheirDid())
-                    .label(connection.getTheirLabel())
-                    .state(connection.getState())
-                    .incoming(Boolean.TRUE)
-                    .build();
-            partnerRepo.save(p);
-        });
+    /**
+     * Same as {@link #createConnection(String, String, String)}, but blocking, so
+     * that the caller can handle a failure
+     *
+     * @param did   the partners did
+     * @param label the label of the new connection
+     * @param alias optional alias
+     * @throws IOException if aca-py could not be reached
+     */
+    public void receiveInvitation(@NonNull String did, @NonNull String label, @Nullable String alias)
+            throws IOException {
+        ac.connectionsReceiveInvitation(
+                ReceiveInvitationRequest.builder()
+                        .did(AriesStringUtil.didGetLastSegment(did))
+                        .label(label)
+                        .build(),
+                alias);
+    }
+
+    public void handleConnectionEvent(ConnectionRecord connection) {
+        final Lock lock = locks.get(connection.getTheirLabel() != null
+                ? connection.getTheirLabel()
+                : connection.getConnectionId());
+        lock.lock();
+        try {
+            partnerRepo.findByLabel(connection.getTheirLabel()).ifPresentOrElse(dbP -> {
+                if (dbP.getConnectionId() == null) {
+                    dbP.setConnectionId(connection.getConnectionId());
+                    dbP.setState(connection.getState());
+                    partnerRepo.update(dbP);
+                } else {
+                    partnerRepo.updateState(dbP.getId(), connection.getState());
+                }
+            }, () -> {
+                // new incoming connetion, the upsert keeps the label unique in any case
+                Partner p = Partner
+                        .builder()
+                        .ariesSupport(Boolean.TRUE)
+                        .alias(connection.getTheirLabel())
+                        .connectionId(connection.getConnectionId())
+                        .did(didPrefix + connection.getTheirDid())
+                        .label(connection.getTheirLabel())
+                        .state(connection.getState())
+                        .incoming(Boolean.TRUE)
+                        .build();
+                partnerUpdater.upsertByLabel(p);
+            });
+        } finally {
+            lock.unlock();
+        }
     }
 
     public boolean removeConnection(String connectionId) {
@@ -17,12 +17,25 @@
  */
 package org.hyperledger.oa.impl.aries;
 
-import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.hyperledger.aries.AriesClient;
@@ -31,12 +44,23 @@ import org.hyperledger.aries.api.connection.ConnectionState;
 import org.hyperledger.aries.api.message.PingEvent;
 import org.hyperledger.aries.api.message.PingRequest;
 import org.hyperledger.oa.config.runtime.RequiresAries;
-import org.hyperledger.oa.repository.PartnerRepository;
+import org.hyperledger.oa.controller.api.WebSocketMessageBody;
+import org.hyperledger.oa.controller.api.WebSocketMessageBody.WebSockerMessage;
+import org.hyperledger.oa.controller.api.WebSocketMessageBody.WebSocketMessageState;
+import org.hyperledger.oa.controller.api.WebSocketMessageBody.WebSocketMessageType;
+import org.hyperledger.oa.impl.cluster.ClusterBroadcaster;
+import org.hyperledger.oa.impl.cluster.ClusterLeader;
+import org.hyperledger.oa.impl.cluster.ClusterNotifications;
+import org.hyperledger.oa.impl.util.LatencyHistogram;
+import org.hyperledger.oa.repository.PartnerStateUpdater;
 
 import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
 import io.micronaut.context.env.Environment;
 import io.micronaut.core.util.CollectionUtils;
 import io.micronaut.scheduling.annotation.Scheduled;
+import lombok.Builder;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -45,64 +69,253 @@ import lombok.extern.slf4j.Slf4j;
 @Requires(notEnv = { Environment.TEST })
 public class PingManager {
 
+    static final String CHANNEL = "trust_ping";
+    private static final String RESPONSE = "response:";
+    private static final String CHANGED = "changed:";
+
     @Inject
     private AriesClient aries;
     @Inject
-    private PartnerRepository repo;
+    @Named("ping")
+    private AriesClient pingClient;
+    @Inject
+    private PartnerStateUpdater stateUpdater;
+    @Inject
+    private ClusterBroadcaster broadcaster;
+    @Inject
+    private ClusterLeader leader;
+    @Inject
+    private ClusterNotifications cluster;
+
+    /** max number of pings in flight */
+    @Value("${oagent.ping.concurrency}")
+    private int concurrency = 10;
+
+    /**
+     * max time a single ping may take, the connection is skipped otherwise. The
+     * aca-py call itself is bounded by the same timeout, see the ping client of
+     * {@link org.hyperledger.oa.config.AriesClientFactory}
+     */
+    @Value("${oagent.ping.timeout}")
+    private Duration timeout = Duration.ofSeconds(10);
+
+    /** pings are spread over this window to avoid bursts, zero sends all at once */
+    @Value("${oagent.ping.spread}")
+    private Duration spread = Duration.ZERO;
+
+    private ScheduledExecutorService executor;
 
     // threadId, connectionId
     private Map<String, String> sent = new ConcurrentHashMap<>();
 
+    // threadId, send time in nanos
+    private Map<String, Long> sentAt = new ConcurrentHashMap<>();
+
     // threadId, state
     private Map<String, String> received = new ConcurrentHashMap<>();
 
+    // connectionId, last state written to the db
+    private Map<String, String> known = new ConcurrentHashMap<>();
+
+    @Getter
+    private final LatencyHistogram runDuration = new LatencyHistogram();
+
+    @Getter
+    private final LatencyHistogram roundTripTime = new LatencyHistogram();
+
+    private final AtomicInteger lastFailed = new AtomicInteger();
+
+    /**
+     * In a cluster only the leader sends pings, but aca-py may deliver the events
+     * to any node, so they are forwarded to the leader.
+     */
+    @PostConstruct
+    void init() {
+        cluster.subscribe(CHANNEL, msg -> {
+            if (msg == null || !leader.isLeader()) {
+                return;
+            }
+            if (msg.startsWith(RESPONSE)) {
+                pingReceived(msg.substring(RESPONSE.length()));
+            } else if (msg.startsWith(CHANGED)) {
+                known.remove(msg.substring(CHANGED.length()));
+            }
+        });
+    }
+
     public void handlePingEvent(PingEvent event) {
         if ("response_received".equals(event.getState())) {
-            received.put(event.getThreadId(), "received");
+            if (leader.isLeader()) {
+                pingReceived(event.getThreadId());
+            } else {
+                cluster.publish(CHANNEL, RESPONSE + event.getThreadId());
+            }
+        }
+    }
+
+    /**
+     * The partners state was changed by someone else, so the next ping result has
+     * to be written regardless of the last known state
+     *
+     * @param connectionId the aries connection id
+     */
+    public void handleConnectionStateChanged(String connectionId) {
+        if (connectionId != null) {
+            if (leader.isLeader()) {
+                known.remove(connectionId);
+            } else {
+                cluster.publish(CHANNEL, CHANGED + connectionId);
+            }
+        }
+    }
+
+    private void pingReceived(String threadId) {
+        received.put(threadId, "received");
+        final Long start = sentAt.remove(threadId);
+        if (start != null) {
+            roundTripTime.record(Duration.ofNanos(System.nanoTime() - start.longValue()));
         }
     }
 
     @Scheduled(fixedRate = "1m", initialDelay = "1m")
     public void checkConnections() {
+        if (!leader.isLeader()) {
+            return;
+        }
+        final long start = System.nanoTime();
         try {
             List<String> activeConnections = aries.connectionIds(
                     ConnectionFilter.builder().state(ConnectionState.active).build());
             if (CollectionUtils.isNotEmpty(activeConnections)) {
-                setNewState();
+                setNewState(activeConnections);
                 sendPingToActiveConnections(activeConnections);
             }
         } catch (Exception e) {
             log.error("Trust ping job failed.", e);
         }
+        runDuration.record(Duration.ofNanos(System.nanoTime() - start));
+        log.debug("Trust ping run finished, duration: {}, rtt: {}", runDuration, roundTripTime);
     }
 
-    // TODO only sent changes to the state, not always the same state
-    private void setNewState() {
+    /**
+     * Computes the new state of every pinged connection and writes only the
+     * connections whose state differs from the last known state, in one batch.
+     */
+    private void setNewState(List<String> activeConnections) {
+        Map<String, String> changed = new HashMap<>();
         sent.forEach((k, v) -> {
             String state;
             if (received.containsKey(k)) {
                 state = ConnectionState.active.toString();
-                repo.updateByConnectionId(v, state);
             } else {
                 state = ConnectionState.inactive.toString();
-                repo.updateByConnectionId(v, state);
+            }
+            if (!state.equals(known.get(v))) {
+                changed.put(v, state);
             }
         });
         sent.clear();
+        sentAt.clear();
         received.clear();
+
+        if (!changed.isEmpty()) {
+            stateUpdater.updateStates(changed);
+            known.putAll(changed);
+            changed.forEach(this::broadcastStateChange);
+        }
+        known.keySet().retainAll(activeConnections);
     }
 
+    private void broadcastStateChange(String connectionId, String state) {
+        broadcaster.broadcast(WebSocketMessageBody.of(WebSockerMessage
+                .builder()
+                .type(WebSocketMessageType.CONNECTION)
+                .state(WebSocketMessageState.UPDATED)
+                .linkId(connectionId)
+                .info(state)
+                .build()));
+    }
+
+    /**
+     * Pings all connections in parallel, bounded by the configured concurrency.
+     * Every connection gets a new random offset within the spread window on every
+     * run, a failing or hanging connection does not affect the others.
+     */
     private void sendPingToActiveConnections(List<String> activeConnections) {
+        final ScheduledExecutorService ex = getExecutor();
+        final AtomicInteger failed = new AtomicInteger();
+        final List<CompletableFuture<Void>> pings = new ArrayList<>(activeConnections.size());
+        for (String connectionId : activeConnections) {
+            final long delay = offsetMillis();
+            final CompletableFuture<Void> ping = new CompletableFuture<>();
+            final ScheduledFuture<?> task = ex.schedule(
+                    () -> sendPing(connectionId, ping), delay, TimeUnit.MILLISECONDS);
+            pings.add(ping.orTimeout(delay + timeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .exceptionally(e -> {
+                        // a ping that did not start yet must not run late and end up in the next run
+                        task.cancel(true);
+                        // counted here only, a ping can fail and time out at the same time
+                        failed.incrementAndGet();
+                        if (e instanceof TimeoutException) {
+                            log.warn("Ping to: {} did not complete in time", connectionId);
+                        }
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(pings.toArray(new CompletableFuture[0])).join();
+        lastFailed.set(failed.get());
+        if (failed.get() > 0) {
+            log.warn("Could not ping {} of {} active connections", failed, Integer.valueOf(activeConnections.size()));
+        }
+    }
+
+    private void sendPing(String connectionId, CompletableFuture<Void> ping) {
         try {
-            for (String connectionId : activeConnections) {
-                log.debug("Sending ping to: {}", connectionId);
-                aries.connectionsSendPing(connectionId, new PingRequest(connectionId)).ifPresent(resp -> {
-                    sent.put(resp.getThreadId(), connectionId);
-                });
-            }
-        } catch (IOException e) {
-            log.error("Could not ping active connections", e);
+            log.debug("Sending ping to: {}", connectionId);
+            final long start = System.nanoTime();
+            pingClient.connectionsSendPing(connectionId, new PingRequest(connectionId)).ifPresent(resp -> {
+                sentAt.put(resp.getThreadId(), Long.valueOf(start));
+                sent.put(resp.getThreadId(), connectionId);
+            });
+        } catch (Exception e) {
+            log.error("Could not ping connection: {}", connectionId, e);
+            ping.completeExceptionally(e);
+            return;
         }
+        ping.complete(null);
+    }
+
+    private long offsetMillis() {
+        final long window = spread.toMillis();
+        return window > 0 ? ThreadLocalRandom.current().nextLong(window) : 0;
+    }
+
+    private synchronized ScheduledExecutorService getExecutor() {
+        if (executor == null) {
+            final AtomicInteger count = new AtomicInteger();
+            executor = Executors.newScheduledThreadPool(Math.max(1, concurrency), r -> {
+                Thread t = new Thread(r, "trust-ping-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return executor;
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public Stats getStats() {
+        return Stats
+                .builder()
+                .runDuration(runDuration)
+                .roundTripTime(roundTripTime)
+                .lastRunFailed(lastFailed.get())
+                .build();
     }
 
     int getSentSize() {
@@ -112,4 +325,12 @@ public class PingManager {
     int getReceivedSize() {
         return received.size();
     }
+
+    @Getter
+    @Builder
+    public static class Stats {
+        private LatencyHistogram runDuration;
+        private LatencyHistogram roundTripTime;
+        private int lastRunFailed;
+    }
 }
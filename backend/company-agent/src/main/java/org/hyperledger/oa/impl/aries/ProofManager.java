@@ -63,6 +63,9 @@ public class ProofManager {
     @Inject
     private AriesClient ac;
 
+    @Inject
+    private SchemaCache schemaCache;
+
     @Inject
     private PartnerRepository partnerRepo;
 
@@ -75,7 +78,7 @@ public class ProofManager {
     // request proof from partner
     public void sendPresentProofRequest(@NonNull UUID partnerId, @NonNull String credDefId) {
         try {
-            final Optional<Schema> schema = ac.schemasGetById(AriesStringUtil.credDefIdGetSquenceNo(credDefId));
+            final Optional<Schema> schema = schemaCache.getForCredDefId(credDefId);
             if (schema.isPresent()) {
                 CredentialType type = CredentialType.fromSchemaId(schema.get().getId());
                 if (CredentialType.BANK_ACCOUNT_CREDENTIAL.equals(type)) {
@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.aries;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.hyperledger.aries.AriesClient;
+import org.hyperledger.aries.api.schema.SchemaSendResponse.Schema;
+import org.hyperledger.aries.config.GsonConfig;
+import org.hyperledger.oa.impl.util.AriesStringUtil;
+import org.hyperledger.oa.model.LedgerSchema;
+import org.hyperledger.oa.repository.LedgerSchemaRepository;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import io.micronaut.data.exceptions.DataAccessException;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write once schema cache, shared by all aries managers. Schemas can not
+ * change once they are on the ledger, so entries never expire. Lookups go to
+ * memory, then to the ledger_schema table, and only then to aca-py, so a
+ * restart stays warm. Missing schemas are not cached.
+ */
+@Slf4j
+@Singleton
+public class SchemaCache {
+
+    @Inject
+    @Setter
+    private AriesClient ac;
+
+    @Inject
+    @Setter
+    private LedgerSchemaRepository repo;
+
+    private final Map<String, Schema> bySeqNo = new ConcurrentHashMap<>();
+
+    private final Map<String, Schema> byId = new ConcurrentHashMap<>();
+
+    private final Gson gson = GsonConfig.defaultConfig();
+
+    /**
+     * @param credDefId credential definition id, contains the schemas sequence
+     *                  number
+     * @return the schema the credential definition is based on
+     * @throws IOException if aca-py is not reachable
+     */
+    public Optional<Schema> getForCredDefId(@NonNull String credDefId) throws IOException {
+        return getBySeqNo(AriesStringUtil.credDefIdGetSquenceNo(credDefId));
+    }
+
+    /**
+     * @param seqNo ledger sequence number of the schema
+     * @return {@link Schema}
+     * @throws IOException if aca-py is not reachable
+     */
+    public Optional<Schema> getBySeqNo(@NonNull String seqNo) throws IOException {
+        Schema schema = bySeqNo.get(seqNo);
+        if (schema == null) {
+            final Optional<LedgerSchema> db = repo.findById(seqNo);
+            schema = db.isPresent() ? remember(db.get()) : fetch(seqNo);
+        }
+        return Optional.ofNullable(schema);
+    }
+
+    /**
+     * @param schemaId schema id
+     * @return {@link Schema}
+     * @throws IOException if aca-py is not reachable
+     */
+    public Optional<Schema> getById(@NonNull String schemaId) throws IOException {
+        Schema schema = byId.get(schemaId);
+        if (schema == null) {
+            final Optional<LedgerSchema> db = repo.findBySchemaId(schemaId);
+            schema = db.isPresent() ? remember(db.get()) : fetch(schemaId);
+        }
+        return Optional.ofNullable(schema);
+    }
+
+    private Schema fetch(String seqNoOrId) throws IOException {
+        final Optional<Schema> schema = ac.schemasGetById(seqNoOrId);
+        if (schema.isEmpty()) {
+            return null;
+        }
+        final String json = gson.toJson(schema.get());
+        final String seqNo = seqNo(json);
+        if (seqNo != null) {
+            final LedgerSchema ls = LedgerSchema
+                    .builder()
+                    .seqNo(seqNo)
+                    .schemaId(schema.get().getId())
+                    .schema(json)
+                    .build();
+            try {
+                repo.save(ls);
+            } catch (DataAccessException e) {
+                // written concurrently, the content is the same
+                log.debug("Schema already stored: {}", seqNo);
+            }
+            bySeqNo.put(seqNo, schema.get());
+        }
+        byId.put(schema.get().getId(), schema.get());
+        return schema.get();
+    }
+
+    private Schema remember(LedgerSchema ls) {
+        final Schema schema = gson.fromJson(ls.getSchema(), Schema.class);
+        bySeqNo.putIfAbsent(ls.getSeqNo(), schema);
+        byId.putIfAbsent(ls.getSchemaId(), schema);
+        return schema;
+    }
+
+    private String seqNo(String json) {
+        final JsonElement seqNo = gson.fromJson(json, JsonObject.class).get("seqNo");
+        return seqNo != null && !seqNo.isJsonNull() ? seqNo.getAsString() : null;
+    }
+
+    int size() {
+        return bySeqNo.size();
+    }
+}
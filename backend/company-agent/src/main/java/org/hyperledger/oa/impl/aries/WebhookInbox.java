@@ -0,0 +1,403 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.aries;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.hyperledger.aries.webhook.EventHandler;
+import org.hyperledger.oa.impl.cluster.ClusterLeader;
+import org.hyperledger.oa.impl.cluster.ClusterNotifications;
+import org.hyperledger.oa.impl.cluster.LeadershipAcquiredEvent;
+import org.hyperledger.oa.impl.util.LatencyHistogram;
+import org.hyperledger.oa.model.WebhookDeadLetter;
+import org.hyperledger.oa.model.WebhookEvent;
+import org.hyperledger.oa.repository.WebhookDeadLetterRepository;
+import org.hyperledger.oa.repository.WebhookEventRepository;
+import org.hyperledger.oa.repository.WorkLeases;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micronaut.context.annotation.Value;
+import io.micronaut.runtime.event.annotation.EventListener;
+import io.micronaut.scheduling.annotation.Async;
+import io.micronaut.scheduling.annotation.Scheduled;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Durable inbox for aries webhook events. Events are persisted before they are
+ * acknowledged and then handled asynchronously. Events that belong to the same
+ * connection (or thread) are always handled in the order they were received,
+ * failing events are retried with a growing delay and finally moved to the
+ * dead letter table.
+ * <p>
+ * Every event is owned by the node that received it, the node renews the lease
+ * while the event is waiting or being handled. Events whose lease expired,
+ * because their node died, are taken over by the cluster leader.
+ */
+@Slf4j
+@Singleton
+public class WebhookInbox {
+
+    /** number of partitions, each one is drained by its own thread */
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${oagent.webhook.workers}")
+    private int workers = 8;
+
+    /** max number of events waiting to be handled, new events are rejected */
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${oagent.webhook.capacity}")
+    private int capacity = 10_000;
+
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${oagent.webhook.max-attempts}")
+    private int maxAttempts = 5;
+
+    /** delay before the first retry, doubled on every further attempt */
+    @Setter(AccessLevel.PACKAGE)
+    @Value("${oagent.webhook.retry-delay}")
+    private Duration retryDelay = Duration.ofSeconds(1);
+
+    @Inject
+    private EventHandler handler;
+
+    @Inject
+    private WebhookEventRepository eventRepo;
+
+    @Inject
+    private WebhookDeadLetterRepository deadLetterRepo;
+
+    @Inject
+    private ObjectMapper mapper;
+
+    @Inject
+    private WorkLeases leases;
+
+    @Inject
+    private ClusterNotifications cluster;
+
+    @Inject
+    private ClusterLeader leader;
+
+    /** events that are not renewed within this time are taken over by another node */
+    @Value("${oagent.cluster.lease:60s}")
+    private Duration lease = Duration.ofSeconds(60);
+
+    private ExecutorService[] partitions;
+
+    private ScheduledExecutorService retryScheduler;
+
+    // eventId, received at
+    private final Map<UUID, Instant> pending = new ConcurrentHashMap<>();
+
+    // partition key, events waiting behind a retry, only used by the partition thread
+    private final Map<String, Deque<WebhookEvent>> held = new ConcurrentHashMap<>();
+
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicLong handled = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+
+    /** time between receiving an event and finishing its handling */
+    @Getter
+    private final LatencyHistogram lag = new LatencyHistogram();
+
+    /**
+     * Persists the event and schedules it for handling
+     *
+     * @param topic   webhook topic
+     * @param payload webhook body
+     * @return false if the inbox is full and the event was not accepted
+     */
+    public boolean offer(@NonNull String topic, @NonNull String payload) {
+        if (depth.incrementAndGet() > capacity) {
+            depth.decrementAndGet();
+            log.warn("Webhook inbox is full, rejecting event of type: {}", topic);
+            return false;
+        }
+        final WebhookEvent event;
+        try {
+            event = eventRepo.save(WebhookEvent
+                    .builder()
+                    .topic(topic)
+                    .partitionKey(partitionKey(topic, payload))
+                    .payload(payload)
+                    .attempts(Integer.valueOf(0))
+                    .owner(cluster.getNodeId())
+                    .leaseUntil(Instant.now().plus(lease))
+                    .build());
+        } catch (RuntimeException e) {
+            depth.decrementAndGet();
+            throw e;
+        }
+        if (!dispatch(event)) {
+            depth.decrementAndGet();
+        }
+        return true;
+    }
+
+    /**
+     * Schedules the events that no node is handling any more, e.g. because they
+     * were persisted but not handled before the last shutdown. In a cluster only
+     * events with an expired lease are taken.
+     */
+    public synchronized void recover() {
+        final int limit = capacity - depth.get();
+        if (limit <= 0) {
+            return;
+        }
+        final List<UUID> ids = leases.claimEvents(cluster.getNodeId(), lease, !cluster.isEnabled(), limit);
+        if (ids.isEmpty()) {
+            return;
+        }
+        final List<WebhookEvent> events = eventRepo.findByIdInListOrderByCreatedAt(ids);
+        int count = 0;
+        for (WebhookEvent event : events) {
+            depth.incrementAndGet();
+            if (dispatch(event)) {
+                count++;
+            } else {
+                depth.decrementAndGet();
+            }
+        }
+        if (count > 0) {
+            log.info("Recovered {} unhandled webhook events", Integer.valueOf(count));
+        }
+    }
+
+    /**
+     * Keeps the events of this node, and on the leader takes over the events of
+     * nodes that are gone
+     */
+    @Scheduled(fixedDelay = "${oagent.cluster.lease-renewal:20s}")
+    void renewLeases() {
+        if (!pending.isEmpty()) {
+            leases.renewEvents(cluster.getNodeId(), lease);
+        }
+        if (cluster.isEnabled() && leader.isLeader()) {
+            recover();
+        }
+    }
+
+    @EventListener
+    @Async
+    public void onLeadershipAcquired(LeadershipAcquiredEvent event) {
+        recover();
+    }
+
+    public Stats getStats() {
+        final Instant oldest = pending.values().stream().min(Instant::compareTo).orElse(null);
+        return Stats
+                .builder()
+                .depth(depth.get())
+                .oldestAgeMs(oldest != null ? Duration.between(oldest, Instant.now()).toMillis() : 0)
+                .handled(handled.get())
+                .retried(retried.get())
+                .deadLettered(deadLettered.get())
+                .lag(lag.getBuckets())
+                .build();
+    }
+
+    private boolean dispatch(WebhookEvent event) {
+        if (pending.putIfAbsent(event.getId(), event.getCreatedAt()) != null) {
+            return false; // already scheduled
+        }
+        execute(event.getPartitionKey(), () -> handle(event));
+        return true;
+    }
+
+    private void execute(String partitionKey, Runnable task) {
+        final ExecutorService[] p = getPartitions();
+        p[Math.floorMod(partitionKey.hashCode(), p.length)].execute(task);
+    }
+
+    /**
+     * Runs on the partition thread. While an earlier event with the same partition
+     * key waits for its retry, later events of that key are held back, the other
+     * keys of the partition are handled in the meantime.
+     */
+    private void handle(WebhookEvent event) {
+        final Deque<WebhookEvent> waiting = held.get(event.getPartitionKey());
+        if (waiting != null) {
+            waiting.add(event);
+        } else {
+            process(event);
+        }
+    }
+
+    /**
+     * Handles the event and then the events that were held back behind it, until
+     * one of them fails and is scheduled for a retry
+     */
+    private void process(WebhookEvent event) {
+        final String key = event.getPartitionKey();
+        WebhookEvent next = event;
+        while (next != null) {
+            if (!handleOnce(next)) {
+                held.computeIfAbsent(key, k -> new ArrayDeque<>());
+                scheduleRetry(next);
+                return;
+            }
+            done(next);
+            final Deque<WebhookEvent> waiting = held.get(key);
+            next = waiting != null ? waiting.poll() : null;
+        }
+        held.remove(key);
+    }
+
+    private void scheduleRetry(WebhookEvent event) {
+        final long delay = retryDelay.toMillis() << Math.min(event.getAttempts().intValue() - 1, 10);
+        try {
+            getRetryScheduler().schedule(
+                    () -> execute(event.getPartitionKey(), () -> process(event)),
+                    delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // shutting down, the event stays in the inbox and is recovered on the next start
+            log.debug("Retry of webhook event {} rejected", event.getId());
+        }
+    }
+
+    private void done(WebhookEvent event) {
+        pending.remove(event.getId());
+        depth.decrementAndGet();
+        lag.record(Duration.between(event.getCreatedAt(), Instant.now()));
+    }
+
+    /**
+     * @return true if the event is done, either handled or dead lettered
+     */
+    private boolean handleOnce(WebhookEvent event) {
+        try {
+            handler.handleEvent(event.getTopic(), event.getPayload());
+        } catch (Exception e) {
+            event.setAttempts(Integer.valueOf(event.getAttempts().intValue() + 1));
+            event.setLastError(e.toString());
+            try {
+                if (event.getAttempts().intValue() >= maxAttempts) {
+                    log.error("Giving up on webhook event: {}, type: {}", event.getId(), event.getTopic(), e);
+                    deadLetterRepo.save(WebhookDeadLetter.of(event));
+                    eventRepo.deleteById(event.getId());
+                    deadLettered.incrementAndGet();
+                    return true;
+                }
+                log.warn("Could not handle webhook event: {}, type: {}, attempt: {}",
+                        event.getId(), event.getTopic(), event.getAttempts(), e);
+                eventRepo.update(event.getId(), event.getAttempts(), event.getLastError());
+            } catch (RuntimeException dbe) {
+                log.error("Could not update webhook event: {}", event.getId(), dbe);
+            }
+            retried.incrementAndGet();
+            return false;
+        }
+        try {
+            eventRepo.deleteById(event.getId());
+        } catch (RuntimeException e) {
+            // handled again on the next start
+            log.error("Could not remove handled webhook event: {}", event.getId(), e);
+        }
+        handled.incrementAndGet();
+        return true;
+    }
+
+    String partitionKey(String topic, String payload) {
+        try {
+            final JsonNode node = mapper.readTree(payload);
+            if (node.hasNonNull("connection_id")) {
+                return node.get("connection_id").asText();
+            }
+            if (node.hasNonNull("thread_id")) {
+                return node.get("thread_id").asText();
+            }
+        } catch (Exception e) {
+            log.trace("Webhook payload is not json: {}", e.getMessage());
+        }
+        return topic;
+    }
+
+    private synchronized ExecutorService[] getPartitions() {
+        if (partitions == null) {
+            partitions = new ExecutorService[Math.max(1, workers)];
+            for (int i = 0; i < partitions.length; i++) {
+                final String name = "webhook-" + (i + 1);
+                partitions[i] = Executors.newSingleThreadExecutor(r -> {
+                    Thread t = new Thread(r, name);
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+        }
+        return partitions;
+    }
+
+    private synchronized ScheduledExecutorService getRetryScheduler() {
+        if (retryScheduler == null) {
+            retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "webhook-retry");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return retryScheduler;
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        if (retryScheduler != null) {
+            retryScheduler.shutdownNow();
+        }
+        if (partitions != null) {
+            for (ExecutorService p : partitions) {
+                p.shutdownNow();
+            }
+        }
+    }
+
+    @Getter
+    @Builder
+    public static class Stats {
+        private int depth;
+        private long oldestAgeMs;
+        private long handled;
+        private long retried;
+        private long deadLettered;
+        private Map<String, Long> lag;
+    }
+}
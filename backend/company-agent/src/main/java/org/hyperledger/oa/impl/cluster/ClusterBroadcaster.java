@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.cluster;
+
+import java.nio.charset.StandardCharsets;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micronaut.websocket.WebSocketBroadcaster;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends websocket messages to the clients of all nodes, a browser is only
+ * connected to the node the load balancer picked for it.
+ */
+@Slf4j
+@Singleton
+public class ClusterBroadcaster {
+
+    static final String CHANNEL = "websocket";
+
+    // postgres limits the payload of a notification to 8000 bytes
+    static final int MAX_PAYLOAD = 7500;
+
+    @Inject
+    @Setter(AccessLevel.PACKAGE)
+    private WebSocketBroadcaster broadcaster;
+
+    @Inject
+    @Setter(AccessLevel.PACKAGE)
+    private ClusterNotifications cluster;
+
+    @Inject
+    @Setter(AccessLevel.PACKAGE)
+    private ObjectMapper mapper;
+
+    @PostConstruct
+    void init() {
+        cluster.subscribe(CHANNEL, json -> {
+            if (json != null) {
+                broadcaster.broadcastAsync(json);
+            }
+        });
+    }
+
+    /**
+     * @param message json string, or an object that is serialized to json
+     */
+    public void broadcast(@NonNull Object message) {
+        final String json;
+        try {
+            json = message instanceof String ? (String) message : mapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize websocket message", e);
+            return;
+        }
+        broadcaster.broadcastAsync(json);
+        if (!cluster.isEnabled()) {
+            return;
+        }
+        if (json.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD) {
+            log.warn("Websocket message too large for the other nodes, size: {}", Integer.valueOf(json.length()));
+            return;
+        }
+        cluster.publish(CHANNEL, json);
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.cluster;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.scheduling.annotation.Scheduled;
+import lombok.AccessLevel;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Elects the node that runs the cluster wide scheduled jobs. The leader holds
+ * a postgres session level advisory lock, it is released by the database when
+ * the leader dies or loses its connection, and another node takes over with
+ * its next check and publishes a {@link LeadershipAcquiredEvent}.
+ * <p>
+ * Without {@code oagent.cluster.enabled} every node is the leader.
+ */
+@Slf4j
+@Singleton
+public class ClusterLeader {
+
+    // arbitrary, but the same on all nodes
+    static final long LOCK_KEY = 4_711_000_001L;
+
+    @Value("${oagent.cluster.enabled:false}")
+    @Setter(AccessLevel.PACKAGE)
+    private boolean enabled;
+
+    // the lock lives as long as the connection, so it is not taken from the pool
+    @Value("${datasources.default.url}")
+    @Setter(AccessLevel.PACKAGE)
+    private String url;
+
+    @Value("${datasources.default.username}")
+    @Setter(AccessLevel.PACKAGE)
+    private String username;
+
+    @Value("${datasources.default.password}")
+    @Setter(AccessLevel.PACKAGE)
+    private String password;
+
+    @Inject
+    @Setter(AccessLevel.PACKAGE)
+    private ApplicationEventPublisher publisher;
+
+    @Inject
+    @Setter(AccessLevel.PACKAGE)
+    private ClusterNotifications cluster;
+
+    private Connection lockConnection;
+
+    private volatile boolean leader;
+
+    private volatile boolean checked;
+
+    /**
+     * @return true if this node should run cluster wide jobs
+     */
+    public boolean isLeader() {
+        if (!enabled) {
+            return true;
+        }
+        if (!checked) {
+            check(); // the first job may run before the first scheduled check
+        }
+        return leader;
+    }
+
+    @Scheduled(fixedDelay = "${oagent.cluster.leader-check:10s}")
+    synchronized void check() {
+        if (!enabled) {
+            return;
+        }
+        checked = true;
+        try {
+            if (lockConnection == null || !lockConnection.isValid(5)) {
+                closeConnection();
+                lockConnection = DriverManager.getConnection(url, username, password);
+            }
+            if (leader) {
+                return;
+            }
+            try (PreparedStatement ps = lockConnection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+                ps.setLong(1, LOCK_KEY);
+                try (ResultSet rs = ps.executeQuery()) {
+                    leader = rs.next() && rs.getBoolean(1);
+                }
+            }
+            if (leader) {
+                log.info("This node is the cluster leader now");
+                publisher.publishEvent(new LeadershipAcquiredEvent(cluster.getNodeId()));
+            }
+        } catch (SQLException e) {
+            log.warn("Leader check failed: {}", e.getMessage());
+            closeConnection();
+        }
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        closeConnection();
+    }
+
+    private void closeConnection() {
+        if (leader) {
+            log.info("This node is no longer the cluster leader");
+        }
+        leader = false;
+        if (lockConnection != null) {
+            try {
+                lockConnection.close();
+            } catch (SQLException e) {
+                log.debug("Could not close the lock connection", e);
+            }
+            lockConnection = null;
+        }
+    }
+}
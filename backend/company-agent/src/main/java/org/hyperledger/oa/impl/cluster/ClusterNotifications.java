@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.cluster;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import io.micronaut.context.annotation.Value;
+import io.micronaut.data.exceptions.DataAccessException;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lightweight messages between the replicas of a cluster via postgres
+ * LISTEN/NOTIFY. Notifications sent within a transaction are only delivered
+ * when it commits, and a node does not receive its own notifications.
+ * <p>
+ * Postgres does not buffer notifications for a listener that is disconnected,
+ * so after a reconnect every subscriber is called with a null payload and has
+ * to assume that it missed changes.
+ * <p>
+ * Without {@code oagent.cluster.enabled} nothing is sent or received.
+ */
+@Slf4j
+@Singleton
+public class ClusterNotifications {
+
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_]{1,63}");
+    private static final char SEPARATOR = ':';
+
+    @Getter
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Getter
+    @Value("${oagent.cluster.enabled:false}")
+    private boolean enabled;
+
+    @Value("${oagent.cluster.poll-timeout:1s}")
+    private Duration pollTimeout;
+
+    @Value("${oagent.cluster.reconnect-delay:5s}")
+    private Duration reconnectDelay;
+
+    // the listening connection is held forever, so it is not taken from the pool
+    @Value("${datasources.default.url}")
+    private String url;
+
+    @Value("${datasources.default.username}")
+    private String username;
+
+    @Value("${datasources.default.password}")
+    private String password;
+
+    @Inject
+    private DataSource dataSource;
+
+    private final Map<String, List<Consumer<String>>> subscribers = new ConcurrentHashMap<>();
+
+    private Thread listener;
+
+    private volatile boolean running;
+
+    /**
+     * Sends a notification to all other nodes
+     *
+     * @param channel lower case channel name
+     * @param payload message, max. a few kb
+     */
+    public void publish(@NonNull String channel, @NonNull String payload) {
+        if (!enabled) {
+            return;
+        }
+        checkChannel(channel);
+        try (Connection c = dataSource.getConnection();
+                PreparedStatement ps = c.prepareStatement("SELECT pg_notify(?, ?)")) {
+            ps.setString(1, channel);
+            ps.setString(2, nodeId + SEPARATOR + payload);
+            ps.execute();
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not notify channel: " + channel, e);
+        }
+    }
+
+    /**
+     * Registers a listener for notifications of other nodes. Listeners are called
+     * on the listener thread and must not block.
+     *
+     * @param channel  lower case channel name
+     * @param consumer receives the payload, or null after a reconnect
+     */
+    public synchronized void subscribe(@NonNull String channel, @NonNull Consumer<String> consumer) {
+        checkChannel(channel);
+        subscribers.computeIfAbsent(channel, k -> new CopyOnWriteArrayList<>()).add(consumer);
+        if (enabled && listener == null) {
+            running = true;
+            listener = new Thread(this::listen, "cluster-listener");
+            listener.setDaemon(true);
+            listener.start();
+        }
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    private void listen() {
+        boolean reconnect = false;
+        while (running) {
+            try (Connection c = DriverManager.getConnection(url, username, password)) {
+                final PGConnection pg = c.unwrap(PGConnection.class);
+                final Set<String> listening = new HashSet<>();
+                if (reconnect) {
+                    subscribers.keySet().forEach(channel -> dispatch(channel, null));
+                }
+                reconnect = true;
+                log.info("Listening for cluster notifications, node: {}", nodeId);
+                while (running) {
+                    for (String channel : subscribers.keySet()) {
+                        if (listening.add(channel)) {
+                            try (Statement st = c.createStatement()) {
+                                st.execute("LISTEN " + channel);
+                            }
+                        }
+                    }
+                    final PGNotification[] received = pg.getNotifications((int) pollTimeout.toMillis());
+                    if (received != null) {
+                        for (PGNotification n : received) {
+                            receive(n.getName(), n.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                log.warn("Cluster listener connection lost: {}", e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelay.toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    void receive(@NonNull String channel, @NonNull String message) {
+        final int idx = message.indexOf(SEPARATOR);
+        if (idx < 0 || nodeId.equals(message.substring(0, idx))) {
+            return;
+        }
+        dispatch(channel, message.substring(idx + 1));
+    }
+
+    private void dispatch(String channel, @Nullable String payload) {
+        for (Consumer<String> c : subscribers.getOrDefault(channel, List.of())) {
+            try {
+                c.accept(payload);
+            } catch (Exception e) {
+                log.error("Cluster notification listener failed, channel: {}", channel, e);
+            }
+        }
+    }
+
+    private static void checkChannel(String channel) {
+        if (!CHANNEL.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid channel name: " + channel);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.cluster;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.sql.DataSource;
+
+import io.micronaut.context.annotation.Primary;
+import io.micronaut.context.annotation.Replaces;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.serialize.JdkSerializer;
+import io.micronaut.core.serialize.ObjectSerializer;
+import io.micronaut.data.exceptions.DataAccessException;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.annotation.Scheduled;
+import io.micronaut.session.InMemorySession;
+import io.micronaut.session.InMemorySessionStore;
+import io.micronaut.session.SessionConfiguration;
+import io.micronaut.session.SessionIdGenerator;
+import io.micronaut.session.SessionStore;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the http sessions in the database, so that a logged in user can be
+ * served by any node of the cluster. Attributes are stored with java
+ * serialization, like the session stores of micronaut do.
+ */
+@Slf4j
+@Singleton
+@Primary
+@Replaces(InMemorySessionStore.class)
+@Requires(property = "oagent.cluster.enabled", value = "true")
+public class JdbcSessionStore implements SessionStore<JdbcSessionStore.JdbcSession> {
+
+    // finds and touches the session with one statement
+    private static final String FIND = "UPDATE http_session"
+            + " SET last_accessed_at = LOCALTIMESTAMP,"
+            + " expires_at = LOCALTIMESTAMP + make_interval(secs => max_inactive)"
+            + " WHERE id = ? AND expires_at > LOCALTIMESTAMP"
+            + " RETURNING created_at, max_inactive, attributes";
+
+    private static final String UPSERT = "INSERT INTO http_session"
+            + " (id, created_at, last_accessed_at, max_inactive, expires_at, attributes)"
+            + " VALUES (?, ?, LOCALTIMESTAMP, ?, LOCALTIMESTAMP + make_interval(secs => ?), ?)"
+            + " ON CONFLICT (id) DO UPDATE"
+            + " SET last_accessed_at = LOCALTIMESTAMP, max_inactive = EXCLUDED.max_inactive,"
+            + " expires_at = EXCLUDED.expires_at, attributes = EXCLUDED.attributes";
+
+    private static final String DELETE = "DELETE FROM http_session WHERE id = ?";
+
+    private static final String DELETE_EXPIRED = "DELETE FROM http_session WHERE expires_at <= LOCALTIMESTAMP";
+
+    @Inject
+    private DataSource dataSource;
+
+    @Inject
+    private SessionIdGenerator idGenerator;
+
+    @Inject
+    private SessionConfiguration config;
+
+    @Inject
+    private ClusterLeader leader;
+
+    @Inject
+    @Named(TaskExecutors.IO)
+    private ExecutorService ioExecutor;
+
+    private final ObjectSerializer serializer = new JdkSerializer();
+
+    @Override
+    public JdbcSession newSession() {
+        return new JdbcSession(idGenerator.generateId(), Instant.now(), config.getMaxInactiveInterval());
+    }
+
+    @Override
+    public CompletableFuture<Optional<JdbcSession>> findSession(String id) {
+        return CompletableFuture.supplyAsync(() -> load(id), ioExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteSession(String id) {
+        return CompletableFuture.supplyAsync(() -> Boolean.valueOf(execute(DELETE, id) > 0), ioExecutor);
+    }
+
+    @Override
+    public CompletableFuture<JdbcSession> save(JdbcSession session) {
+        return CompletableFuture.supplyAsync(() -> {
+            store(session);
+            session.setNew(false);
+            return session;
+        }, ioExecutor);
+    }
+
+    @Scheduled(fixedDelay = "${oagent.cluster.session-cleanup:5m}")
+    void deleteExpired() {
+        if (leader.isLeader()) {
+            final int count = execute(DELETE_EXPIRED, null);
+            log.debug("Deleted {} expired sessions", Integer.valueOf(count));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Optional<JdbcSession> load(@NonNull String id) {
+        try (Connection c = dataSource.getConnection();
+                PreparedStatement ps = c.prepareStatement(FIND)) {
+            ps.setString(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return Optional.empty();
+                }
+                final JdbcSession session = new JdbcSession(id,
+                        rs.getTimestamp("created_at").toInstant(),
+                        Duration.ofSeconds(rs.getInt("max_inactive")));
+                serializer.deserialize(rs.getBytes("attributes"), Map.class)
+                        .ifPresent(attrs -> ((Map<String, Object>) attrs).forEach(session::put));
+                session.setNew(false);
+                return Optional.of(session);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not load session", e);
+        }
+    }
+
+    private void store(@NonNull JdbcSession session) {
+        final byte[] attributes = serializer.serialize(new HashMap<>(session.asMap()))
+                .orElseThrow(() -> new DataAccessException("Could not serialize session: " + session.getId()));
+        final int maxInactive = (int) session.getMaxInactiveInterval().getSeconds();
+        try (Connection c = dataSource.getConnection();
+                PreparedStatement ps = c.prepareStatement(UPSERT)) {
+            ps.setString(1, session.getId());
+            ps.setTimestamp(2, Timestamp.from(session.getCreationTime()));
+            ps.setInt(3, maxInactive);
+            ps.setInt(4, maxInactive);
+            ps.setBytes(5, attributes);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not save session", e);
+        }
+    }
+
+    private int execute(String sql, String id) {
+        try (Connection c = dataSource.getConnection();
+                PreparedStatement ps = c.prepareStatement(sql)) {
+            if (id != null) {
+                ps.setString(1, id);
+            }
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not delete sessions", e);
+        }
+    }
+
+    public static class JdbcSession extends InMemorySession {
+
+        JdbcSession(String id, Instant creationTime, Duration maxInactiveInterval) {
+            super(id, creationTime, maxInactiveInterval);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.util;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import lombok.NonNull;
+
+/**
+ * Base58 (bitcoin alphabet) as used for indy verkeys
+ */
+public class Base58 {
+
+    private static final String ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz";
+    private static final BigInteger BASE = BigInteger.valueOf(58);
+
+    /**
+     * @param input base58 string
+     * @return the decoded bytes
+     * @throws IllegalArgumentException if the input contains a character that is
+     *                                  not part of the alphabet
+     */
+    public static byte[] decode(@NonNull String input) {
+        BigInteger value = BigInteger.ZERO;
+        int leadingZeros = 0;
+        for (int i = 0; i < input.length(); i++) {
+            final int digit = ALPHABET.indexOf(input.charAt(i));
+            if (digit < 0) {
+                throw new IllegalArgumentException("Not a base58 character: " + input.charAt(i));
+            }
+            if (digit == 0 && value.signum() == 0) {
+                leadingZeros++;
+            }
+            value = value.multiply(BASE).add(BigInteger.valueOf(digit));
+        }
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) { // sign byte
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        } else if (value.signum() == 0) {
+            bytes = new byte[0];
+        }
+        final byte[] result = new byte[leadingZeros + bytes.length];
+        System.arraycopy(bytes, 0, result, leadingZeros, bytes.length);
+        return result;
+    }
+
+    public static String encode(@NonNull byte[] input) {
+        BigInteger value = new BigInteger(1, input);
+        final StringBuilder sb = new StringBuilder();
+        while (value.signum() > 0) {
+            final BigInteger[] qr = value.divideAndRemainder(BASE);
+            sb.append(ALPHABET.charAt(qr[1].intValue()));
+            value = qr[0];
+        }
+        for (int i = 0; i < input.length && input[i] == 0; i++) {
+            sb.append(ALPHABET.charAt(0));
+        }
+        return sb.reverse().toString();
+    }
+}
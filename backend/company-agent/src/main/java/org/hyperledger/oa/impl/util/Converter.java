@@ -17,7 +17,11 @@
  */
 package org.hyperledger.oa.impl.util;
 
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 
@@ -30,12 +34,16 @@ import org.hyperledger.oa.api.CredentialType;
 import org.hyperledger.oa.api.MyDocumentAPI;
 import org.hyperledger.oa.api.PartnerAPI;
 import org.hyperledger.oa.api.PartnerAPI.PartnerCredential;
+import org.hyperledger.oa.api.PartnerSummaryAPI;
 import org.hyperledger.oa.model.MyDocument;
 import org.hyperledger.oa.model.Partner;
+import org.hyperledger.oa.model.PartnerSummary;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 import io.micronaut.core.util.CollectionUtils;
 import lombok.NonNull;
@@ -95,13 +103,33 @@ public class Converter {
                 .credential(pc).build();
     }
 
+    public PartnerSummaryAPI toAPIObject(@NonNull PartnerSummary p) {
+        return PartnerSummaryAPI
+                .builder()
+                .id(p.getId().toString())
+                .createdAt(Long.valueOf(p.getCreatedAt().toEpochMilli()))
+                .updatedAt(Long.valueOf(p.getUpdatedAt().toEpochMilli()))
+                .valid(p.getValid())
+                .ariesSupport(p.getAriesSupport())
+                .incoming(p.getIncoming() != null ? p.getIncoming() : Boolean.FALSE)
+                .state(p.getState())
+                .alias(p.getAlias())
+                .did(p.getDid())
+                .legalName(p.getLegalName())
+                .build();
+    }
+
     public Partner toModelObject(String did, PartnerAPI api) {
+        final Map<String, Object> vp = api.getVerifiablePresentation() != null
+                ? toMap(api.getVerifiablePresentation())
+                : null;
         return Partner
                 .builder()
                 .did(did)
                 .valid(api.getValid())
-                .verifiablePresentation(
-                        api.getVerifiablePresentation() != null ? toMap(api.getVerifiablePresentation()) : null)
+                .verifiablePresentation(vp)
+                .vpHash(vp != null ? toHash(vp) : null)
+                .verkey(api.getVerkey())
                 .build();
     }
 
@@ -142,6 +170,27 @@ public class Converter {
                 .build();
     }
 
+    /**
+     * Hash of the json representation with all properties sorted by name, so two
+     * equal documents have the same hash regardless of the property order.
+     *
+     * @param fromValue e.g. a {@link VerifiablePresentation}
+     * @return base64url encoded sha-256
+     */
+    public String toHash(@NonNull Object fromValue) {
+        try {
+            final byte[] json = mapper.writer()
+                    .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                    .writeValueAsBytes(fromValue instanceof Map ? fromValue : toMap(fromValue));
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     public Map<String, Object> toMap(@NonNull Object fromValue) {
         return mapper.convertValue(fromValue, MAP_TYPEREF);
     }
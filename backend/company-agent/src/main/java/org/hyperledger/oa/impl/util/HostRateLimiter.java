@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.util;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.NonNull;
+
+/**
+ * Spaces out requests to the same host. Callers reserve the next free slot and
+ * wait for the returned delay themselves, so the limiter never blocks.
+ */
+public class HostRateLimiter {
+
+    private final long intervalNanos;
+
+    /** host to the earliest time the next request may start */
+    private final ConcurrentHashMap<String, Long> nextSlot = new ConcurrentHashMap<>();
+
+    public HostRateLimiter(@NonNull Duration interval) {
+        this.intervalNanos = interval.toNanos();
+    }
+
+    /**
+     * Reserves the next slot of the host
+     *
+     * @param host the host
+     * @return how long to wait before the request may be sent, zero if the host
+     *         was idle
+     */
+    public Duration reserve(@NonNull String host) {
+        final long now = System.nanoTime();
+        final long next = nextSlot.compute(host, (h, slot) -> slot == null || slot.longValue() - now < 0
+                ? Long.valueOf(now + intervalNanos)
+                : Long.valueOf(slot.longValue() + intervalNanos)).longValue();
+        return Duration.ofNanos(Math.max(0, next - intervalNanos - now));
+    }
+
+    /**
+     * Forgets all hosts without a pending reservation
+     */
+    public void evictIdle() {
+        final long now = System.nanoTime();
+        nextSlot.values().removeIf(slot -> slot.longValue() - now < 0);
+    }
+
+    public int size() {
+        return nextSlot.size();
+    }
+}
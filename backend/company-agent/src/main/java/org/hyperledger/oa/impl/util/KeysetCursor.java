@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+import org.hyperledger.oa.api.exception.WrongApiUsageException;
+
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Position in a list that is ordered by (timestamp, id). Handed out to api
+ * clients as an opaque string, so that the next page can be fetched without
+ * an offset. A null timestamp marks a row that has no timestamp yet, e.g. a
+ * credential that is not issued.
+ */
+@Value
+@AllArgsConstructor(staticName = "of")
+public class KeysetCursor {
+
+    private static final char SEPARATOR = '|';
+
+    @Nullable
+    private Instant timestamp;
+
+    @NonNull
+    private UUID id;
+
+    public String encode() {
+        final String plain = (timestamp != null ? timestamp.toString() : "") + SEPARATOR + id.toString();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor as returned by {@link #encode()}
+     * @return {@link KeysetCursor}
+     * @throws WrongApiUsageException if the cursor is not valid
+     */
+    public static KeysetCursor decode(@NonNull String cursor) {
+        try {
+            final String plain = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            final int idx = plain.indexOf(SEPARATOR);
+            if (idx < 0) {
+                throw new WrongApiUsageException("Invalid cursor: " + cursor);
+            }
+            return KeysetCursor.of(
+                    idx > 0 ? Instant.parse(plain.substring(0, idx)) : null,
+                    UUID.fromString(plain.substring(idx + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new WrongApiUsageException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.util;
+
+import java.util.List;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import io.reactivex.Flowable;
+import lombok.NonNull;
+
+/**
+ * Streams a keyset paginated query. The next page is only fetched when the
+ * previous one was consumed, so at most one page is held in memory no matter
+ * how many rows match.
+ */
+public final class KeysetPager {
+
+    private KeysetPager() {
+    }
+
+    /**
+     * @param <T>      row type
+     * @param pageFn   fetches the page after the given cursor, null for the
+     *                 first page
+     * @param cursorFn position of a row
+     * @param after    optional start position
+     * @param pageSize the page size pageFn uses, a shorter page ends the stream
+     * @return {@link Flowable} of all rows after the start position
+     */
+    public static <T> Flowable<T> stream(
+            @NonNull Function<KeysetCursor, List<T>> pageFn,
+            @NonNull Function<T, KeysetCursor> cursorFn,
+            @Nullable KeysetCursor after,
+            int pageSize) {
+        return Flowable.<List<T>, KeysetCursor[]>generate(() -> new KeysetCursor[] { after },
+                (last, emitter) -> {
+                    final List<T> page = pageFn.apply(last[0]);
+                    if (!page.isEmpty()) {
+                        last[0] = cursorFn.apply(page.get(page.size() - 1));
+                        emitter.onNext(page);
+                    }
+                    if (page.size() < pageSize) {
+                        emitter.onComplete();
+                    }
+                })
+                .concatMapIterable(page -> page);
+    }
+}
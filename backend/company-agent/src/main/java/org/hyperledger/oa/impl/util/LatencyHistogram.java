@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.util;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import lombok.NonNull;
+
+/**
+ * Lock free histogram with fixed millisecond buckets, good enough to get a
+ * feeling for latencies without pulling in a metrics library.
+ */
+public class LatencyHistogram {
+
+    private static final long[] BOUNDS_MS = { 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000 };
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS_MS.length + 1);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong sumMs = new AtomicLong();
+
+    private final AtomicLong maxMs = new AtomicLong();
+
+    public void record(@NonNull Duration duration) {
+        final long ms = Math.max(0, duration.toMillis());
+        int i = 0;
+        while (i < BOUNDS_MS.length && ms > BOUNDS_MS[i]) {
+            i++;
+        }
+        buckets.incrementAndGet(i);
+        count.incrementAndGet();
+        sumMs.addAndGet(ms);
+        maxMs.accumulateAndGet(ms, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMaxMs() {
+        return maxMs.get();
+    }
+
+    public long getAverageMs() {
+        final long c = count.get();
+        return c == 0 ? 0 : sumMs.get() / c;
+    }
+
+    /**
+     * @return bucket upper bound to count, the last bucket holds everything above
+     *         the largest bound
+     */
+    public Map<String, Long> getBuckets() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < BOUNDS_MS.length; i++) {
+            result.put("<=" + BOUNDS_MS[i] + "ms", Long.valueOf(buckets.get(i)));
+        }
+        result.put(">" + BOUNDS_MS[BOUNDS_MS.length - 1] + "ms", Long.valueOf(buckets.get(BOUNDS_MS.length)));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() + ", avg=" + getAverageMs() + "ms, max=" + getMaxMs() + "ms, buckets="
+                + getBuckets();
+    }
+}
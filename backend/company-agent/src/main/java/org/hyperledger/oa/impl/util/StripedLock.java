@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.util;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks, a key is always mapped to the same lock. Work on
+ * different keys can run in parallel, unless their keys share a stripe.
+ */
+public class StripedLock {
+
+    private final Lock[] stripes;
+
+    public StripedLock(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("At least one stripe is required");
+        }
+        this.stripes = new Lock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * @param key the key, null is mapped to the first stripe
+     * @return the lock for the key
+     */
+    public Lock get(Object key) {
+        if (key == null) {
+            return stripes[0];
+        }
+        // spread the hash, so that similar keys do not end up in the same stripe
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return stripes[Math.floorMod(h, stripes.length)];
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+}
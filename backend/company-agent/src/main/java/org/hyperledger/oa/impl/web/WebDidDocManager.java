@@ -17,7 +17,6 @@
  */
 package org.hyperledger.oa.impl.web;
 
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -32,13 +31,17 @@ import org.hyperledger.oa.api.DidDocAPI.PublicKey;
 import org.hyperledger.oa.api.DidDocAPI.Service;
 import org.hyperledger.oa.config.runtime.RequiresWeb;
 import org.hyperledger.oa.impl.DidDocManager;
+import org.hyperledger.oa.impl.activity.DidDocWebHolder;
 import org.hyperledger.oa.impl.activity.Identity;
+import org.hyperledger.oa.impl.activity.IdentitySnapshot;
 import org.hyperledger.oa.impl.util.Converter;
 import org.hyperledger.oa.model.DidDocWeb;
-import org.hyperledger.oa.repository.DidDocWebRepository;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micronaut.context.annotation.Value;
+import lombok.AccessLevel;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -47,7 +50,7 @@ import lombok.extern.slf4j.Slf4j;
 public class WebDidDocManager implements DidDocManager {
 
     @Inject
-    private DidDocWebRepository didRepo;
+    private DidDocWebHolder didDocHolder;
 
     @Inject
     private ObjectMapper mapper;
@@ -55,63 +58,62 @@ public class WebDidDocManager implements DidDocManager {
     @Inject
     private Identity id;
 
+    @Value("${oagent.host}")
+    @Setter(AccessLevel.PACKAGE)
+    private String host;
+
     public DidDocAPI createIfNeeded(String host) {
         Optional<DidDocAPI> dbDid = getDidDocument();
         if (dbDid.isPresent()) {
             return dbDid.get();
         }
 
-        String verkey = null;
-        final Optional<String> ver = id.getVerkey();
-        if (ver.isPresent()) {
-            verkey = ver.get();
+        DidDocAPI didDoc = build(host, id.getSnapshot());
+        try {
+            Map<String, Object> didDocDb = mapper.convertValue(didDoc, Converter.MAP_TYPEREF);
+            didDocHolder.save(DidDocWeb.builder().didDoc(didDocDb).build());
+        } catch (IllegalArgumentException e) {
+            log.error("", e);
         }
 
-        String myDid = id.getMyDid();
-        String myKeyId = id.getMyKeyId(myDid);
+        return didDoc;
+    }
+
+    /**
+     * Rewrites the stored did document with the new did and key, otherwise
+     * partners would verify the new signature against the old key
+     */
+    @Override
+    public void identityChanged(IdentitySnapshot current) {
+        final Map<String, Object> didDoc = mapper.convertValue(build(host, current), Converter.MAP_TYPEREF);
+        didDocHolder.get().ifPresentOrElse(didWeb -> {
+            if (!didDoc.equals(didWeb.getDidDoc())) {
+                log.info("Updating did document for: {}", current.getDid());
+                didDocHolder.updateDidDoc(didWeb.getId(), didDoc);
+            }
+        }, () -> didDocHolder.save(DidDocWeb.builder().didDoc(didDoc).build()));
+    }
 
-        DidDocAPI didDoc = DidDocAPI.builder()
-                .id(myDid)
+    private static DidDocAPI build(String host, IdentitySnapshot me) {
+        return DidDocAPI.builder()
+                .id(me.getDid())
                 .service(List.of(
                         Service.builder()
                                 .serviceEndpoint("https://" + host + "/profile.jsonld")
-                                .id(myDid + "#" + EndpointType.Profile.getLedgerName())
+                                .id(me.getDid() + "#" + EndpointType.Profile.getLedgerName())
                                 .type(EndpointType.Profile.getLedgerName())
                                 .build()))
                 .publicKey(List.of(
                         PublicKey.builder()
-                                .id(myKeyId)
+                                .id(me.getKeyId())
                                 .type(ApiConstants.DEFAULT_VERIFICATION_KEY_TYPE)
-                                .publicKeyBase58(verkey)
+                                .publicKeyBase58(me.getVerkey())
                                 .build()))
                 .build();
-
-        try {
-            Map<String, Object> didDocDb = mapper.convertValue(didDoc, Converter.MAP_TYPEREF);
-            didRepo.save(DidDocWeb.builder().didDoc(didDocDb).build());
-        } catch (IllegalArgumentException e) {
-            log.error("", e);
-        }
-
-        return didDoc;
     }
 
     @Override
     public Optional<DidDocAPI> getDidDocument() {
-        Optional<DidDocAPI> result = Optional.empty();
-        Iterator<DidDocWeb> iterator = didRepo.findAll().iterator();
-        if (iterator.hasNext()) {
-            try {
-                DidDocWeb db = iterator.next();
-                DidDocAPI api = mapper.convertValue(db.getDidDoc(), DidDocAPI.class);
-                result = Optional.of(api);
-            } catch (IllegalArgumentException e) {
-                log.error("", e);
-            }
-            if (iterator.hasNext()) {
-                throw new IllegalStateException("More than one did document was found");
-            }
-        }
-        return result;
+        return didDocHolder.getDidDocument();
     }
 }
@@ -19,8 +19,10 @@ package org.hyperledger.oa.impl.web;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.apache.commons.lang3.StringUtils;
@@ -30,10 +32,13 @@ import org.hyperledger.oa.api.DidDocAPI.PublicKey;
 import org.hyperledger.oa.api.PartnerAPI;
 import org.hyperledger.oa.api.exception.PartnerException;
 import org.hyperledger.oa.client.URClient;
-import org.hyperledger.oa.impl.activity.CryptoManager;
+import org.hyperledger.oa.impl.activity.VerificationCache;
 import org.hyperledger.oa.impl.util.Converter;
 
 import io.micronaut.core.util.CollectionUtils;
+import io.micronaut.scheduling.TaskExecutors;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
@@ -48,24 +53,49 @@ public class WebPartnerFlow {
     private URClient ur;
 
     @Inject
-    private CryptoManager crypto;
+    private VerificationCache verificationCache;
 
-    public PartnerAPI lookupPartner(@NonNull String endpoint, List<PublicKey> publicKey) {
-        Optional<VerifiablePresentation> profile = ur.getPublicProfile(endpoint);
-        if (profile.isPresent()) {
-            String verificationMethod = profile.get().getProof() != null
-                    ? profile.get().getProof().getVerificationMethod()
-                    : "";
-            Optional<String> pk = matchKey(verificationMethod, publicKey);
-            final PartnerAPI partner = converter.toAPIObject(profile.get());
-            partner.setVerifiablePresentation(profile.get());
-            if (pk.isPresent()) {
-                final Boolean valid = crypto.verify(pk.get(), profile.get());
-                partner.setValid(valid);
-            }
-            return partner;
+    @Inject
+    @Named(TaskExecutors.IO)
+    private ExecutorService ioExecutor;
+
+    /**
+     * Fetches and verifies the partners public profile. The profile is fetched
+     * without blocking, the signature check calls aries and therefore runs on
+     * the io executor.
+     *
+     * @param endpoint  the profile endpoint
+     * @param publicKey list of {@link PublicKey} from the did document
+     * @return {@link Single} of the {@link PartnerAPI}
+     */
+    public Single<PartnerAPI> lookupPartner(@NonNull String endpoint, List<PublicKey> publicKey) {
+        return ur.getPublicProfileAsync(endpoint)
+                .switchIfEmpty(Single.error(
+                        () -> new PartnerException("Could not retreive public profile from endpoint: " + endpoint)))
+                .observeOn(Schedulers.from(ioExecutor))
+                .map(profile -> verify(profile, publicKey));
+    }
+
+    /**
+     * Verifies the profile against the matching key of the did document, blocking
+     *
+     * @param profile   the partners public profile
+     * @param publicKey list of {@link PublicKey} from the did document
+     * @return {@link PartnerAPI} including the validation result
+     */
+    public PartnerAPI verify(@NonNull VerifiablePresentation profile, List<PublicKey> publicKey) {
+        String verificationMethod = profile.getProof() != null
+                ? profile.getProof().getVerificationMethod()
+                : "";
+        Optional<String> pk = matchKey(verificationMethod, publicKey);
+        final PartnerAPI partner = converter.toAPIObject(profile);
+        partner.setVerifiablePresentation(profile);
+        if (pk.isPresent()) {
+            // stays unknown if the signature could not be checked
+            partner.setValid(verificationCache.verify(pk.get(), profile).orElse(null));
+            partner.setVerkey(pk.get());
         }
-        throw new PartnerException("Could not retreive public profile from endpoint: " + endpoint);
+        return partner;
     }
 
     /**
@@ -76,7 +106,7 @@ public class WebPartnerFlow {
      * @param publicKey          list of {@link PublicKey} from the did document
      * @return matching public key in Base58
      */
-    static Optional<String> matchKey(String verificationMethod, List<PublicKey> publicKeys) {
+    public static Optional<String> matchKey(String verificationMethod, List<PublicKey> publicKeys) {
         Optional<PublicKey> key = Optional.empty();
         String result = null;
         if (StringUtils.isNotEmpty(verificationMethod) && CollectionUtils.isNotEmpty(publicKeys)) {
@@ -24,7 +24,10 @@ import javax.inject.Singleton;
 
 import org.hyperledger.aries.AriesClient;
 import org.hyperledger.oa.config.runtime.RequiresWeb;
+import org.hyperledger.oa.impl.PartnerImportManager;
+import org.hyperledger.oa.impl.activity.Identity;
 import org.hyperledger.oa.impl.activity.VPManager;
+import org.hyperledger.oa.impl.cluster.ClusterLeader;
 
 import io.micronaut.context.annotation.Requires;
 import io.micronaut.context.annotation.Value;
@@ -41,26 +44,44 @@ public class WebStartupTasks {
     @Inject
     private VPManager vpMgmt;
 
+    @Inject
+    private PartnerImportManager importMgmt;
+
     @Inject
     private WebDidDocManager dicDocMgmt;
 
     @Inject
     private AriesClient ac;
 
+    @Inject
+    private Identity id;
+
+    @Inject
+    private ClusterLeader leader;
+
     @Value("${oagent.host}")
     private String host;
 
     @Async
     public void onServiceStartedEvent() {
         log.debug("Running web mode startup tasks...");
+        ac.statusWaitUntilReady(Duration.ofSeconds(60));
+        id.refresh();
+
+        // shared state is only initialized once per cluster
+        if (!leader.isLeader()) {
+            return;
+        }
+
         vpMgmt.getVerifiablePresentation().ifPresentOrElse(vp -> {
             log.info("VP already exists, skipping: {}", host);
         }, () -> {
-            ac.statusWaitUntilReady(Duration.ofSeconds(60));
             log.info("Creating default did document for host: {}", host);
             dicDocMgmt.createIfNeeded(host);
             log.info("Creating default public profile for host: {}", host);
             vpMgmt.recreateVerifiablePresentation();
         });
+
+        importMgmt.resumeRunningImports();
     }
 }
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.model;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+import org.hyperledger.oa.api.CredentialType;
+
+import io.micronaut.core.annotation.Introspected;
+import io.micronaut.data.annotation.TypeDef;
+import io.micronaut.data.model.DataType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A {@link MyCredential} joined with the did of the issuing partner
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Introspected
+public class MyCredentialIssuer {
+
+    private UUID id;
+
+    @Nullable
+    private Instant issuedAt;
+
+    private CredentialType type;
+
+    private Boolean isPublic;
+
+    @Nullable
+    private String referent;
+
+    private String connectionId;
+
+    private String state;
+
+    private String threadId;
+
+    @Nullable
+    @TypeDef(type = DataType.JSON)
+    private Map<String, Object> credential;
+
+    /** null if the issuer is not (or no longer) a partner */
+    @Nullable
+    private String issuerDid;
+
+    public MyCredential toMyCredential() {
+        return MyCredential
+                .builder()
+                .id(id)
+                .issuedAt(issuedAt)
+                .type(type)
+                .isPublic(isPublic)
+                .referent(referent)
+                .connectionId(connectionId)
+                .state(state)
+                .threadId(threadId)
+                .credential(credential)
+                .build();
+    }
+}
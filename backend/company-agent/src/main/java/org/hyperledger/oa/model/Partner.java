@@ -96,4 +96,17 @@ public class Partner {
     @TypeDef(type = DataType.JSON)
     private Map<String, Object> verifiablePresentation;
 
+    /** sha-256 of the canonical verifiable presentation */
+    @Nullable
+    private String vpHash;
+
+    @Nullable
+    private String verkey; // key the presentation was verified with
+
+    @Nullable
+    private String profileEtag; // etag of the last profile response
+
+    @Nullable
+    private String profileLastModified; // last-modified of the last profile response
+
 }
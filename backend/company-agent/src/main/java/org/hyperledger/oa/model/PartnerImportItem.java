@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.model;
+
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import io.micronaut.data.annotation.AutoPopulated;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One did of a bulk partner import
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+public class PartnerImportItem {
+
+    public static final String PENDING = "pending";
+    public static final String IMPORTED = "imported";
+    /** a partner with the same did existed before */
+    public static final String EXISTS = "exists";
+    public static final String FAILED = "failed";
+
+    @Id
+    @AutoPopulated
+    private UUID id;
+
+    private UUID jobId;
+
+    /** position in the imported list, starting with 1 */
+    private Integer lineNumber;
+
+    private String did;
+
+    @Nullable
+    private String alias;
+
+    private String state;
+
+    @Nullable
+    private String error;
+
+    @Nullable
+    private UUID partnerId;
+}
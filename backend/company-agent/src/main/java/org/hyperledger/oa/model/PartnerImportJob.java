@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import io.micronaut.data.annotation.AutoPopulated;
+import io.micronaut.data.annotation.DateCreated;
+import io.micronaut.data.annotation.DateUpdated;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Bulk partner import, the job is running as long as one of its items is
+ * pending, or until it failed too often.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+public class PartnerImportJob {
+
+    public static final String RUNNING = "running";
+    public static final String FINISHED = "finished";
+    public static final String FAILED = "failed";
+
+    @Id
+    @AutoPopulated
+    private UUID id;
+
+    @DateCreated
+    private Instant createdAt;
+
+    @DateUpdated
+    private Instant updatedAt;
+
+    private String state;
+
+    private Integer total;
+
+    /** number of runs that stopped with an error */
+    private Integer attempts;
+
+    /** node that processes the row, see {@link org.hyperledger.oa.repository.WorkLeases} */
+    @Nullable
+    private String owner;
+
+    @Nullable
+    private Instant leaseUntil;
+}
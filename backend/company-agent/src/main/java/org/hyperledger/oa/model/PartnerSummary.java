@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+import io.micronaut.core.annotation.Introspected;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Projection of the {@link Partner} for list views, holds only the scalar
+ * columns and the legal name from the public profile.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Introspected
+public class PartnerSummary {
+
+    private UUID id;
+
+    private Instant createdAt;
+
+    private Instant updatedAt;
+
+    private String did;
+
+    @Nullable
+    private String alias;
+
+    @Nullable
+    private String state;
+
+    @Nullable
+    private Boolean valid;
+
+    private Boolean ariesSupport;
+
+    @Nullable
+    private Boolean incoming;
+
+    @Nullable
+    private String legalName;
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import io.micronaut.data.annotation.AutoPopulated;
+import io.micronaut.data.annotation.DateCreated;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Aries webhook event that could not be processed after all retries.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+public class WebhookDeadLetter {
+
+    @Id
+    @AutoPopulated
+    private UUID id;
+
+    @DateCreated
+    private Instant createdAt;
+
+    private Instant receivedAt;
+
+    private String topic;
+
+    private String partitionKey;
+
+    private String payload;
+
+    private Integer attempts;
+
+    @Nullable
+    private String lastError;
+
+    public static WebhookDeadLetter of(WebhookEvent event) {
+        return WebhookDeadLetter
+                .builder()
+                .receivedAt(event.getCreatedAt())
+                .topic(event.getTopic())
+                .partitionKey(event.getPartitionKey())
+                .payload(event.getPayload())
+                .attempts(event.getAttempts())
+                .lastError(event.getLastError())
+                .build();
+    }
+}
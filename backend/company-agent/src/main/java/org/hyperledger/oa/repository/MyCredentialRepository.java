@@ -17,11 +17,15 @@
  */
 package org.hyperledger.oa.repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import javax.annotation.Nullable;
+
 import org.hyperledger.oa.model.MyCredential;
+import org.hyperledger.oa.model.MyCredentialIssuer;
 
 import io.micronaut.data.annotation.Id;
 import io.micronaut.data.annotation.Query;
@@ -32,6 +36,53 @@ import io.micronaut.data.repository.CrudRepository;
 @JdbcRepository(dialect = Dialect.POSTGRES)
 public interface MyCredentialRepository extends CrudRepository<MyCredential, UUID> {
 
+    // null filter parameters match all rows
+    String FILTER = "(CAST(:type AS varchar) IS NULL OR type = :type)"
+            + " AND (CAST(:isPublic AS boolean) IS NULL OR is_public = :isPublic)"
+            + " AND (CAST(:state AS varchar) IS NULL OR state = :state)";
+
+    /**
+     * Keyset pagination ordered by (issued_at, id), credentials that are not
+     * issued yet come first
+     *
+     * @param type          optional {@link org.hyperledger.oa.api.CredentialType}
+     *                      name
+     * @param isPublic      optional visibility
+     * @param state         optional credential exchange state
+     * @param afterIssuedAt issued_at of the last row of the previous page, null if
+     *                      it was not issued yet
+     * @param afterId       id of the last row of the previous page, null for the
+     *                      first page
+     * @param limit         max page size
+     * @return one page of credentials
+     */
+    @Query("SELECT * FROM my_credential WHERE " + FILTER
+            // issued_at is not set until the credential was received
+            + " AND (CAST(:afterId AS uuid) IS NULL"
+            + " OR (CAST(:afterIssuedAt AS timestamp) IS NULL AND (issued_at IS NOT NULL OR id > CAST(:afterId AS uuid)))"
+            + " OR (issued_at, id) > (CAST(:afterIssuedAt AS timestamp), CAST(:afterId AS uuid)))"
+            + " ORDER BY issued_at NULLS FIRST, id LIMIT :limit")
+    List<MyCredential> findPage(
+            @Nullable String type,
+            @Nullable Boolean isPublic,
+            @Nullable String state,
+            @Nullable Instant afterIssuedAt,
+            @Nullable UUID afterId,
+            int limit);
+
+    /**
+     * Loads a credential together with the did of the partner that issued it
+     *
+     * @param id the credential id
+     * @return {@link MyCredentialIssuer}
+     */
+    @Query("SELECT c.*, p.did AS issuer_did FROM my_credential c"
+            + " LEFT JOIN partner p ON p.connection_id = c.connection_id WHERE c.id = :id")
+    Optional<MyCredentialIssuer> findWithIssuerById(UUID id);
+
+    @Query("SELECT COUNT(*) FROM my_credential WHERE " + FILTER)
+    long countFiltered(@Nullable String type, @Nullable Boolean isPublic, @Nullable String state);
+
     void updateIsPublic(@Id UUID id, Boolean isPublic);
 
     void updateState(@Id UUID id, String state);
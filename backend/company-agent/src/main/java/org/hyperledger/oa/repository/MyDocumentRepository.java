@@ -17,13 +17,17 @@
  */
 package org.hyperledger.oa.repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import javax.annotation.Nullable;
+
 import org.hyperledger.oa.model.MyDocument;
 
 import io.micronaut.data.annotation.Id;
+import io.micronaut.data.annotation.Query;
 import io.micronaut.data.jdbc.annotation.JdbcRepository;
 import io.micronaut.data.model.query.builder.sql.Dialect;
 import io.micronaut.data.repository.CrudRepository;
@@ -31,6 +35,36 @@ import io.micronaut.data.repository.CrudRepository;
 @JdbcRepository(dialect = Dialect.POSTGRES)
 public interface MyDocumentRepository extends CrudRepository<MyDocument, UUID> {
 
+    // null filter parameters match all rows
+    String FILTER = "(CAST(:type AS varchar) IS NULL OR type = :type)"
+            + " AND (CAST(:isPublic AS boolean) IS NULL OR is_public = :isPublic)";
+
+    /**
+     * Keyset pagination ordered by (created_at, id)
+     *
+     * @param type           optional {@link org.hyperledger.oa.api.CredentialType}
+     *                       name
+     * @param isPublic       optional visibility
+     * @param afterCreatedAt created_at of the last row of the previous page, null
+     *                       for the first page
+     * @param afterId        id of the last row of the previous page
+     * @param limit          max page size
+     * @return one page of documents
+     */
+    @Query("SELECT * FROM my_document WHERE " + FILTER
+            + " AND (CAST(:afterCreatedAt AS timestamp) IS NULL"
+            + " OR (created_at, id) > (CAST(:afterCreatedAt AS timestamp), CAST(:afterId AS uuid)))"
+            + " ORDER BY created_at, id LIMIT :limit")
+    List<MyDocument> findPage(
+            @Nullable String type,
+            @Nullable Boolean isPublic,
+            @Nullable Instant afterCreatedAt,
+            @Nullable UUID afterId,
+            int limit);
+
+    @Query("SELECT COUNT(*) FROM my_document WHERE " + FILTER)
+    long countFiltered(@Nullable String type, @Nullable Boolean isPublic);
+
     void updateDocument(@Id UUID id, Map<String, Object> document);
 
     /**
@@ -17,6 +17,8 @@
  */
 package org.hyperledger.oa.repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
@@ -24,8 +26,11 @@ import java.util.UUID;
 import javax.annotation.Nullable;
 
 import org.hyperledger.oa.model.Partner;
+import org.hyperledger.oa.model.PartnerDid;
+import org.hyperledger.oa.model.PartnerSummary;
 
 import io.micronaut.data.annotation.Id;
+import io.micronaut.data.annotation.Query;
 import io.micronaut.data.jdbc.annotation.JdbcRepository;
 import io.micronaut.data.model.query.builder.sql.Dialect;
 import io.micronaut.data.repository.CrudRepository;
@@ -33,17 +38,105 @@ import io.micronaut.data.repository.CrudRepository;
 @JdbcRepository(dialect = Dialect.POSTGRES)
 public interface PartnerRepository extends CrudRepository<Partner, UUID> {
 
+    // null filter parameters match all rows, the casts are needed so that
+    // postgres can infer the type of a null parameter
+    String FILTER = "(CAST(:state AS varchar) IS NULL OR state = :state)"
+            + " AND (CAST(:ariesSupport AS boolean) IS NULL OR aries_support = :ariesSupport)"
+            + " AND (CAST(:incoming AS boolean) IS NULL OR incoming = :incoming)"
+            + " AND (CAST(:valid AS boolean) IS NULL OR valid = :valid)"
+            + " AND (CAST(:aliasPattern AS varchar) IS NULL OR alias LIKE :aliasPattern)";
+
+    /**
+     * Keyset pagination ordered by (created_at, id)
+     *
+     * @param afterCreatedAt created_at of the last row of the previous page, null
+     *                       for the first page
+     * @param afterId        id of the last row of the previous page
+     * @param limit          max page size
+     * @return one page of partners
+     */
+    @Query("SELECT * FROM partner WHERE " + FILTER
+            + " AND (CAST(:afterCreatedAt AS timestamp) IS NULL"
+            + " OR (created_at, id) > (CAST(:afterCreatedAt AS timestamp), CAST(:afterId AS uuid)))"
+            + " ORDER BY created_at, id LIMIT :limit")
+    List<Partner> findPage(
+            @Nullable String state,
+            @Nullable Boolean ariesSupport,
+            @Nullable Boolean incoming,
+            @Nullable Boolean valid,
+            @Nullable String aliasPattern,
+            @Nullable Instant afterCreatedAt,
+            @Nullable UUID afterId,
+            int limit);
+
+    /**
+     * Same as {@link #findPage}, but without reading the verifiable presentation
+     * into the application. Only the legal name is extracted from the
+     * organizational profile credential.
+     */
+    @Query("SELECT id, created_at, updated_at, did, alias, state, valid, aries_support, incoming,"
+            + " (SELECT vc -> 'credentialSubject' ->> 'legalName'"
+            + " FROM jsonb_array_elements(verifiable_presentation -> 'verifiableCredential') AS vc"
+            + " WHERE vc -> 'type' @> '[\"OrganizationalProfileCredential\"]' LIMIT 1) AS legal_name"
+            + " FROM partner WHERE " + FILTER
+            + " AND (CAST(:afterCreatedAt AS timestamp) IS NULL"
+            + " OR (created_at, id) > (CAST(:afterCreatedAt AS timestamp), CAST(:afterId AS uuid)))"
+            + " ORDER BY created_at, id LIMIT :limit")
+    List<PartnerSummary> findSummaryPage(
+            @Nullable String state,
+            @Nullable Boolean ariesSupport,
+            @Nullable Boolean incoming,
+            @Nullable Boolean valid,
+            @Nullable String aliasPattern,
+            @Nullable Instant afterCreatedAt,
+            @Nullable UUID afterId,
+            int limit);
+
+    @Query("SELECT COUNT(*) FROM partner WHERE " + FILTER)
+    long countFiltered(
+            @Nullable String state,
+            @Nullable Boolean ariesSupport,
+            @Nullable Boolean incoming,
+            @Nullable Boolean valid,
+            @Nullable String aliasPattern);
+
     void updateVerifiablePresentation(@Id UUID id, Map<String, Object> verifiablePresentation);
 
     void updateState(@Id UUID id, String state);
 
+    void updateProfileValidators(@Id UUID id, @Nullable String profileEtag, @Nullable String profileLastModified);
+
+    void updateProfile(@Id UUID id, Map<String, Object> verifiablePresentation, String vpHash,
+            @Nullable String verkey, @Nullable Boolean valid,
+            @Nullable String profileEtag, @Nullable String profileLastModified);
+
+    /**
+     * Persistent tier of the verification cache
+     *
+     * @param vpHash hash of the verifiable presentation
+     * @param verkey the key the presentation was verified with
+     * @return the result of a previous verification
+     */
+    @Query("SELECT valid FROM partner WHERE vp_hash = :vpHash AND verkey = :verkey AND valid IS NOT NULL LIMIT 1")
+    Optional<Boolean> findValidByVpHashAndVerkey(String vpHash, String verkey);
+
     int updateAlias(@Id UUID id, @Nullable String alias);
 
     int updateByConnectionId(String connectionId, String state);
 
     Optional<Partner> findByDid(String did);
 
+    List<String> findDidByDidInList(List<String> did);
+
     Optional<Partner> findByLabel(String label);
 
     Optional<Partner> findByConnectionId(String connectionId);
+
+    /**
+     * Resolves the dids of many connections with one query
+     *
+     * @param connectionId list of aries connection ids
+     * @return the partners that exist, in no particular order
+     */
+    List<PartnerDid> findByConnectionIdInList(List<String> connectionId);
 }
@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.repository;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.sql.DataSource;
+
+import org.hyperledger.oa.model.Partner;
+
+import io.micronaut.data.exceptions.DataAccessException;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulk and upsert operations on the partner table that can not be expressed
+ * with micronaut data.
+ */
+@Slf4j
+@Singleton
+public class PartnerStateUpdater {
+
+    private static final String UPDATE_STATES = "UPDATE partner AS p"
+            + " SET state = v.state, updated_at = now()"
+            + " FROM unnest(?, ?) AS v(connection_id, state)"
+            + " WHERE p.connection_id = v.connection_id";
+
+    private static final String UPSERT_BY_LABEL = "INSERT INTO partner AS p"
+            + " (id, created_at, updated_at, did, aries_support, connection_id, state, label, alias, incoming)"
+            + " VALUES (?, now(), now(), ?, ?, ?, ?, ?, ?, ?)"
+            + " ON CONFLICT (label) DO UPDATE"
+            + " SET connection_id = COALESCE(p.connection_id, EXCLUDED.connection_id),"
+            + " state = EXCLUDED.state, updated_at = now()";
+
+    @Inject
+    private DataSource dataSource;
+
+    /**
+     * Updates the state of all partners in one statement
+     *
+     * @param states connection id to new state
+     * @return number of updated rows
+     */
+    public int updateStates(@NonNull Map<String, String> states) {
+        if (states.isEmpty()) {
+            return 0;
+        }
+        final String[] ids = new String[states.size()];
+        final String[] values = new String[states.size()];
+        int i = 0;
+        for (Map.Entry<String, String> e : states.entrySet()) {
+            ids[i] = e.getKey();
+            values[i] = e.getValue();
+            i++;
+        }
+        try (Connection c = dataSource.getConnection();
+                PreparedStatement ps = c.prepareStatement(UPDATE_STATES)) {
+            final Array idArray = c.createArrayOf("varchar", ids);
+            final Array stateArray = c.createArrayOf("varchar", values);
+            ps.setArray(1, idArray);
+            ps.setArray(2, stateArray);
+            final int count = ps.executeUpdate();
+            log.debug("Updated state of {} partners", Integer.valueOf(count));
+            return count;
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not update partner states", e);
+        }
+    }
+
+    /**
+     * Inserts the partner, or if a partner with the same label already exists,
+     * sets its state and connection id if it has none yet. Concurrent events of
+     * the same connection can not create duplicates this way.
+     *
+     * @param p partner with label, connection id and state set
+     * @return number of inserted or updated rows
+     */
+    public int upsertByLabel(@NonNull Partner p) {
+        try (Connection c = dataSource.getConnection();
+                PreparedStatement ps = c.prepareStatement(UPSERT_BY_LABEL)) {
+            ps.setObject(1, p.getId() != null ? p.getId() : UUID.randomUUID());
+            ps.setString(2, p.getDid());
+            ps.setBoolean(3, Boolean.TRUE.equals(p.getAriesSupport()));
+            ps.setString(4, p.getConnectionId());
+            ps.setString(5, p.getState());
+            ps.setString(6, p.getLabel());
+            ps.setString(7, p.getAlias());
+            ps.setObject(8, p.getIncoming());
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not upsert partner with label: " + p.getLabel(), e);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.sql.DataSource;
+
+import org.hyperledger.oa.model.PartnerImportJob;
+
+import io.micronaut.data.exceptions.DataAccessException;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ownership of webhook events and partner import jobs between the nodes of a
+ * cluster. A node owns the rows it processes and renews their lease while it
+ * is alive. Rows are only taken over once their lease expired, rows that are
+ * claimed by another node at the same time are skipped.
+ * <p>
+ * The claim methods take an {@code any} flag, if set the lease is ignored and
+ * every row that is not owned by the given node is claimed. This is used when
+ * running as a single node, where all rows of a previous run are orphaned.
+ */
+@Slf4j
+@Singleton
+public class WorkLeases {
+
+    private static final String LEASE = "LOCALTIMESTAMP + make_interval(secs => ?)";
+
+    private static final String CLAIM_EVENTS = "UPDATE webhook_event SET owner = ?, lease_until = " + LEASE
+            + " WHERE id IN (SELECT id FROM webhook_event"
+            + " WHERE owner IS DISTINCT FROM ? AND (? OR lease_until IS NULL OR lease_until < LOCALTIMESTAMP)"
+            + " ORDER BY created_at LIMIT ? FOR UPDATE SKIP LOCKED)"
+            + " RETURNING id";
+
+    private static final String RENEW_EVENTS = "UPDATE webhook_event SET lease_until = " + LEASE
+            + " WHERE owner = ?";
+
+    private static final String CLAIM_JOB = "UPDATE partner_import_job SET owner = ?, lease_until = " + LEASE
+            + " WHERE id = ? AND state = ?"
+            + " AND (? OR owner IS NULL OR owner = ? OR lease_until IS NULL OR lease_until < LOCALTIMESTAMP)";
+
+    private static final String CLAIM_JOBS = "UPDATE partner_import_job SET owner = ?, lease_until = " + LEASE
+            + " WHERE id IN (SELECT id FROM partner_import_job"
+            + " WHERE state = ? AND owner IS DISTINCT FROM ?"
+            + " AND (? OR lease_until IS NULL OR lease_until < LOCALTIMESTAMP)"
+            + " FOR UPDATE SKIP LOCKED)"
+            + " RETURNING id";
+
+    private static final String RENEW_JOBS = "UPDATE partner_import_job SET lease_until = " + LEASE
+            + " WHERE owner = ? AND state = ?";
+
+    private static final String RELEASE_JOB = "UPDATE partner_import_job SET owner = NULL, lease_until = NULL"
+            + " WHERE id = ? AND owner = ?";
+
+    private static final String DEFER_JOB = "UPDATE partner_import_job SET owner = NULL, lease_until = " + LEASE
+            + " WHERE id = ? AND owner = ?";
+
+    @Inject
+    private DataSource dataSource;
+
+    /**
+     * Claims webhook events that are not handled by any other node
+     *
+     * @param owner the claiming node
+     * @param lease how long the claim is valid without renewal
+     * @param any   ignore the leases of other nodes
+     * @param limit max number of events
+     * @return ids of the claimed events
+     */
+    public List<UUID> claimEvents(@NonNull String owner, @NonNull Duration lease, boolean any, int limit) {
+        try (Connection c = dataSource.getConnection();
+                PreparedStatement ps = c.prepareStatement(CLAIM_EVENTS)) {
+            ps.setString(1, owner);
+            ps.setLong(2, lease.getSeconds());
+            ps.setString(3, owner);
+            ps.setBoolean(4, any);
+            ps.setInt(5, limit);
+            return ids(ps);
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not claim webhook events", e);
+        }
+    }
+
+    /**
+     * @param owner the node
+     * @param lease new lease, starting now
+     * @return number of renewed events
+     */
+    public int renewEvents(@NonNull String owner, @NonNull Duration lease) {
+        return renew(RENEW_EVENTS, owner, lease, null);
+    }
+
+    /**
+     * Claims one running import job, unless another node holds a valid lease on
+     * it
+     *
+     * @param id    the job id
+     * @param owner the claiming node
+     * @param lease how long the claim is valid without renewal
+     * @param any   ignore the leases of other nodes
+     * @return true if the job is owned by the node now
+     */
+    public boolean claimJob(@NonNull UUID id, @NonNull String owner, @NonNull Duration lease, boolean any) {
+        try (Connection c = dataSource.getConnection();
+                PreparedStatement ps = c.prepareStatement(CLAIM_JOB)) {
+            ps.setString(1, owner);
+            ps.setLong(2, lease.getSeconds());
+            ps.setObject(3, id);
+            ps.setString(4, PartnerImportJob.RUNNING);
+            ps.setBoolean(5, any);
+            ps.setString(6, owner);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not claim partner import: " + id, e);
+        }
+    }
+
+    /**
+     * Claims all running import jobs that are not processed by another node
+     *
+     * @param owner the claiming node
+     * @param lease how long the claim is valid without renewal
+     * @param any   ignore the leases of other nodes
+     * @return ids of the claimed jobs
+     */
+    public List<UUID> claimJobs(@NonNull String owner, @NonNull Duration lease, boolean any) {
+        try (Connection c = dataSource.getConnection();
+                PreparedStatement ps = c.prepareStatement(CLAIM_JOBS)) {
+            ps.setString(1, owner);
+            ps.setLong(2, lease.getSeconds());
+            ps.setString(3, PartnerImportJob.RUNNING);
+            ps.setString(4, owner);
+            ps.setBoolean(5, any);
+            return ids(ps);
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not claim partner imports", e);
+        }
+    }
+
+    /**
+     * @param owner the node
+     * @param lease new lease, starting now
+     * @return number of renewed jobs
+     */
+    public int renewJobs(@NonNull String owner, @NonNull Duration lease) {
+        return renew(RENEW_JOBS, owner, lease, PartnerImportJob.RUNNING);
+    }
+
+    /**
+     * Gives up the ownership, so that the job can be resumed by any node right away
+     *
+     * @param id    the job id
+     * @param owner the node
+     */
+    public void releaseJob(@NonNull UUID id, @NonNull String owner) {
+        try (Connection c = dataSource.getConnection();
+                PreparedStatement ps = c.prepareStatement(RELEASE_JOB)) {
+            ps.setObject(1, id);
+            ps.setString(2, owner);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not release partner import: " + id, e);
+        }
+    }
+
+    /**
+     * Gives up the ownership, but the job is only resumed automatically after
+     * the delay. It can still be resumed by hand right away.
+     *
+     * @param id    the job id
+     * @param owner the node
+     * @param delay time until the job is claimed again by {@link #claimJobs}
+     */
+    public void deferJob(@NonNull UUID id, @NonNull String owner, @NonNull Duration delay) {
+        try (Connection c = dataSource.getConnection();
+                PreparedStatement ps = c.prepareStatement(DEFER_JOB)) {
+            ps.setLong(1, delay.getSeconds());
+            ps.setObject(2, id);
+            ps.setString(3, owner);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not defer partner import: " + id, e);
+        }
+    }
+
+    private int renew(String sql, String owner, Duration lease, String state) {
+        try (Connection c = dataSource.getConnection();
+                PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setLong(1, lease.getSeconds());
+            ps.setString(2, owner);
+            if (state != null) {
+                ps.setString(3, state);
+            }
+            final int count = ps.executeUpdate();
+            log.trace("Renewed {} leases of node: {}", Integer.valueOf(count), owner);
+            return count;
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not renew leases", e);
+        }
+    }
+
+    private static List<UUID> ids(PreparedStatement ps) throws SQLException {
+        final List<UUID> result = new ArrayList<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                result.add(rs.getObject(1, UUID.class));
+            }
+        }
+        return result;
+    }
+}
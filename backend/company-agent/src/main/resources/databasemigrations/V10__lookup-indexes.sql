@@ -0,0 +1,15 @@
+-- indexes for the hot lookups that are not covered yet,
+-- partner did, label and connection_id are indexed by V3 and V5
+
+-- credential exchange events are matched by thread id
+CREATE INDEX my_credential_thread_id_idx ON public.my_credential (thread_id);
+
+-- the public profile is built from the few public rows only
+CREATE INDEX my_credential_is_public_idx ON public.my_credential (id) WHERE is_public;
+CREATE INDEX my_document_is_public_idx ON public.my_document (id) WHERE is_public;
+
+-- credentials by schema and credential definition
+CREATE INDEX my_credential_schema_cred_def_idx ON public.my_credential
+    ((credential->>'schemaId'), (credential->>'credentialDefinitionId'));
+
+CREATE INDEX partner_proof_partner_id_idx ON public.partner_proof (partner_id);
@@ -0,0 +1,11 @@
+-- shared http sessions when running as a cluster, see JdbcSessionStore
+CREATE TABLE public.http_session (
+    id character varying(255) PRIMARY KEY,
+    created_at timestamp without time zone NOT NULL,
+    last_accessed_at timestamp without time zone NOT NULL,
+    max_inactive integer NOT NULL,
+    expires_at timestamp without time zone NOT NULL,
+    attributes bytea NOT NULL
+);
+
+CREATE INDEX http_session_expires_at_idx ON public.http_session (expires_at);
@@ -0,0 +1,3 @@
+-- credentials that are not issued yet are paged with issued_at NULLS FIRST instead of a coalesced epoch
+DROP INDEX IF EXISTS public.my_credential_issued_at_id_idx;
+CREATE INDEX my_credential_issued_at_id_idx ON public.my_credential (issued_at NULLS FIRST, id);
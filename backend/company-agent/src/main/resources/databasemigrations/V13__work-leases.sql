@@ -0,0 +1,10 @@
+-- webhook events and import jobs are owned by the node that processes them, see WorkLeases
+ALTER TABLE public.webhook_event
+    ADD COLUMN owner character varying(255),
+    ADD COLUMN lease_until timestamp without time zone;
+
+ALTER TABLE public.partner_import_job
+    ADD COLUMN owner character varying(255),
+    ADD COLUMN lease_until timestamp without time zone;
+
+CREATE INDEX webhook_event_owner_idx ON public.webhook_event (owner);
@@ -0,0 +1,2 @@
+-- failed runs of an import job, the job is given up after oagent.partner-import.max-attempts
+ALTER TABLE public.partner_import_job ADD COLUMN attempts integer NOT NULL DEFAULT 0;
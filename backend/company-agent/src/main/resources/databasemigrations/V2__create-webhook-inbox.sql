@@ -0,0 +1,22 @@
+CREATE TABLE public.webhook_event (
+    id uuid PRIMARY KEY,
+    created_at timestamp without time zone NOT NULL,
+    topic character varying(255) NOT NULL,
+    partition_key character varying(255) NOT NULL,
+    payload text NOT NULL,
+    attempts integer NOT NULL,
+    last_error text
+);
+
+CREATE INDEX webhook_event_created_at_idx ON public.webhook_event (created_at);
+
+CREATE TABLE public.webhook_dead_letter (
+    id uuid PRIMARY KEY,
+    created_at timestamp without time zone NOT NULL,
+    received_at timestamp without time zone NOT NULL,
+    topic character varying(255) NOT NULL,
+    partition_key character varying(255) NOT NULL,
+    payload text NOT NULL,
+    attempts integer NOT NULL,
+    last_error text
+);
@@ -0,0 +1,31 @@
+-- older versions could create two partners for the same connection, the
+-- duplicates are merged into the oldest row before the indexes are created
+CREATE TEMPORARY TABLE partner_merge (
+    id uuid PRIMARY KEY,
+    keep_id uuid NOT NULL
+) ON COMMIT DROP;
+
+INSERT INTO partner_merge (id, keep_id)
+SELECT id, keep_id FROM (
+    SELECT id, first_value(id) OVER (PARTITION BY connection_id ORDER BY created_at NULLS LAST, id) AS keep_id
+    FROM public.partner
+    WHERE connection_id IS NOT NULL
+) d WHERE id <> keep_id;
+
+UPDATE public.partner_proof SET partner_id = m.keep_id FROM partner_merge m WHERE partner_proof.partner_id = m.id;
+DELETE FROM public.partner USING partner_merge m WHERE partner.id = m.id;
+TRUNCATE partner_merge;
+
+INSERT INTO partner_merge (id, keep_id)
+SELECT id, keep_id FROM (
+    SELECT id, first_value(id) OVER (PARTITION BY label ORDER BY created_at NULLS LAST, id) AS keep_id
+    FROM public.partner
+    WHERE label IS NOT NULL
+) d WHERE id <> keep_id;
+
+UPDATE public.partner_proof SET partner_id = m.keep_id FROM partner_merge m WHERE partner_proof.partner_id = m.id;
+DELETE FROM public.partner USING partner_merge m WHERE partner.id = m.id;
+
+-- a connection maps to exactly one partner, nulls are allowed multiple times
+CREATE UNIQUE INDEX partner_label_key ON public.partner (label);
+CREATE UNIQUE INDEX partner_connection_id_key ON public.partner (connection_id);
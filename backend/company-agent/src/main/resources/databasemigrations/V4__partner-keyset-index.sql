@@ -0,0 +1,2 @@
+-- keyset pagination of the partner list
+CREATE INDEX partner_created_at_id_idx ON public.partner (created_at, id);
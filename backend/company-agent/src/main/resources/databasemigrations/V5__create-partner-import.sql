@@ -0,0 +1,23 @@
+-- bulk partner import, items are processed until none is pending any more
+CREATE TABLE public.partner_import_job (
+    id uuid PRIMARY KEY,
+    created_at timestamp without time zone NOT NULL,
+    updated_at timestamp without time zone NOT NULL,
+    state character varying(255) NOT NULL,
+    total integer NOT NULL
+);
+
+CREATE TABLE public.partner_import_item (
+    id uuid PRIMARY KEY,
+    job_id uuid NOT NULL REFERENCES public.partner_import_job (id) ON DELETE CASCADE,
+    line_number integer NOT NULL,
+    did character varying(255) NOT NULL,
+    alias character varying(255),
+    state character varying(255) NOT NULL,
+    error text,
+    partner_id uuid
+);
+
+CREATE INDEX partner_import_item_job_id_state_idx ON public.partner_import_item (job_id, state, line_number);
+-- existing partners are looked up by did in batches
+CREATE INDEX partner_did_idx ON public.partner (did);
@@ -0,0 +1,4 @@
+-- conditional requests and change detection of the partners public profile
+ALTER TABLE public.partner ADD COLUMN profile_etag character varying(255);
+ALTER TABLE public.partner ADD COLUMN profile_last_modified character varying(255);
+ALTER TABLE public.partner ADD COLUMN vp_hash character varying(64);
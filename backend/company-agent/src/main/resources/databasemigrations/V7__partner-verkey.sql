@@ -0,0 +1,3 @@
+-- persistent tier of the profile verification cache
+ALTER TABLE public.partner ADD COLUMN verkey character varying(255);
+CREATE INDEX partner_vp_hash_verkey_idx ON public.partner (vp_hash, verkey);
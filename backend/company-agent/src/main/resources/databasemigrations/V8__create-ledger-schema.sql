@@ -0,0 +1,9 @@
+-- write once cache of ledger schemas, schemas never change once written
+CREATE TABLE public.ledger_schema (
+    seq_no character varying(255) PRIMARY KEY,
+    created_at timestamp without time zone NOT NULL,
+    schema_id character varying(255) NOT NULL,
+    schema text NOT NULL
+);
+
+CREATE UNIQUE INDEX ledger_schema_schema_id_idx ON public.ledger_schema (schema_id);
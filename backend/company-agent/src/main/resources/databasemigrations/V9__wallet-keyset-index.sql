@@ -0,0 +1,3 @@
+-- keyset pagination of the wallet document and credential lists
+CREATE INDEX my_document_created_at_id_idx ON public.my_document (created_at, id);
+CREATE INDEX my_credential_issued_at_id_idx ON public.my_credential ((COALESCE(issued_at, TIMESTAMP 'epoch')), id);
@@ -17,16 +17,36 @@
  */
 package org.hyperledger.oa.client;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executors;
 
 import org.hyperledger.oa.BaseTest;
+import org.hyperledger.oa.client.LedgerClient.CredDefIndex;
+import org.hyperledger.oa.client.api.LedgerQueryResult;
+import org.hyperledger.oa.client.api.LedgerQueryResult.DomainTransaction;
+import org.hyperledger.oa.client.api.LedgerQueryResult.DomainTransaction.TxnMetadata;
 import org.hyperledger.oa.controller.api.partner.PartnerCredentialType;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
 class LedgerClientTest extends BaseTest {
 
+    private static final String DID = "CHysca6fY8n8ytCDLAJGZj";
+
     @Test
     @Disabled
     // TODO migrate to okhttp mock
@@ -34,9 +54,105 @@ class LedgerClientTest extends BaseTest {
         LedgerClient c = new LedgerClient();
         c.setUrl("https://indy-test.bosch-digital.de");
         c.setMapper(mapper);
+        c.setIoExecutor(Executors.newSingleThreadExecutor());
+        c.init();
 
         final Optional<List<PartnerCredentialType>> credDefIds = c.getCredentialDefinitionIdsForDid(
                 "CHysca6fY8n8ytCDLAJGZj");
         System.err.println(credDefIds.get());
     }
+
+    @Test
+    void testFullSyncPages() throws Exception {
+        LedgerClient c = client();
+        doReturn(page(5, 1, 2)).when(c).query(DID, 1);
+        doReturn(page(5, 3, 4)).when(c).query(DID, 2);
+        doReturn(page(5, 5)).when(c).query(DID, 3);
+
+        CredDefIndex index = c.sync(DID, CredDefIndex.EMPTY);
+        assertEquals(List.of(credDefId(1), credDefId(2), credDefId(3), credDefId(4), credDefId(5)),
+                index.getCredDefIds());
+        assertEquals(5, index.getLastSeqNo());
+        assertEquals(5, index.getTxnCount());
+    }
+
+    @Test
+    void testIncrementalSyncOnlyFetchesNewPages() throws Exception {
+        LedgerClient c = client();
+        CredDefIndex known = new CredDefIndex(List.of(credDefId(1), credDefId(2), credDefId(3)), 3, 3);
+        // page 2 holds txns 3 and 4, 3 is already known
+        doReturn(page(4, 3, 4)).when(c).query(DID, 2);
+
+        CredDefIndex index = c.sync(DID, known);
+        assertEquals(4, index.getCredDefIds().size());
+        assertEquals(credDefId(4), index.getCredDefIds().get(3));
+        assertEquals(4, index.getLastSeqNo());
+        verify(c, times(1)).query(anyString(), anyInt());
+    }
+
+    @Test
+    void testUnchangedSyncKeepsIndex() throws Exception {
+        LedgerClient c = client();
+        CredDefIndex known = new CredDefIndex(List.of(credDefId(1), credDefId(2)), 2, 2);
+        doReturn(page(2)).when(c).query(DID, 2);
+        assertSame(known, c.sync(DID, known));
+    }
+
+    @Test
+    void testLedgerResetRebuildsIndex() throws Exception {
+        LedgerClient c = client();
+        CredDefIndex known = new CredDefIndex(List.of(credDefId(7), credDefId(8)), 8, 8);
+        doReturn(page(1, 1)).when(c).query(DID, 5);
+        doReturn(page(1, 1)).when(c).query(DID, 1);
+
+        CredDefIndex index = c.sync(DID, known);
+        assertEquals(List.of(credDefId(1)), index.getCredDefIds());
+        assertEquals(1, index.getLastSeqNo());
+    }
+
+    @Test
+    void testLookupIsCached() throws Exception {
+        LedgerClient c = client();
+        doReturn(page(1, 1)).when(c).query(DID, 1);
+
+        assertEquals(credDefId(1), c.getCredentialDefinitionIdsForDid(DID).get().get(0).getCredentialDefinitionId());
+        assertEquals(1, c.getCredentialDefinitionIdsForDid(DID).get().size());
+        verify(c, times(1)).query(anyString(), anyInt());
+    }
+
+    @Test
+    void testLedgerNotReachable() throws Exception {
+        LedgerClient c = client();
+        doThrow(new IOException("timeout")).when(c).query(DID, 1);
+        assertTrue(c.getCredentialDefinitionIdsForDid(DID).isEmpty());
+    }
+
+    private LedgerClient client() {
+        LedgerClient c = spy(new LedgerClient());
+        c.setMapper(mapper);
+        c.setIoExecutor(Executors.newSingleThreadExecutor());
+        c.setPageSize(2);
+        c.init();
+        return c;
+    }
+
+    private static LedgerQueryResult page(int total, int... seqNos) {
+        List<DomainTransaction> results = new ArrayList<>();
+        for (int seqNo : seqNos) {
+            TxnMetadata md = new TxnMetadata();
+            md.setSeqNo(Integer.valueOf(seqNo));
+            md.setTxnId(credDefId(seqNo));
+            DomainTransaction txn = new DomainTransaction();
+            txn.setTxnMetadata(md);
+            results.add(txn);
+        }
+        LedgerQueryResult r = new LedgerQueryResult();
+        r.setTotal(Integer.valueOf(total));
+        r.setResults(results);
+        return r;
+    }
+
+    private static String credDefId(int seqNo) {
+        return DID + ":3:CL:" + (seqNo + 500) + ":tag" + seqNo;
+    }
 }
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hyperledger.oa.api.DidDocAPI;
+import org.hyperledger.oa.api.exception.PartnerException;
+import org.hyperledger.oa.client.api.DidDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.client.RxHttpClient;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.reactivex.Flowable;
+
+@ExtendWith(MockitoExtension.class)
+class URClientCacheTest {
+
+    @Mock
+    private RxHttpClient client;
+    @Spy
+    private ExecutorService ioExecutor = Executors.newFixedThreadPool(4);
+
+    @InjectMocks
+    private URClient ur;
+
+    private final AtomicInteger version = new AtomicInteger();
+
+    @BeforeEach
+    void setup() {
+        lenient().when(client.retrieve(any(HttpRequest.class), eq(DidDocument.class)))
+                .thenReturn(Flowable.timer(100, TimeUnit.MILLISECONDS).map(t -> {
+                    DidDocument doc = new DidDocument();
+                    doc.setDidDocument(DidDocAPI.builder().id("v" + version.incrementAndGet()).build());
+                    return doc;
+                }));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ioExecutor.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentLookupsShareOneCall() {
+        ur.init();
+
+        List<CompletableFuture<Optional<DidDocAPI>>> calls = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            calls.add(CompletableFuture.supplyAsync(() -> ur.getDidDocument("did:sov:iil:123")));
+        }
+        calls.forEach(c -> assertEquals("v1", c.join().orElseThrow().getId()));
+
+        verify(client, times(1)).retrieve(any(HttpRequest.class), eq(DidDocument.class));
+    }
+
+    @Test
+    void testStaleEntryIsServedWhileRefreshing() throws Exception {
+        ur.setRefreshAfter(Duration.ofMillis(50));
+        ur.init();
+
+        assertEquals("v1", ur.getDidDocument("did:sov:iil:123").orElseThrow().getId());
+        Thread.sleep(100);
+
+        long start = System.nanoTime();
+        assertEquals("v1", ur.getDidDocument("did:sov:iil:123").orElseThrow().getId());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 100);
+
+        verify(client, timeout(1000).times(2)).retrieve(any(HttpRequest.class), eq(DidDocument.class));
+    }
+
+    @Test
+    void testResolverErrorIsMappedToPartnerException() {
+        when(client.retrieve(any(HttpRequest.class), eq(DidDocument.class)))
+                .thenReturn(Flowable.error(new HttpClientResponseException("not found", HttpResponse.notFound())));
+        ur.init();
+
+        assertThrows(PartnerException.class, () -> ur.getDidDocument("did:sov:iil:404"));
+    }
+}
@@ -41,6 +41,7 @@ import org.hyperledger.oa.api.MyDocumentAPI;
 import org.hyperledger.oa.api.exception.WrongApiUsageException;
 import org.hyperledger.oa.client.CachingAriesClient;
 import org.hyperledger.oa.impl.activity.CryptoManager;
+import org.hyperledger.oa.impl.activity.DidDocWebHolder;
 import org.hyperledger.oa.impl.activity.Identity;
 import org.hyperledger.oa.impl.activity.VPManager;
 import org.hyperledger.oa.repository.DidDocWebRepository;
@@ -80,6 +81,9 @@ class MyDocumentManagerTest extends RunWithAries {
     @Inject
     private DidDocWebRepository didDocRepo;
 
+    @Inject
+    private DidDocWebHolder didDocHolder;
+
     private CredentialTestUtils utils;
 
     @BeforeEach
@@ -97,6 +101,8 @@ class MyDocumentManagerTest extends RunWithAries {
     @AfterEach
     public void tearDown() {
         didDocRepo.deleteAll();
+        didDocHolder.invalidate();
+        vpMgmt.invalidateCredentialCache();
     }
 
     @Test
@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+import javax.inject.Inject;
+
+import org.hyperledger.oa.api.PartnerAPI;
+import org.hyperledger.oa.api.PartnerImportJobAPI;
+import org.hyperledger.oa.api.exception.PartnerException;
+import org.hyperledger.oa.api.exception.WrongApiUsageException;
+import org.hyperledger.oa.controller.api.partner.AddPartnerRequest;
+import org.hyperledger.oa.impl.aries.ConnectionManager;
+import org.hyperledger.oa.model.Partner;
+import org.hyperledger.oa.model.PartnerImportItem;
+import org.hyperledger.oa.model.PartnerImportJob;
+import org.hyperledger.oa.repository.PartnerRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.micronaut.test.annotation.MicronautTest;
+import io.micronaut.test.annotation.MockBean;
+import io.reactivex.Single;
+
+@MicronautTest
+class PartnerImportManagerTest {
+
+    @Inject
+    PartnerImportManager mgmt;
+
+    @Inject
+    PartnerManager pm;
+
+    @Inject
+    PartnerRepository partnerRepo;
+
+    @Inject
+    ConnectionManager cm;
+
+    @MockBean(PartnerManager.class)
+    PartnerManager partnerManager() {
+        return Mockito.mock(PartnerManager.class);
+    }
+
+    @MockBean(ConnectionManager.class)
+    ConnectionManager connectionManager() {
+        return Mockito.mock(ConnectionManager.class);
+    }
+
+    @Test
+    void testImport() {
+        partnerRepo.save(Partner.builder().did("did:sov:iil:exists").ariesSupport(Boolean.FALSE).build());
+        when(pm.lookupPartnerAsync(anyString())).thenAnswer(inv -> {
+            String did = inv.getArgument(0);
+            if (did.endsWith("bad")) {
+                return Single.error(new PartnerException("Could not retreive did document"));
+            }
+            PartnerAPI p = new PartnerAPI();
+            p.setAriesSupport(Boolean.FALSE);
+            p.setValid(Boolean.TRUE);
+            return Single.just(p);
+        });
+
+        final PartnerImportJob job = mgmt.createJob(List.of(
+                request("did:sov:iil:1", "one"),
+                request("did:sov:iil:exists", null),
+                request("did:sov:iil:bad", null),
+                request("did:sov:iil:1", "duplicate"),
+                request("did:sov:iil:2", null)));
+        assertEquals(4, job.getTotal().intValue());
+
+        mgmt.run(job.getId());
+        verify(pm, never()).lookupPartnerAsync("did:sov:iil:exists");
+
+        PartnerImportJobAPI result = mgmt.getImport(job.getId(), true).orElseThrow();
+        assertEquals(PartnerImportJob.FINISHED, result.getState());
+        assertEquals(0, result.getPending().longValue());
+        assertEquals(2, result.getImported().longValue());
+        assertEquals(1, result.getExists().longValue());
+        assertEquals(1, result.getFailed().longValue());
+        assertEquals(4, result.getItems().size());
+
+        PartnerImportJobAPI.Item first = result.getItems().get(0);
+        assertEquals(PartnerImportItem.IMPORTED, first.getState());
+        Partner imported = partnerRepo.findById(UUID.fromString(first.getPartnerId())).orElseThrow();
+        assertEquals("one", imported.getAlias());
+        assertNotNull(imported.getLabel());
+
+        assertEquals(PartnerImportItem.FAILED, result.getItems().get(2).getState());
+        assertNotNull(result.getItems().get(2).getError());
+        assertEquals(3, partnerRepo.count());
+    }
+
+    @Test
+    void testFailedConnectionRequestIsRecorded() throws Exception {
+        when(pm.lookupPartnerAsync(anyString())).thenAnswer(inv -> {
+            PartnerAPI p = new PartnerAPI();
+            p.setAriesSupport(Boolean.TRUE);
+            p.setValid(Boolean.TRUE);
+            return Single.just(p);
+        });
+        doThrow(new IOException("aca-py down")).when(cm)
+                .receiveInvitation(eq("did:sov:iil:aries"), anyString(), any());
+
+        final PartnerImportJob job = mgmt.createJob(List.of(request("did:sov:iil:aries", null)));
+        mgmt.run(job.getId());
+
+        PartnerImportJobAPI.Item item = mgmt.getImport(job.getId(), true).orElseThrow().getItems().get(0);
+        assertEquals(PartnerImportItem.IMPORTED, item.getState());
+        assertNotNull(item.getPartnerId());
+        assertTrue(item.getError().contains("aca-py down"));
+    }
+
+    @Test
+    void testJobIsGivenUpAfterMaxAttempts() {
+        final PartnerImportJob job = mgmt.createJob(List.of(request("did:sov:iil:1", null)));
+        for (int i = 1; i < 5; i++) {
+            mgmt.attemptFailed(job.getId(), new IllegalStateException("bad row"));
+            assertEquals(PartnerImportJob.RUNNING, mgmt.getImport(job.getId(), false).orElseThrow().getState());
+        }
+        mgmt.attemptFailed(job.getId(), new IllegalStateException("bad row"));
+        assertEquals(PartnerImportJob.FAILED, mgmt.getImport(job.getId(), false).orElseThrow().getState());
+    }
+
+    @Test
+    void testEmptyImport() {
+        assertThrows(WrongApiUsageException.class, () -> mgmt.createJob(List.of(request(" ", null))));
+    }
+
+    @Test
+    void testParseCsv() {
+        List<AddPartnerRequest> partners = PartnerImportManager.parseCsv(
+                "did,alias\n"
+                        + "\n"
+                        + "# comment\n"
+                        + "did:sov:iil:1,Supplier One\n"
+                        + "\"did:sov:iil:2\";\"Supplier Two\"\n"
+                        + "did:sov:iil:3\n");
+        assertEquals(3, partners.size());
+        assertEquals("did:sov:iil:1", partners.get(0).getDid());
+        assertEquals("Supplier One", partners.get(0).getAlias());
+        assertEquals("did:sov:iil:2", partners.get(1).getDid());
+        assertEquals("Supplier Two", partners.get(1).getAlias());
+        assertNull(partners.get(2).getAlias());
+    }
+
+    private static AddPartnerRequest request(String did, String alias) {
+        AddPartnerRequest r = new AddPartnerRequest();
+        r.setDid(did);
+        r.setAlias(alias);
+        return r;
+    }
+}
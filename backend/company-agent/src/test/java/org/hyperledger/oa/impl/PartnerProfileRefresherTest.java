@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.hyperledger.aries.api.jsonld.VerifiablePresentation;
+import org.hyperledger.oa.api.DidDocAPI;
+import org.hyperledger.oa.api.PartnerAPI;
+import org.hyperledger.oa.client.api.PublicProfileResponse;
+import org.hyperledger.oa.impl.util.Converter;
+import org.hyperledger.oa.impl.web.WebPartnerFlow;
+import org.hyperledger.oa.model.Partner;
+import org.hyperledger.oa.repository.PartnerRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PartnerProfileRefresherTest {
+
+    @Mock
+    private PartnerRepository repo;
+    @Mock
+    private WebPartnerFlow webFlow;
+    @Mock
+    private Converter converter;
+
+    @InjectMocks
+    private PartnerProfileRefresher refresher;
+
+    private final UUID id = UUID.randomUUID();
+    private final DidDocAPI doc = DidDocAPI.builder().publicKey(List.of()).build();
+    private final VerifiablePresentation vp = VerifiablePresentation.builder().build();
+
+    @Test
+    void testNotModifiedWritesNothing() {
+        PartnerProfileRefresher.Outcome o = refresher.apply(partner("hash"), doc,
+                PublicProfileResponse.builder().notModified(true).build());
+
+        assertEquals(PartnerProfileRefresher.Outcome.NOT_MODIFIED, o);
+        verifyNoInteractions(repo, webFlow);
+    }
+
+    @Test
+    void testUnchangedContentIsNotVerified() {
+        when(converter.toMap(vp)).thenReturn(Map.of());
+        when(converter.toHash(anyMap())).thenReturn("hash");
+
+        PartnerProfileRefresher.Outcome o = refresher.apply(partner("hash"), doc, response("\"etag-2\""));
+
+        assertEquals(PartnerProfileRefresher.Outcome.UNCHANGED, o);
+        verify(repo).updateProfileValidators(id, "\"etag-2\"", null);
+        verify(repo, never()).updateProfile(any(), anyMap(), any(), any(), any(), any(), any());
+        verifyNoInteractions(webFlow);
+    }
+
+    @Test
+    void testChangedContentIsVerifiedAndWritten() {
+        when(converter.toMap(vp)).thenReturn(Map.of());
+        when(converter.toHash(anyMap())).thenReturn("new-hash");
+        PartnerAPI verified = new PartnerAPI();
+        verified.setValid(Boolean.TRUE);
+        verified.setVerkey("verkey");
+        when(webFlow.verify(vp, doc.getPublicKey())).thenReturn(verified);
+
+        PartnerProfileRefresher.Outcome o = refresher.apply(partner("hash"), doc, response("\"etag-2\""));
+
+        assertEquals(PartnerProfileRefresher.Outcome.UPDATED, o);
+        verify(repo).updateProfile(eq(id), anyMap(), eq("new-hash"), eq("verkey"), eq(Boolean.TRUE),
+                eq("\"etag-2\""), eq(null));
+    }
+
+    private Partner partner(String vpHash) {
+        return Partner.builder().id(id).did("did:sov:iil:1").vpHash(vpHash).profileEtag("\"etag-1\"").build();
+    }
+
+    private PublicProfileResponse response(String etag) {
+        return PublicProfileResponse.builder().profile(vp).etag(etag).build();
+    }
+}
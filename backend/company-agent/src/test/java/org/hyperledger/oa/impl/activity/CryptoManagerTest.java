@@ -47,6 +47,9 @@ class CryptoManagerTest extends RunWithAries {
     @Inject
     private CachingAriesClient cAC;
 
+    @Inject
+    private Ed25519Verifier localVerifier;
+
     @BeforeEach
     public void setupCryptoManager() {
         mgmt.setAcaPy(ac);
@@ -83,4 +86,15 @@ class CryptoManagerTest extends RunWithAries {
         assertEquals("did:sov:iil:asdfsafs", signed.get().getVerifiableCredential().get(0).getIssuer());
     }
 
+    @Test
+    void testLocalVerificationOfAcaPySignature() throws Exception {
+        VerifiableCredential vc = loadAndConvertTo("files/verifiableCredential.json", VerifiableCredential.class);
+        VerifiablePresentation vp = VerifiablePresentation
+                .builder()
+                .verifiableCredential(List.of(vc))
+                .build();
+        final VerifiablePresentation signed = mgmt.sign(vp).orElseThrow();
+        assertEquals(Optional.of(Boolean.TRUE), localVerifier.verify(id.getSnapshot().getVerkey(), signed));
+    }
+
 }
@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.activity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.hyperledger.oa.impl.cluster.ClusterNotifications;
+import org.hyperledger.oa.model.DidDocWeb;
+import org.hyperledger.oa.repository.DidDocWebRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micronaut.context.event.ApplicationEventPublisher;
+
+@ExtendWith(MockitoExtension.class)
+class DidDocWebHolderTest {
+
+    @Mock
+    private DidDocWebRepository repo;
+
+    @Mock
+    private ClusterNotifications cluster;
+
+    @Mock
+    private ApplicationEventPublisher publisher;
+
+    private DidDocWebHolder holder;
+
+    @BeforeEach
+    void setup() {
+        holder = new DidDocWebHolder();
+        holder.setDidRepo(repo);
+        holder.setMapper(new ObjectMapper());
+        holder.setCluster(cluster);
+        holder.setPublisher(publisher);
+        holder.init();
+    }
+
+    @Test
+    void testRowIsReadOnce() {
+        DidDocWeb row = DidDocWeb.builder()
+                .id(UUID.randomUUID())
+                .didDoc(Map.of("id", "did:web:localhost"))
+                .build();
+        when(repo.findAll()).thenReturn(List.of(row));
+
+        assertEquals(row, holder.get().orElseThrow());
+        assertEquals("did:web:localhost", holder.getDidDocument().orElseThrow().getId());
+        verify(repo, times(1)).findAll();
+    }
+
+    @Test
+    void testWriteInvalidatesAndNotifies() {
+        UUID id = UUID.randomUUID();
+        when(repo.findAll()).thenReturn(List.of(DidDocWeb.builder().id(id).build()));
+        holder.get();
+
+        holder.updateProfileJson(id, Map.of("type", "VerifiablePresentation"));
+        verify(repo).updateProfileJson(eq(id), any());
+        verify(cluster).publish(eq(DidDocWebHolder.CHANNEL), any());
+
+        holder.get();
+        verify(repo, times(2)).findAll();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testClusterNotificationInvalidates() {
+        ArgumentCaptor<Consumer<String>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(cluster).subscribe(eq(DidDocWebHolder.CHANNEL), listener.capture());
+        when(repo.findAll()).thenReturn(List.of());
+
+        assertTrue(holder.get().isEmpty());
+        listener.getValue().accept("other-node");
+        holder.get();
+        verify(repo, times(2)).findAll();
+        verify(publisher).publishEvent(new DidDocWebChangedEvent("other-node"));
+    }
+
+    @Test
+    void testMoreThanOneRow() {
+        when(repo.findAll()).thenReturn(List.of(new DidDocWeb(), new DidDocWeb()));
+        assertThrows(IllegalStateException.class, () -> holder.get());
+    }
+}
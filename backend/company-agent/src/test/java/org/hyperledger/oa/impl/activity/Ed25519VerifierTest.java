@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.activity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.bouncycastle.crypto.params.Ed25519PrivateKeyParameters;
+import org.bouncycastle.crypto.signers.Ed25519Signer;
+import org.hyperledger.oa.impl.util.Base58;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.apicatalog.jsonld.document.JsonDocument;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(MockitoExtension.class)
+class Ed25519VerifierTest {
+
+    // only the terms of the proof options, the real context is much larger
+    private static final String SECURITY_CONTEXT = "{\"@context\":{"
+            + "\"id\":\"@id\",\"type\":\"@type\",\"sec\":\"https://w3id.org/security#\","
+            + "\"Ed25519Signature2018\":\"sec:Ed25519Signature2018\","
+            + "\"created\":{\"@id\":\"http://purl.org/dc/terms/created\","
+            + "\"@type\":\"http://www.w3.org/2001/XMLSchema#dateTime\"},"
+            + "\"verificationMethod\":{\"@id\":\"sec:verificationMethod\",\"@type\":\"@id\"},"
+            + "\"proofPurpose\":{\"@id\":\"sec:proofPurpose\",\"@type\":\"@vocab\"},"
+            + "\"assertionMethod\":{\"@id\":\"sec:assertionMethod\",\"@type\":\"@id\"}}}";
+
+    private static final String HEADER = Base64.getUrlEncoder().withoutPadding().encodeToString(
+            "{\"alg\":\"EdDSA\",\"b64\":false,\"crit\":[\"b64\"]}".getBytes(StandardCharsets.UTF_8));
+
+    /** header as written by aca-py, taken from files/verifiablePresentation.json */
+    private static final String ACAPY_HEADER = "eyJhbGciOiAiRWREU0EiLCAiYjY0IjogZmFsc2UsICJjcml0IjogWyJiNjQiXX0";
+
+    @Mock
+    private JsonLdContextLoader contextLoader;
+
+    private final Ed25519Verifier verifier = new Ed25519Verifier();
+
+    private Ed25519PrivateKeyParameters privateKey;
+    private String verkey;
+
+    @BeforeEach
+    void setup() throws Exception {
+        lenient().when(contextLoader.loadDocument(any(URI.class), any())).thenAnswer(
+                inv -> JsonDocument.of(new ByteArrayInputStream(SECURITY_CONTEXT.getBytes(StandardCharsets.UTF_8))));
+        verifier.setMapper(new ObjectMapper());
+        verifier.setContextLoader(contextLoader);
+
+        privateKey = new Ed25519PrivateKeyParameters(new SecureRandom());
+        verkey = Base58.encode(privateKey.generatePublicKey().getEncoded());
+    }
+
+    @Test
+    void testRoundTrip() throws Exception {
+        Map<String, Object> signed = sign(document("Bosch"));
+        assertEquals(Optional.of(Boolean.TRUE), verifier.verify(verkey, signed));
+    }
+
+    @Test
+    void testAcaPyHeader() throws Exception {
+        // python json.dumps adds whitespace, the header has to be used as is
+        Map<String, Object> signed = sign(document("Bosch"), ACAPY_HEADER);
+        assertEquals(Optional.of(Boolean.TRUE), verifier.verify(verkey, signed));
+    }
+
+    @Test
+    void testModifiedDocument() throws Exception {
+        Map<String, Object> signed = sign(document("Bosch"));
+        signed.put("legalName", "Someone else");
+        assertEquals(Optional.of(Boolean.FALSE), verifier.verify(verkey, signed));
+    }
+
+    @Test
+    void testOtherKey() throws Exception {
+        Map<String, Object> signed = sign(document("Bosch"));
+        String otherKey = Base58.encode(new Ed25519PrivateKeyParameters(new SecureRandom())
+                .generatePublicKey().getEncoded());
+        assertEquals(Optional.of(Boolean.FALSE), verifier.verify(otherKey, signed));
+    }
+
+    @Test
+    void testUnsupportedProofFallsBack() throws Exception {
+        Map<String, Object> signed = sign(document("Bosch"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> proof = (Map<String, Object>) signed.get("proof");
+        proof.put("type", "RsaSignature2018");
+        assertTrue(verifier.verify(verkey, signed).isEmpty());
+        assertTrue(verifier.verify(verkey, document("no proof")).isEmpty());
+    }
+
+    @Test
+    void testBase58() {
+        byte[] bytes = new byte[] { 0, 0, 1, 2, (byte) 255 };
+        assertEquals("11", Base58.encode(new byte[] { 0, 0 }));
+        assertEquals(List.of((byte) 0, (byte) 0, (byte) 1, (byte) 2, (byte) 255),
+                toList(Base58.decode(Base58.encode(bytes))));
+    }
+
+    private static Map<String, Object> document(String legalName) {
+        Map<String, Object> doc = new LinkedHashMap<>();
+        doc.put("@context", Map.of("legalName", "https://schema.org/legalName"));
+        doc.put("id", "did:sov:iil:123");
+        doc.put("legalName", legalName);
+        return doc;
+    }
+
+    private Map<String, Object> sign(Map<String, Object> doc) throws Exception {
+        return sign(doc, HEADER);
+    }
+
+    private Map<String, Object> sign(Map<String, Object> doc, String jwsHeader) throws Exception {
+        Map<String, Object> options = new LinkedHashMap<>();
+        options.put("type", Ed25519Verifier.PROOF_TYPE);
+        options.put("verificationMethod", "did:sov:iil:123#key-1");
+        options.put("proofPurpose", "assertionMethod");
+        options.put("created", "2020-07-03T13:00:25Z");
+
+        byte[] header = (jwsHeader + ".").getBytes(StandardCharsets.US_ASCII);
+        byte[] data = verifier.verifyData(doc, options);
+        Ed25519Signer signer = new Ed25519Signer();
+        signer.init(true, privateKey);
+        signer.update(header, 0, header.length);
+        signer.update(data, 0, data.length);
+        String signature = Base64.getUrlEncoder().withoutPadding().encodeToString(signer.generateSignature());
+
+        Map<String, Object> proof = new LinkedHashMap<>(options);
+        proof.put("jws", jwsHeader + ".." + signature);
+        Map<String, Object> signed = new LinkedHashMap<>(doc);
+        signed.put("proof", proof);
+        return signed;
+    }
+
+    private static List<Byte> toList(byte[] bytes) {
+        Byte[] boxed = new Byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            boxed[i] = Byte.valueOf(bytes[i]);
+        }
+        return List.of(boxed);
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.activity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+import org.hyperledger.aries.AriesClient;
+import org.hyperledger.aries.api.wallet.WalletDidResponse;
+import org.hyperledger.oa.api.ApiConstants;
+import org.hyperledger.oa.api.DidDocAPI;
+import org.hyperledger.oa.api.DidDocAPI.PublicKey;
+import org.hyperledger.oa.client.CachingAriesClient;
+import org.hyperledger.oa.client.URClient;
+import org.hyperledger.oa.impl.cluster.ClusterNotifications;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.micronaut.context.event.ApplicationEventPublisher;
+
+@ExtendWith(MockitoExtension.class)
+class IdentityTest {
+
+    @Mock
+    private AriesClient acaPy;
+    @Mock
+    private CachingAriesClient acaCache;
+    @Mock
+    private URClient ur;
+    @Mock
+    private ApplicationEventPublisher publisher;
+    @Mock
+    private ClusterNotifications cluster;
+    @Mock
+    private ExecutorService ioExecutor;
+
+    @InjectMocks
+    private Identity id;
+
+    @Test
+    void testResolvedOnce() throws Exception {
+        mockPublicDid("F6dB7dMVHUQSC64qemnBi7", "verkey1");
+        mockDidDoc("#key-1");
+
+        IdentitySnapshot first = id.getSnapshot();
+        assertTrue(first.isComplete());
+        assertEquals("verkey1", first.getVerkey());
+        assertTrue(first.getKeyId().endsWith("#key-1"));
+        assertTrue(first.getDid().endsWith("F6dB7dMVHUQSC64qemnBi7"));
+
+        assertSame(first, id.getSnapshot());
+        assertEquals(first.getDid(), id.getMyDid());
+        verify(ur, times(1)).getDidDocument(anyString());
+        verify(acaCache, times(2)).walletDidPublic(); // did and verkey
+    }
+
+    @Test
+    void testIncompleteSnapshotIsKeptUntilTheCheck() throws Exception {
+        when(acaCache.walletDidPublic()).thenReturn(Optional.empty());
+        WalletDidResponse local = mock(WalletDidResponse.class);
+        when(local.getVerkey()).thenReturn("local");
+        when(acaPy.walletDid()).thenReturn(Optional.of(List.of(local)));
+
+        IdentitySnapshot snapshot = id.getSnapshot();
+        assertFalse(snapshot.isComplete());
+        assertEquals(Identity.NO_PUBLIC_DID, snapshot.getKeyId());
+        assertSame(snapshot, id.getSnapshot());
+        verify(acaPy, times(1)).walletDid();
+
+        // the public did was registered in the meantime
+        mockPublicDid("F6dB7dMVHUQSC64qemnBi7", "verkey1");
+        mockDidDoc("#key-1");
+        id.checkForRotation();
+        assertTrue(id.getSnapshot().isComplete());
+        verify(publisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testIncompleteSnapshotDoesNotReplaceComplete() throws Exception {
+        mockPublicDid("F6dB7dMVHUQSC64qemnBi7", "verkey1");
+        mockDidDoc("#key-1");
+        IdentitySnapshot first = id.getSnapshot();
+
+        when(acaCache.walletDidPublic()).thenReturn(Optional.empty());
+        when(acaPy.walletDid()).thenReturn(Optional.of(List.of()));
+        when(acaPy.walletDidCreate()).thenReturn(Optional.empty());
+        id.checkForRotation();
+        assertSame(first, id.getSnapshot());
+    }
+
+    @Test
+    void testRotationPublishesEvent() throws Exception {
+        mockPublicDid("F6dB7dMVHUQSC64qemnBi7", "verkey1");
+        mockDidDoc("#key-1");
+        IdentitySnapshot first = id.getSnapshot();
+
+        // unchanged
+        id.checkForRotation();
+        verify(publisher, never()).publishEvent(any());
+        verify(acaCache, times(1)).invalidateWalletDidPublic();
+
+        mockPublicDid("F6dB7dMVHUQSC64qemnBi7", "verkey2");
+        id.checkForRotation();
+        verify(publisher, times(1)).publishEvent(new IdentityChangedEvent(first, id.getSnapshot()));
+        verify(cluster, times(1)).publish(Identity.CHANNEL, id.getSnapshot().getDid());
+        assertEquals("verkey2", id.getSnapshot().getVerkey());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testRotationDetectedByAnotherNode() throws Exception {
+        mockPublicDid("F6dB7dMVHUQSC64qemnBi7", "verkey1");
+        mockDidDoc("#key-1");
+        IdentitySnapshot first = id.getSnapshot();
+
+        id.init();
+        ArgumentCaptor<Consumer<String>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(cluster).subscribe(eq(Identity.CHANNEL), listener.capture());
+        doAnswer(inv -> {
+            inv.<Runnable>getArgument(0).run();
+            return null;
+        }).when(ioExecutor).execute(any());
+
+        // the other node already rotated and announced it
+        mockPublicDid("F6dB7dMVHUQSC64qemnBi7", "verkey2");
+        listener.getValue().accept(first.getDid());
+
+        IdentitySnapshot current = id.getSnapshot();
+        assertEquals("verkey2", current.getVerkey());
+        verify(publisher, times(1)).publishEvent(new IdentityChangedEvent(first, current));
+        verify(cluster, never()).publish(anyString(), anyString());
+    }
+
+    @Test
+    void testInvalidate() throws Exception {
+        mockPublicDid("F6dB7dMVHUQSC64qemnBi7", "verkey1");
+        mockDidDoc("#key-1");
+        id.getSnapshot();
+        id.invalidate();
+        id.getSnapshot();
+        verify(ur, times(2)).getDidDocument(anyString());
+        verify(publisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testCheckWithoutSnapshotDoesNothing() throws Exception {
+        id.checkForRotation();
+        verify(acaCache, never()).walletDidPublic();
+    }
+
+    private void mockPublicDid(String did, String verkey) throws Exception {
+        WalletDidResponse res = mock(WalletDidResponse.class);
+        when(res.getDid()).thenReturn(did);
+        when(res.getVerkey()).thenReturn(verkey);
+        when(acaCache.walletDidPublic()).thenReturn(Optional.of(res));
+    }
+
+    private void mockDidDoc(String keySuffix) {
+        when(ur.getDidDocument(anyString())).thenAnswer(inv -> Optional.of(DidDocAPI.builder()
+                .publicKey(List.of(PublicKey.builder()
+                        .id(inv.getArgument(0) + keySuffix)
+                        .type(ApiConstants.DEFAULT_VERIFICATION_KEY_TYPE)
+                        .build()))
+                .build()));
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.activity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+
+import org.hyperledger.oa.api.ApiConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.apicatalog.jsonld.JsonLdError;
+import com.apicatalog.jsonld.document.Document;
+import com.apicatalog.jsonld.loader.DocumentLoaderOptions;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class JsonLdContextLoaderTest {
+
+    private static final byte[] CONTEXT = "{\"@context\":{\"iban\":\"https://schema.org/iban\"}}"
+            .getBytes(StandardCharsets.UTF_8);
+    private static final URI BANK_ACCOUNT = URI.create(
+            "https://raw.githubusercontent.com/iil-network/contexts/master/bankaccount.json");
+    private static final URI REMOTE = URI.create("https://contexts.example.com/remote.jsonld");
+
+    @TempDir
+    Path dir;
+
+    private JsonLdContextLoader loader;
+
+    @BeforeEach
+    void setup() {
+        loader = spy(new JsonLdContextLoader());
+        loader.setDir(dir.toString());
+        loader.setIoExecutor(Executors.newSingleThreadExecutor());
+        loader.setPreload(REMOTE.toString());
+        loader.init();
+    }
+
+    @Test
+    void testToPath() throws Exception {
+        assertEquals("www.w3.org/2018/credentials/v1",
+                JsonLdContextLoader.toPath(URI.create(ApiConstants.CREDENTIALS_V1)));
+        assertEquals("raw.githubusercontent.com/iil-network/contexts/master/bankaccount.json",
+                JsonLdContextLoader.toPath(BANK_ACCOUNT));
+        assertEquals("example.org/_/_/etc/passwd",
+                JsonLdContextLoader.toPath(URI.create("https://example.org/%2E%2E/%2E%2E/etc/passwd")));
+        assertEquals("example.org/index", JsonLdContextLoader.toPath(URI.create("https://example.org")));
+        assertThrows(JsonLdError.class, () -> JsonLdContextLoader.toPath(URI.create("urn:foo")));
+    }
+
+    @Test
+    void testFileNameKeepsTheWholeUrl() throws Exception {
+        String https = JsonLdContextLoader.toFileName(REMOTE);
+        assertTrue(https.startsWith("contexts.example.com/"));
+        assertTrue(https.endsWith(".jsonld"));
+        assertNotEquals(https, JsonLdContextLoader.toFileName(URI.create(REMOTE.toString().replace("https", "http"))));
+        assertNotEquals(https, JsonLdContextLoader.toFileName(URI.create(REMOTE + "?v=2")));
+        assertNotEquals(https, JsonLdContextLoader.toFileName(
+                URI.create(REMOTE.toString().replace(".com/", ".com:8443/"))));
+        assertNotEquals(https, JsonLdContextLoader.toFileName(BANK_ACCOUNT));
+    }
+
+    @Test
+    void testOnlyAllowedUrlsAreDownloaded() throws Exception {
+        assertThrows(JsonLdError.class, () -> loader.loadDocument(
+                URI.create("http://raw.githubusercontent.com/iil-network/contexts/master/bankaccount.json"),
+                new DocumentLoaderOptions()));
+        assertThrows(JsonLdError.class, () -> loader.loadDocument(
+                URI.create("https://169.254.169.254/latest/meta-data"), new DocumentLoaderOptions()));
+        verify(loader, never()).download(any());
+
+        URI other = URI.create("https://contexts.example.net/other.jsonld");
+        assertThrows(JsonLdError.class, () -> loader.loadDocument(other, new DocumentLoaderOptions()));
+        loader.setAllowedHosts("contexts.example.net");
+        doReturn(CONTEXT).when(loader).download(other);
+        assertNotNull(loader.loadDocument(other, new DocumentLoaderOptions()));
+    }
+
+    @Test
+    void testResponseSizeIsLimited() throws Exception {
+        assertEquals(3, JsonLdContextLoader.readLimited(REMOTE, new ByteArrayInputStream(new byte[3]), 3).length);
+        assertThrows(JsonLdError.class,
+                () -> JsonLdContextLoader.readLimited(REMOTE, new ByteArrayInputStream(new byte[4]), 3));
+    }
+
+    @Test
+    void testDownloadIsStoredAndOnlyDoneOnce() throws Exception {
+        doReturn(CONTEXT).when(loader).download(REMOTE);
+
+        Document doc = loader.loadDocument(REMOTE, new DocumentLoaderOptions());
+        assertNotNull(doc);
+        assertEquals(REMOTE, doc.getDocumentUrl());
+        loader.loadDocument(REMOTE, new DocumentLoaderOptions());
+        verify(loader, times(1)).download(REMOTE);
+        assertTrue(Files.isRegularFile(dir.resolve(JsonLdContextLoader.toFileName(REMOTE))));
+
+        // a restarted instance uses the disk copy
+        JsonLdContextLoader offline = new JsonLdContextLoader();
+        offline.setDir(dir.toString());
+        offline.setOffline(true);
+        offline.init();
+        assertNotNull(offline.loadDocument(REMOTE, new DocumentLoaderOptions()));
+    }
+
+    @Test
+    void testBundledContextsArePinned() throws Exception {
+        URI bundled = URI.create("https://contexts.example.org/bundled.jsonld");
+        loader.setTtl(Duration.ZERO);
+        assertNotNull(loader.loadDocument(bundled, new DocumentLoaderOptions()));
+        assertNotNull(loader.loadDocument(bundled, new DocumentLoaderOptions()));
+        verify(loader, never()).download(any());
+    }
+
+    @Test
+    void testShippedContextsAreAvailableOffline() throws Exception {
+        loader.setOffline(true);
+        loader.setPreload("");
+        for (String url : loader.preloadUrls()) {
+            assertNotNull(loader.loadDocument(URI.create(url), new DocumentLoaderOptions()), url);
+        }
+        verify(loader, never()).download(any());
+    }
+
+    @Test
+    @Disabled("needs network, run before a release to check the bundle")
+    void testShippedContextsMatchThePublishedOnes() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        loader.setPreload("");
+        for (String url : loader.preloadUrls()) {
+            URI uri = URI.create(url);
+            try (InputStream is = getClass().getClassLoader()
+                    .getResourceAsStream(JsonLdContextLoader.BUNDLE + JsonLdContextLoader.toPath(uri))) {
+                assertEquals(mapper.readTree(loader.download(uri)), mapper.readTree(is), url);
+            }
+        }
+    }
+
+    @Test
+    void testStaleContextIsServedAndRefreshed() throws Exception {
+        Path file = dir.resolve(JsonLdContextLoader.toFileName(REMOTE));
+        Files.createDirectories(file.getParent());
+        Files.write(file, CONTEXT);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(30))));
+        doReturn(CONTEXT).when(loader).download(REMOTE);
+
+        // first use comes from disk without waiting for the download
+        assertNotNull(loader.loadDocument(REMOTE, new DocumentLoaderOptions()));
+        verify(loader, never()).download(REMOTE);
+
+        assertNotNull(loader.loadDocument(REMOTE, new DocumentLoaderOptions()));
+        verify(loader, timeout(1000)).download(REMOTE);
+    }
+
+    @Test
+    void testPinnedContextIsNotRefreshed() throws Exception {
+        Path file = dir.resolve(JsonLdContextLoader.toFileName(REMOTE));
+        Files.createDirectories(file.getParent());
+        Files.write(file, CONTEXT);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(30))));
+        loader.setPinned(REMOTE.toString());
+
+        loader.loadDocument(REMOTE, new DocumentLoaderOptions());
+        loader.loadDocument(REMOTE, new DocumentLoaderOptions());
+        verify(loader, never()).download(any());
+    }
+
+    @Test
+    void testOfflineWithoutCopy() {
+        loader.setOffline(true);
+        assertThrows(JsonLdError.class, () -> loader.loadDocument(REMOTE, new DocumentLoaderOptions()));
+    }
+
+    @Test
+    void testPreloadCoversCredentialTypes() {
+        loader.setPreload(" https://example.org/extra.jsonld, ");
+        assertTrue(loader.preloadUrls().contains(ApiConstants.CREDENTIALS_V1));
+        assertTrue(loader.preloadUrls().contains(BANK_ACCOUNT.toString()));
+        assertTrue(loader.preloadUrls().contains(ApiConstants.INDY_CREDENTIAL_SCHEMA));
+        assertTrue(loader.preloadUrls().contains(Ed25519Verifier.SECURITY_V2));
+        assertTrue(loader.preloadUrls().contains("https://example.org/extra.jsonld"));
+    }
+}
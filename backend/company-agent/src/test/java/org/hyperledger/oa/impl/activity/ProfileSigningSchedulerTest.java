@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.activity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micronaut.scheduling.TaskScheduler;
+
+class ProfileSigningSchedulerTest {
+
+    private final ProfileSigningScheduler signing = new ProfileSigningScheduler();
+
+    /** delays and tasks in the order they were scheduled */
+    private final List<Duration> delays = new ArrayList<>();
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<ScheduledFuture<?>> futures = new ArrayList<>();
+
+    private long now;
+
+    @BeforeEach
+    void setup() {
+        TaskScheduler scheduler = mock(TaskScheduler.class);
+        doAnswer(inv -> {
+            delays.add(inv.getArgument(0));
+            scheduled.add(inv.getArgument(1));
+            ScheduledFuture<?> f = mock(ScheduledFuture.class);
+            futures.add(f);
+            return f;
+        }).when(scheduler).schedule(any(Duration.class), any(Runnable.class));
+
+        signing.setScheduler(scheduler);
+        signing.setQuietPeriod(Duration.ofSeconds(2));
+        signing.setMaxDelay(Duration.ofSeconds(10));
+        signing.setNanoClock(() -> now);
+    }
+
+    @Test
+    void testBurstRunsLatestTaskOnce() {
+        AtomicInteger first = new AtomicInteger();
+        AtomicInteger last = new AtomicInteger();
+
+        signing.request(first::incrementAndGet);
+        signing.request(first::incrementAndGet);
+        signing.request(last::incrementAndGet);
+
+        // every request replaces the pending run, the cancelled ones still fire
+        // in the worst case and must not run anything
+        scheduled.forEach(Runnable::run);
+
+        assertEquals(0, first.get());
+        assertEquals(1, last.get());
+        assertEquals(3, signing.getRequestedCount());
+        assertEquals(1, signing.getExecutedCount());
+    }
+
+    @Test
+    void testMaxDelayBoundsTheWait() {
+        for (int i = 0; i < 12; i++) {
+            now = TimeUnit.SECONDS.toNanos(i);
+            signing.request(() -> {
+            });
+        }
+        assertEquals(Duration.ofSeconds(2), delays.get(0));
+        assertEquals(Duration.ofSeconds(2), delays.get(8));
+        assertEquals(Duration.ofSeconds(1), delays.get(9));
+        assertEquals(Duration.ZERO, delays.get(10));
+        assertEquals(Duration.ZERO, delays.get(11));
+    }
+
+    @Test
+    void testRequestDuringRunIsNeitherLostNorRunTwice() {
+        AtomicInteger second = new AtomicInteger();
+        AtomicInteger first = new AtomicInteger();
+        signing.request(() -> {
+            first.incrementAndGet();
+            signing.request(second::incrementAndGet);
+        });
+
+        scheduled.get(0).run();
+        assertEquals(1, first.get());
+        assertEquals(0, second.get());
+        assertEquals(2, scheduled.size());
+
+        // the new run starts its own quiet period
+        assertEquals(Duration.ofSeconds(2), delays.get(1));
+        scheduled.get(1).run();
+        scheduled.get(1).run();
+        scheduled.get(0).run();
+
+        assertEquals(1, first.get());
+        assertEquals(1, second.get());
+        assertEquals(2, signing.getExecutedCount());
+    }
+}
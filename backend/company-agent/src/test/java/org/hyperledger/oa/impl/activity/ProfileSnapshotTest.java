@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.activity;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+class ProfileSnapshotTest {
+
+    private static final byte[] JSON = "{\"type\":[\"VerifiablePresentation\"]}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void testEtagIsStable() {
+        ProfileSnapshot s1 = ProfileSnapshot.of(1, JSON);
+        ProfileSnapshot s2 = ProfileSnapshot.of(2, JSON);
+        assertEquals(s1.getEtag(), s2.getEtag());
+        assertTrue(s1.getEtag().startsWith("\""));
+
+        ProfileSnapshot s3 = ProfileSnapshot.of(3, "{}".getBytes(StandardCharsets.UTF_8));
+        assertNotEquals(s1.getEtag(), s3.getEtag());
+    }
+
+    @Test
+    void testIfNoneMatch() {
+        ProfileSnapshot s = ProfileSnapshot.of(1, JSON);
+        assertTrue(s.matches(s.getEtag()));
+        assertTrue(s.matches("\"other\", " + s.getEtag()));
+        assertTrue(s.matches("W/" + s.getEtag()));
+        assertTrue(s.matches("*"));
+        assertFalse(s.matches("\"other\""));
+        assertFalse(s.matches(null));
+    }
+
+    @Test
+    void testGzipHasItsOwnEtag() {
+        ProfileSnapshot s = ProfileSnapshot.of(1, JSON);
+        assertEquals(s.getEtag(), s.getEtag(false));
+        assertNotEquals(s.getEtag(false), s.getEtag(true));
+        assertTrue(s.getEtag(true).startsWith("\"") && s.getEtag(true).endsWith("-gzip\""));
+        assertTrue(s.matches(s.getEtag(true), true));
+        assertFalse(s.matches(s.getEtag(true), false));
+        assertFalse(s.matches(s.getEtag(false), true));
+    }
+
+    @Test
+    void testAcceptsGzip() {
+        assertTrue(ProfileSnapshot.acceptsGzip("gzip"));
+        assertTrue(ProfileSnapshot.acceptsGzip("deflate, GZIP;q=0.8"));
+        assertTrue(ProfileSnapshot.acceptsGzip("br, *;q=0.1"));
+        assertFalse(ProfileSnapshot.acceptsGzip("gzip;q=0"));
+        assertFalse(ProfileSnapshot.acceptsGzip("gzip; q=0.0, *"));
+        assertFalse(ProfileSnapshot.acceptsGzip("*;q=0"));
+        assertFalse(ProfileSnapshot.acceptsGzip("identity"));
+        assertFalse(ProfileSnapshot.acceptsGzip(null));
+    }
+
+    @Test
+    void testGzipRoundTrip() throws Exception {
+        ProfileSnapshot s = ProfileSnapshot.of(1, JSON);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(s.getGzip()))) {
+            assertArrayEquals(JSON, in.readAllBytes());
+        }
+    }
+}
@@ -1,17 +1,28 @@
 package org.hyperledger.oa.impl.activity;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.time.Instant;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import org.hyperledger.aries.api.jsonld.VerifiableCredential;
 import org.hyperledger.oa.api.CredentialType;
+import org.hyperledger.oa.impl.cluster.ClusterLeader;
+import org.hyperledger.oa.impl.cluster.ClusterNotifications;
 import org.hyperledger.oa.impl.util.Converter;
 import org.hyperledger.oa.model.MyDocument;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
@@ -24,10 +35,45 @@ class VPManagerTest {
     private Converter c = new Converter();
     private VPManager vpm = new VPManager();
 
+    private ClusterNotifications cluster = mock(ClusterNotifications.class);
+    private ClusterLeader leader = mock(ClusterLeader.class);
+    private ProfileSigningScheduler signScheduler = mock(ProfileSigningScheduler.class);
+
     @BeforeEach
     void setup() {
         c.setMapper(m);
         vpm.setConverter(c);
+        vpm.setCluster(cluster);
+        vpm.setLeader(leader);
+        vpm.setSignScheduler(signScheduler);
+        when(cluster.getNodeId()).thenReturn("node-a");
+    }
+
+    @Test
+    void testFollowerForwardsChangesToTheLeader() {
+        when(leader.isLeader()).thenReturn(Boolean.FALSE);
+
+        vpm.documentRemoved(UUID.randomUUID());
+        vpm.credentialRemoved(UUID.randomUUID());
+
+        verify(cluster, times(2)).publish(VPManager.CHANNEL, "node-a");
+        verify(signScheduler, never()).request(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testLeaderSignsForwardedChanges() {
+        vpm.init();
+        ArgumentCaptor<Consumer<String>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(cluster).subscribe(eq(VPManager.CHANNEL), listener.capture());
+
+        when(leader.isLeader()).thenReturn(Boolean.FALSE);
+        listener.getValue().accept("node-b");
+        verify(signScheduler, never()).request(any());
+
+        when(leader.isLeader()).thenReturn(Boolean.TRUE);
+        listener.getValue().accept("node-b");
+        verify(signScheduler).request(any());
     }
 
     @Test
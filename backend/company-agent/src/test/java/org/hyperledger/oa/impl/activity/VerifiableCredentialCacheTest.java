@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.activity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.hyperledger.aries.api.jsonld.VerifiableCredential;
+import org.hyperledger.oa.impl.activity.VerifiableCredentialCache.Source;
+import org.junit.jupiter.api.Test;
+
+class VerifiableCredentialCacheTest {
+
+    private final VerifiableCredentialCache cache = new VerifiableCredentialCache();
+
+    @Test
+    void testOnlyNewerVersionsReplaceEntries() {
+        cache.reset("did:sov:iil:123");
+        UUID id = UUID.randomUUID();
+        Instant v1 = Instant.ofEpochSecond(100);
+        Instant v2 = Instant.ofEpochSecond(200);
+
+        assertTrue(cache.isOutdated(Source.DOCUMENT, id, v1));
+        assertTrue(cache.put(Source.DOCUMENT, id, v1, vc("v1")));
+        assertFalse(cache.isOutdated(Source.DOCUMENT, id, v1));
+        assertTrue(cache.isOutdated(Source.DOCUMENT, id, v2));
+
+        assertTrue(cache.put(Source.DOCUMENT, id, v2, vc("v2")));
+        assertFalse(cache.put(Source.DOCUMENT, id, v1, vc("stale")));
+        assertEquals(1, cache.values().size());
+        assertEquals("v2", cache.values().get(0).getId());
+    }
+
+    @Test
+    void testDocumentsBeforeCredentials() {
+        cache.reset("did:sov:iil:123");
+        cache.put(Source.CREDENTIAL, UUID.randomUUID(), null, vc("cred"));
+        cache.put(Source.DOCUMENT, UUID.randomUUID(), Instant.now(), vc("doc"));
+        assertEquals("doc", cache.values().get(0).getId());
+        assertEquals("cred", cache.values().get(1).getId());
+    }
+
+    @Test
+    void testRemoveAndInvalidate() {
+        cache.reset("did:sov:iil:123");
+        UUID id = UUID.randomUUID();
+        cache.put(Source.CREDENTIAL, id, null, vc("cred"));
+        assertTrue(cache.remove(Source.CREDENTIAL, id));
+        assertFalse(cache.remove(Source.CREDENTIAL, id));
+
+        assertTrue(cache.isCurrent("did:sov:iil:123"));
+        assertFalse(cache.isCurrent("did:sov:iil:456"));
+        cache.invalidate();
+        assertFalse(cache.isCurrent("did:sov:iil:123"));
+    }
+
+    private static VerifiableCredential vc(String id) {
+        return VerifiableCredential.builder().id(id).build();
+    }
+}
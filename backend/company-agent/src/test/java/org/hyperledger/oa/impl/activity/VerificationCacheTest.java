@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.activity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.hyperledger.aries.api.jsonld.VerifiablePresentation;
+import org.hyperledger.oa.impl.util.Converter;
+import org.hyperledger.oa.repository.PartnerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class VerificationCacheTest {
+
+    @Mock
+    private CryptoManager crypto;
+    @Mock
+    private Converter converter;
+    @Mock
+    private PartnerRepository repo;
+
+    @InjectMocks
+    private VerificationCache cache;
+
+    private final VerifiablePresentation vp = VerifiablePresentation.builder().build();
+
+    @BeforeEach
+    void setup() {
+        cache.init();
+        when(converter.toHash(vp)).thenReturn("hash");
+    }
+
+    @Test
+    void testSameContentAndKeyIsVerifiedOnce() {
+        when(repo.findValidByVpHashAndVerkey("hash", "key1")).thenReturn(Optional.empty());
+        when(crypto.verify("key1", vp)).thenReturn(Optional.of(Boolean.TRUE));
+
+        assertEquals(Optional.of(Boolean.TRUE), cache.verify("key1", vp));
+        assertEquals(Optional.of(Boolean.TRUE), cache.verify("key1", vp));
+
+        verify(crypto, times(1)).verify("key1", vp);
+        assertEquals(1, cache.getStats().getHits());
+        assertEquals(1, cache.getStats().getVerifications());
+    }
+
+    @Test
+    void testKeyChangeIsVerifiedAgain() {
+        when(repo.findValidByVpHashAndVerkey(any(), any())).thenReturn(Optional.empty());
+        when(crypto.verify(any(), any())).thenReturn(Optional.of(Boolean.TRUE));
+
+        cache.verify("key1", vp);
+        cache.verify("key2", vp);
+
+        verify(crypto, times(2)).verify(any(), any());
+    }
+
+    @Test
+    void testMissingAnswerIsNotCached() {
+        when(repo.findValidByVpHashAndVerkey("hash", "key1")).thenReturn(Optional.empty());
+        when(crypto.verify("key1", vp)).thenReturn(Optional.empty());
+
+        assertTrue(cache.verify("key1", vp).isEmpty());
+        assertTrue(cache.verify("key1", vp).isEmpty());
+
+        verify(crypto, times(2)).verify("key1", vp);
+        assertEquals(0, cache.getStats().getSize());
+    }
+
+    @Test
+    void testPersistentTier() {
+        when(repo.findValidByVpHashAndVerkey("hash", "key1")).thenReturn(Optional.of(Boolean.TRUE));
+
+        assertEquals(Optional.of(Boolean.TRUE), cache.verify("key1", vp));
+
+        verify(crypto, never()).verify(any(), any());
+        assertEquals(1, cache.getStats().getPersistentHits());
+    }
+}
@@ -19,13 +19,18 @@ package org.hyperledger.oa.impl.aries;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.hyperledger.aries.AriesClient;
@@ -34,7 +39,11 @@ import org.hyperledger.aries.api.connection.ConnectionState;
 import org.hyperledger.aries.api.message.PingEvent;
 import org.hyperledger.aries.api.message.PingRequest;
 import org.hyperledger.aries.api.message.PingResponse;
-import org.hyperledger.oa.repository.PartnerRepository;
+import org.hyperledger.oa.impl.cluster.ClusterBroadcaster;
+import org.hyperledger.oa.impl.cluster.ClusterLeader;
+import org.hyperledger.oa.impl.cluster.ClusterNotifications;
+import org.hyperledger.oa.repository.PartnerStateUpdater;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -47,15 +56,28 @@ class PingManagerTest {
     @Mock
     private AriesClient aries;
     @Mock
-    private PartnerRepository repo;
+    private AriesClient pingClient;
+    @Mock
+    private PartnerStateUpdater stateUpdater;
+    @Mock
+    private ClusterBroadcaster broadcaster;
+    @Mock
+    private ClusterLeader leader;
+    @Mock
+    private ClusterNotifications cluster;
 
     @InjectMocks
     private PingManager ping;
 
+    @BeforeEach
+    void setup() {
+        lenient().when(leader.isLeader()).thenReturn(Boolean.TRUE);
+    }
+
     @Test
     void testHappyFlow() throws Exception {
         when(aries.connectionIds(any(ConnectionFilter.class))).thenReturn(List.of("1", "2"));
-        when(aries.connectionsSendPing(anyString(), any(PingRequest.class)))
+        when(pingClient.connectionsSendPing(anyString(), any(PingRequest.class)))
                 .thenReturn(Optional.of(new PingResponse("a")))
                 .thenReturn(Optional.of(new PingResponse("b")))
                 .thenReturn(Optional.of(new PingResponse("a")))
@@ -68,15 +90,16 @@ class PingManagerTest {
 
         ping.checkConnections();
 
-        verify(repo, never()).updateByConnectionId(anyString(), anyString());
+        verify(stateUpdater, never()).updateStates(anyMap());
 
         assertEquals(2, ping.getSentSize());
         assertEquals(0, ping.getReceivedSize());
 
         ping.checkConnections();
 
-        verify(repo, times(1)).updateByConnectionId("1", ConnectionState.inactive.toString());
-        verify(repo, times(1)).updateByConnectionId("2", ConnectionState.inactive.toString());
+        verify(stateUpdater, times(1)).updateStates(Map.of(
+                "1", ConnectionState.inactive.toString(),
+                "2", ConnectionState.inactive.toString()));
 
         assertEquals(2, ping.getSentSize());
         assertEquals(0, ping.getReceivedSize());
@@ -89,10 +112,36 @@ class PingManagerTest {
 
         ping.checkConnections();
 
-        verify(repo, times(1)).updateByConnectionId("1", ConnectionState.active.toString());
-        verify(repo, times(1)).updateByConnectionId("2", ConnectionState.active.toString());
+        verify(stateUpdater, times(1)).updateStates(Map.of(
+                "1", ConnectionState.active.toString(),
+                "2", ConnectionState.active.toString()));
+
+        assertEquals(2, ping.getSentSize());
+
+        // unchanged states are not written again
+        ping.handlePingEvent(PingEvent.of("a", "response_received"));
+        ping.handlePingEvent(PingEvent.of("b", "response_received"));
+
+        ping.checkConnections();
+
+        verify(stateUpdater, times(2)).updateStates(anyMap());
+    }
+
+    @Test
+    void testFailingConnectionDoesNotAbortRun() throws Exception {
+        when(aries.connectionIds(any(ConnectionFilter.class))).thenReturn(List.of("1", "2", "3"));
+        when(pingClient.connectionsSendPing(eq("1"), any(PingRequest.class))).thenReturn(Optional.of(new PingResponse("a")));
+        when(pingClient.connectionsSendPing(eq("2"), any(PingRequest.class))).thenThrow(new IOException("unreachable"));
+        when(pingClient.connectionsSendPing(eq("3"), any(PingRequest.class))).thenReturn(Optional.of(new PingResponse("c")));
+
+        ping.checkConnections();
 
         assertEquals(2, ping.getSentSize());
+        assertEquals(1, ping.getRunDuration().getCount());
+        assertEquals(1, ping.getStats().getLastRunFailed());
+
+        ping.handlePingEvent(PingEvent.of("a", "response_received"));
+        assertEquals(1, ping.getRoundTripTime().getCount());
     }
 
     @Test
@@ -100,9 +149,22 @@ class PingManagerTest {
         when(aries.connectionIds(any(ConnectionFilter.class))).thenReturn(List.of("1", "2"));
 
         ping.checkConnections();
-        verify(repo, never()).updateByConnectionId(anyString(), anyString());
+        verify(stateUpdater, never()).updateStates(anyMap());
 
         assertEquals(0, ping.getSentSize());
     }
 
+    @Test
+    void testFollowerForwardsEventsAndDoesNotPing() throws Exception {
+        when(leader.isLeader()).thenReturn(Boolean.FALSE);
+
+        ping.handlePingEvent(PingEvent.of("a", "response_received"));
+        ping.handleConnectionStateChanged("1");
+        ping.checkConnections();
+
+        verify(cluster).publish(PingManager.CHANNEL, "response:a");
+        verify(cluster).publish(PingManager.CHANNEL, "changed:1");
+        assertEquals(0, ping.getReceivedSize());
+        verify(aries, never()).connectionIds(any(ConnectionFilter.class));
+    }
 }
@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.aries;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import javax.inject.Inject;
+
+import org.hyperledger.aries.AriesClient;
+import org.hyperledger.aries.api.schema.SchemaSendResponse.Schema;
+import org.hyperledger.aries.config.GsonConfig;
+import org.hyperledger.oa.repository.LedgerSchemaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micronaut.test.annotation.MicronautTest;
+
+@MicronautTest
+class SchemaCacheTest {
+
+    private static final String SCHEMA_ID = "M6Mbe3qx7vB4wpZF4sBRjt:2:bank_account:1.0";
+    private static final String CRED_DEF_ID = "VoSfM3eGaPxduty34ySygw:3:CL:571:Bank Account";
+
+    @Inject
+    LedgerSchemaRepository repo;
+
+    private AriesClient ac;
+
+    @BeforeEach
+    void setup() throws Exception {
+        ac = mock(AriesClient.class);
+        Schema schema = GsonConfig.defaultConfig().fromJson("{\"ver\":\"1.0\",\"id\":\"" + SCHEMA_ID + "\","
+                + "\"name\":\"bank_account\",\"version\":\"1.0\",\"attrNames\":[\"iban\",\"bic\"],\"seqNo\":571}",
+                Schema.class);
+        when(ac.schemasGetById("571")).thenReturn(Optional.of(schema));
+    }
+
+    @Test
+    void testLookupIsStoredOnce() throws Exception {
+        SchemaCache cache = newCache();
+
+        Optional<Schema> schema = cache.getForCredDefId(CRED_DEF_ID);
+        assertTrue(schema.isPresent());
+        assertEquals(SCHEMA_ID, schema.get().getId());
+        assertEquals(SCHEMA_ID, cache.getBySeqNo("571").get().getId());
+        assertEquals(SCHEMA_ID, cache.getById(SCHEMA_ID).get().getId());
+        verify(ac, times(1)).schemasGetById("571");
+
+        assertEquals(SCHEMA_ID, repo.findById("571").orElseThrow().getSchemaId());
+    }
+
+    @Test
+    void testRestartStaysWarm() throws Exception {
+        newCache().getForCredDefId(CRED_DEF_ID);
+
+        SchemaCache restarted = newCache();
+        Optional<Schema> schema = restarted.getBySeqNo("571");
+        assertEquals(SCHEMA_ID, schema.get().getId());
+        assertEquals(2, schema.get().getAttrNames().size());
+        assertEquals(SCHEMA_ID, restarted.getById(SCHEMA_ID).get().getId());
+        verify(ac, times(1)).schemasGetById("571");
+    }
+
+    @Test
+    void testMissingSchemaIsNotCached() throws Exception {
+        when(ac.schemasGetById("999")).thenReturn(Optional.empty());
+        SchemaCache cache = newCache();
+        assertTrue(cache.getBySeqNo("999").isEmpty());
+        assertTrue(cache.getBySeqNo("999").isEmpty());
+        verify(ac, times(2)).schemasGetById("999");
+        assertEquals(0, cache.size());
+    }
+
+    private SchemaCache newCache() {
+        SchemaCache cache = new SchemaCache();
+        cache.setAc(ac);
+        cache.setRepo(repo);
+        return cache;
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.aries;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.hyperledger.aries.webhook.EventHandler;
+import org.hyperledger.oa.impl.cluster.ClusterLeader;
+import org.hyperledger.oa.impl.cluster.ClusterNotifications;
+import org.hyperledger.oa.model.WebhookDeadLetter;
+import org.hyperledger.oa.model.WebhookEvent;
+import org.hyperledger.oa.repository.WebhookDeadLetterRepository;
+import org.hyperledger.oa.repository.WebhookEventRepository;
+import org.hyperledger.oa.repository.WorkLeases;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(MockitoExtension.class)
+class WebhookInboxTest {
+
+    @Mock
+    private EventHandler handler;
+    @Mock
+    private WebhookEventRepository eventRepo;
+    @Mock
+    private WebhookDeadLetterRepository deadLetterRepo;
+    @Spy
+    private ObjectMapper mapper = new ObjectMapper();
+    @Mock
+    private WorkLeases leases;
+    @Mock
+    private ClusterNotifications cluster;
+    @Mock
+    private ClusterLeader leader;
+
+    @InjectMocks
+    private WebhookInbox inbox;
+
+    @AfterEach
+    void tearDown() {
+        inbox.shutdown();
+    }
+
+    @Test
+    void testEventsOfOneConnectionAreHandledInOrder() {
+        mockSave();
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(inbox.offer("connections", connection("1", String.valueOf(i))));
+        }
+
+        InOrder order = inOrder(handler);
+        for (int i = 0; i < 20; i++) {
+            order.verify(handler, timeout(1000)).handleEvent("connections", connection("1", String.valueOf(i)));
+        }
+        verify(eventRepo, timeout(1000).times(20)).deleteById(any(UUID.class));
+    }
+
+    @Test
+    void testFailingEventIsDeadLettered() {
+        mockSave();
+        inbox.setMaxAttempts(3);
+        inbox.setRetryDelay(Duration.ofMillis(1));
+        doThrow(new IllegalStateException("boom")).when(handler).handleEvent(anyString(), anyString());
+
+        assertTrue(inbox.offer("connections", connection("1", "request")));
+
+        verify(deadLetterRepo, timeout(1000)).save(any(WebhookDeadLetter.class));
+        verify(eventRepo, timeout(1000).times(2)).update(any(UUID.class), any(Integer.class), anyString());
+        verify(eventRepo, timeout(1000)).deleteById(any(UUID.class));
+    }
+
+    @Test
+    void testRetryOnlyHoldsBackTheSameConnection() {
+        mockSave();
+        inbox.setWorkers(1);
+        inbox.setRetryDelay(Duration.ofMillis(300));
+        doThrow(new IllegalStateException("boom")).doNothing()
+                .when(handler).handleEvent("connections", connection("1", "request"));
+
+        assertTrue(inbox.offer("connections", connection("1", "request")));
+        assertTrue(inbox.offer("connections", connection("1", "response")));
+        assertTrue(inbox.offer("connections", connection("2", "request")));
+
+        // the other connection of the same partition is not blocked by the retry
+        verify(handler, timeout(200)).handleEvent("connections", connection("2", "request"));
+        verify(handler, never()).handleEvent("connections", connection("1", "response"));
+
+        InOrder order = inOrder(handler);
+        order.verify(handler, timeout(2000).times(2)).handleEvent("connections", connection("1", "request"));
+        order.verify(handler, timeout(1000)).handleEvent("connections", connection("1", "response"));
+        verify(eventRepo, timeout(1000).times(3)).deleteById(any(UUID.class));
+    }
+
+    @Test
+    void testRecoverOnlyDispatchesClaimedEvents() {
+        WebhookEvent event = WebhookEvent.builder()
+                .id(UUID.randomUUID())
+                .createdAt(Instant.now())
+                .topic("connections")
+                .partitionKey("1")
+                .payload(connection("1", "request"))
+                .attempts(Integer.valueOf(0))
+                .build();
+        when(cluster.getNodeId()).thenReturn("node");
+        when(cluster.isEnabled()).thenReturn(Boolean.TRUE);
+        when(leases.claimEvents(eq("node"), any(Duration.class), eq(false), anyInt()))
+                .thenReturn(List.of(event.getId()));
+        when(eventRepo.findByIdInListOrderByCreatedAt(List.of(event.getId()))).thenReturn(List.of(event));
+
+        inbox.recover();
+
+        verify(handler, timeout(1000)).handleEvent("connections", connection("1", "request"));
+        verify(eventRepo, timeout(1000)).deleteById(event.getId());
+    }
+
+    @Test
+    void testFullInboxRejectsEvents() {
+        inbox.setCapacity(0);
+
+        assertFalse(inbox.offer("connections", connection("1", "request")));
+        verify(eventRepo, never()).save(any(WebhookEvent.class));
+        assertEquals(0, inbox.getStats().getDepth());
+    }
+
+    @Test
+    void testPartitionKey() {
+        assertEquals("1", inbox.partitionKey("connections", connection("1", "request")));
+        assertEquals("t", inbox.partitionKey("ping", "{\"thread_id\":\"t\"}"));
+        assertEquals("ping", inbox.partitionKey("ping", "not json"));
+    }
+
+    private void mockSave() {
+        when(eventRepo.save(any(WebhookEvent.class))).thenAnswer(inv -> {
+            WebhookEvent e = inv.getArgument(0);
+            e.setId(UUID.randomUUID());
+            e.setCreatedAt(Instant.now());
+            return e;
+        });
+    }
+
+    private static String connection(String connectionId, String state) {
+        return "{\"connection_id\":\"" + connectionId + "\",\"state\":\"" + state + "\"}";
+    }
+}
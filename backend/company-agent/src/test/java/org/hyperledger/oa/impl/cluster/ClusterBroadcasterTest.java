@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.cluster;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micronaut.websocket.WebSocketBroadcaster;
+
+@ExtendWith(MockitoExtension.class)
+class ClusterBroadcasterTest {
+
+    @Mock
+    private WebSocketBroadcaster ws;
+
+    @Mock
+    private ClusterNotifications cluster;
+
+    private ClusterBroadcaster broadcaster;
+
+    @BeforeEach
+    void setup() {
+        broadcaster = new ClusterBroadcaster();
+        broadcaster.setBroadcaster(ws);
+        broadcaster.setCluster(cluster);
+        broadcaster.setMapper(new ObjectMapper());
+    }
+
+    @Test
+    void testMessageIsSentToAllNodes() {
+        when(cluster.isEnabled()).thenReturn(true);
+        broadcaster.broadcast(Map.of("type", "CONNECTION"));
+
+        verify(ws).broadcastAsync("{\"type\":\"CONNECTION\"}");
+        verify(cluster).publish(ClusterBroadcaster.CHANNEL, "{\"type\":\"CONNECTION\"}");
+    }
+
+    @Test
+    void testLargeMessageStaysLocal() {
+        when(cluster.isEnabled()).thenReturn(true);
+        String json = "\"" + "x".repeat(ClusterBroadcaster.MAX_PAYLOAD) + "\"";
+        broadcaster.broadcast(json);
+
+        verify(ws).broadcastAsync(json);
+        verify(cluster, never()).publish(anyString(), anyString());
+    }
+
+    @Test
+    void testNothingIsPublishedWithoutCluster() {
+        broadcaster.broadcast("{}");
+
+        verify(ws).broadcastAsync("{}");
+        verify(cluster, never()).publish(anyString(), anyString());
+    }
+}
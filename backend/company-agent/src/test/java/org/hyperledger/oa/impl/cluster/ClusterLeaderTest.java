@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.test.annotation.MicronautTest;
+
+@MicronautTest(transactional = false)
+class ClusterLeaderTest {
+
+    @Value("${datasources.default.url}")
+    String url;
+
+    @Value("${datasources.default.username}")
+    String username;
+
+    @Value("${datasources.default.password}")
+    String password;
+
+    private ClusterLeader first;
+    private ClusterLeader second;
+    private ApplicationEventPublisher secondPublisher;
+
+    @BeforeEach
+    void setup() {
+        first = node(mock(ApplicationEventPublisher.class));
+        secondPublisher = mock(ApplicationEventPublisher.class);
+        second = node(secondPublisher);
+    }
+
+    @AfterEach
+    void tearDown() {
+        first.shutdown();
+        second.shutdown();
+    }
+
+    @Test
+    void testOnlyOneNodeIsLeader() {
+        assertTrue(first.isLeader());
+        assertFalse(second.isLeader());
+        verify(secondPublisher, never()).publishEvent(any());
+
+        // checks again do not change anything
+        first.check();
+        second.check();
+        assertTrue(first.isLeader());
+        assertFalse(second.isLeader());
+    }
+
+    @Test
+    void testTakeOverAfterTheLeaderIsGone() {
+        assertTrue(first.isLeader());
+        assertFalse(second.isLeader());
+
+        // the database releases the lock with the connection
+        first.shutdown();
+        second.check();
+
+        assertTrue(second.isLeader());
+        verify(secondPublisher).publishEvent(any(LeadershipAcquiredEvent.class));
+        first.check();
+        assertFalse(first.isLeader());
+    }
+
+    @Test
+    void testDisabledNodeIsAlwaysLeader() {
+        ClusterLeader single = new ClusterLeader();
+        assertTrue(single.isLeader());
+    }
+
+    private ClusterLeader node(ApplicationEventPublisher publisher) {
+        ClusterLeader node = new ClusterLeader();
+        node.setPublisher(publisher);
+        node.setCluster(new ClusterNotifications());
+        node.setEnabled(true);
+        node.setUrl(url);
+        node.setUsername(username);
+        node.setPassword(password);
+        return node;
+    }
+}
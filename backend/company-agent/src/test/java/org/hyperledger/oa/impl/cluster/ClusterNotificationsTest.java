@@ -0,0 +1,50 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ClusterNotificationsTest {
+
+    private final ClusterNotifications cluster = new ClusterNotifications();
+
+    @Test
+    void testOwnNotificationsAreSkipped() {
+        List<String> received = new ArrayList<>();
+        cluster.subscribe("did_doc_web", received::add);
+
+        cluster.receive("did_doc_web", "other-node:changed");
+        cluster.receive("did_doc_web", cluster.getNodeId() + ":changed");
+        cluster.receive("did_doc_web", "garbage");
+        cluster.receive("other_channel", "other-node:changed");
+
+        assertEquals(List.of("changed"), received);
+    }
+
+    @Test
+    void testChannelNameIsChecked() {
+        assertThrows(IllegalArgumentException.class, () -> cluster.subscribe("x; DROP TABLE partner", s -> {
+        }));
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Optional;
+
+import javax.inject.Inject;
+import javax.sql.DataSource;
+
+import org.hyperledger.oa.impl.cluster.JdbcSessionStore.JdbcSession;
+import org.junit.jupiter.api.Test;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.test.annotation.MicronautTest;
+
+@MicronautTest(transactional = false)
+@Property(name = "oagent.cluster.enabled", value = "true")
+class JdbcSessionStoreTest {
+
+    @Inject
+    JdbcSessionStore store;
+
+    @Inject
+    DataSource dataSource;
+
+    @Test
+    void testSaveLoadDelete() throws Exception {
+        JdbcSession session = store.newSession();
+        session.put("username", "alice");
+        store.save(session).get();
+        assertFalse(session.isNew());
+
+        JdbcSession loaded = store.findSession(session.getId()).get().orElseThrow();
+        assertEquals(Optional.of("alice"), loaded.get("username", String.class));
+        assertEquals(session.getMaxInactiveInterval(), loaded.getMaxInactiveInterval());
+
+        loaded.put("username", "bob");
+        store.save(loaded).get();
+        assertEquals(Optional.of("bob"),
+                store.findSession(session.getId()).get().orElseThrow().get("username", String.class));
+
+        assertTrue(store.deleteSession(session.getId()).get().booleanValue());
+        assertTrue(store.findSession(session.getId()).get().isEmpty());
+        assertFalse(store.deleteSession(session.getId()).get().booleanValue());
+    }
+
+    @Test
+    void testLookupExtendsExpiry() throws Exception {
+        JdbcSession session = store.newSession();
+        session.setMaxInactiveInterval(Duration.ofMinutes(30));
+        store.save(session).get();
+        execute("UPDATE http_session SET expires_at = now() + interval '1 minute' WHERE id = ?", session.getId());
+        Timestamp before = expiresAt(session.getId());
+
+        assertTrue(store.findSession(session.getId()).get().isPresent());
+
+        Timestamp after = expiresAt(session.getId());
+        assertTrue(after.toInstant().isAfter(before.toInstant().plus(Duration.ofMinutes(20))));
+    }
+
+    @Test
+    void testExpiredSessionsAreRemoved() throws Exception {
+        JdbcSession expired = store.newSession();
+        store.save(expired).get();
+        JdbcSession active = store.newSession();
+        store.save(active).get();
+        execute("UPDATE http_session SET expires_at = now() - interval '1 second' WHERE id = ?", expired.getId());
+
+        assertTrue(store.findSession(expired.getId()).get().isEmpty());
+
+        store.deleteExpired();
+        assertEquals(0, count(expired.getId()));
+        assertEquals(1, count(active.getId()));
+    }
+
+    private void execute(String sql, String id) throws Exception {
+        try (Connection c = dataSource.getConnection();
+                PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, id);
+            ps.executeUpdate();
+        }
+    }
+
+    private Timestamp expiresAt(String id) throws Exception {
+        try (Connection c = dataSource.getConnection();
+                PreparedStatement ps = c.prepareStatement("SELECT expires_at FROM http_session WHERE id = ?")) {
+            ps.setString(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getTimestamp(1);
+            }
+        }
+    }
+
+    private int count(String id) throws Exception {
+        try (Connection c = dataSource.getConnection();
+                PreparedStatement ps = c.prepareStatement("SELECT COUNT(*) FROM http_session WHERE id = ?")) {
+            ps.setString(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
@@ -100,4 +100,14 @@ class ConverterTest extends BaseTest {
         assertNotEquals(c.getId(), result.getId());
     }
 
+    @Test
+    void testHashIgnoresPropertyOrder() throws Exception {
+        final JsonNode a = mapper.readValue("{\"a\":1,\"b\":{\"c\":[1,2],\"d\":\"e\"}}", JsonNode.class);
+        final JsonNode b = mapper.readValue("{\"b\":{\"d\":\"e\",\"c\":[1,2]},\"a\":1}", JsonNode.class);
+        final JsonNode c = mapper.readValue("{\"b\":{\"d\":\"e\",\"c\":[2,1]},\"a\":1}", JsonNode.class);
+
+        assertEquals(conv.toHash(a), conv.toHash(b));
+        assertEquals(conv.toHash(a), conv.toHash(conv.toMap(b)));
+        assertNotEquals(conv.toHash(a), conv.toHash(c));
+    }
 }
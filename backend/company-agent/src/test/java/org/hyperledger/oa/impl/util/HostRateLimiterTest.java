@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class HostRateLimiterTest {
+
+    @Test
+    void testSlotsAreSpacedPerHost() {
+        HostRateLimiter limiter = new HostRateLimiter(Duration.ofSeconds(10));
+
+        assertEquals(Duration.ZERO, limiter.reserve("a.example.com"));
+        assertEquals(Duration.ZERO, limiter.reserve("b.example.com"));
+
+        Duration second = limiter.reserve("a.example.com");
+        assertTrue(second.compareTo(Duration.ofSeconds(9)) > 0);
+        assertTrue(second.compareTo(Duration.ofSeconds(10)) <= 0);
+
+        Duration third = limiter.reserve("a.example.com");
+        assertTrue(third.compareTo(Duration.ofSeconds(19)) > 0);
+        assertTrue(third.compareTo(Duration.ofSeconds(20)) <= 0);
+    }
+
+    @Test
+    void testEvictIdle() throws Exception {
+        HostRateLimiter limiter = new HostRateLimiter(Duration.ofMillis(10));
+        limiter.reserve("a.example.com");
+        limiter.reserve("b.example.com");
+        assertEquals(2, limiter.size());
+
+        Thread.sleep(20);
+        limiter.evictIdle();
+        assertEquals(0, limiter.size());
+        assertEquals(Duration.ZERO, limiter.reserve("a.example.com"));
+    }
+}
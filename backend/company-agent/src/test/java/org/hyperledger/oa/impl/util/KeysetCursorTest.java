@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.hyperledger.oa.api.exception.WrongApiUsageException;
+import org.junit.jupiter.api.Test;
+
+class KeysetCursorTest {
+
+    @Test
+    void testRoundTrip() {
+        KeysetCursor c = KeysetCursor.of(Instant.parse("2020-09-01T10:15:30.123456Z"), UUID.randomUUID());
+        assertEquals(c, KeysetCursor.decode(c.encode()));
+    }
+
+    @Test
+    void testRoundTripWithoutTimestamp() {
+        KeysetCursor c = KeysetCursor.of(null, UUID.randomUUID());
+        assertEquals(c, KeysetCursor.decode(c.encode()));
+    }
+
+    @Test
+    void testInvalidCursor() {
+        assertThrows(WrongApiUsageException.class, () -> KeysetCursor.decode("not a cursor"));
+        assertThrows(WrongApiUsageException.class, () -> KeysetCursor.decode("Zm9v"));
+    }
+}
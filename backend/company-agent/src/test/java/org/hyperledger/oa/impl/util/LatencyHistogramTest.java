@@ -0,0 +1,45 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testRecord() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(Duration.ofMillis(5));
+        h.record(Duration.ofMillis(10));
+        h.record(Duration.ofMillis(300));
+        h.record(Duration.ofMinutes(5));
+
+        assertEquals(4, h.getCount());
+        assertEquals(300_000, h.getMaxMs());
+
+        final Map<String, Long> buckets = h.getBuckets();
+        assertEquals(2L, buckets.get("<=10ms").longValue());
+        assertEquals(1L, buckets.get("<=500ms").longValue());
+        assertEquals(1L, buckets.get(">60000ms").longValue());
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.util;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import org.junit.jupiter.api.Test;
+
+class StripedLockTest {
+
+    @Test
+    void testSameKeySameLock() {
+        StripedLock locks = new StripedLock(16);
+        assertSame(locks.get("label"), locks.get(new StringBuilder("label").toString()));
+        assertSame(locks.get(null), locks.get(null));
+    }
+
+    @Test
+    void testKeysAreSpread() {
+        StripedLock locks = new StripedLock(16);
+        Set<Lock> used = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            used.add(locks.get("connection-" + i));
+        }
+        assertTrue(used.size() > 8);
+    }
+
+    @Test
+    void testInvalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> new StripedLock(0));
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.impl.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.hyperledger.oa.impl.activity.DidDocWebHolder;
+import org.hyperledger.oa.impl.activity.Identity;
+import org.hyperledger.oa.impl.activity.IdentitySnapshot;
+import org.hyperledger.oa.model.DidDocWeb;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(MockitoExtension.class)
+class WebDidDocManagerTest {
+
+    private static final IdentitySnapshot OLD = IdentitySnapshot.of(
+            "did:web:localhost", "did:web:localhost#key-1", "oldVerkey");
+    private static final IdentitySnapshot NEW = IdentitySnapshot.of(
+            "did:web:localhost", "did:web:localhost#key-2", "newVerkey");
+
+    @Mock
+    private DidDocWebHolder didDocHolder;
+
+    @Mock
+    private Identity id;
+
+    @Spy
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @InjectMocks
+    private WebDidDocManager mgmt;
+
+    private final UUID rowId = UUID.randomUUID();
+
+    @BeforeEach
+    void setup() {
+        mgmt.setHost("localhost");
+        when(id.getSnapshot()).thenReturn(OLD);
+        when(didDocHolder.getDidDocument()).thenReturn(Optional.empty());
+        mgmt.createIfNeeded("localhost");
+
+        ArgumentCaptor<DidDocWeb> saved = ArgumentCaptor.forClass(DidDocWeb.class);
+        verify(didDocHolder).save(saved.capture());
+        final DidDocWeb row = saved.getValue();
+        row.setId(rowId);
+        when(didDocHolder.get()).thenReturn(Optional.of(row));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testKeyRotationRewritesDidDoc() {
+        mgmt.identityChanged(NEW);
+
+        ArgumentCaptor<Map<String, Object>> didDoc = ArgumentCaptor.forClass(Map.class);
+        verify(didDocHolder).updateDidDoc(eq(rowId), didDoc.capture());
+        List<Map<String, Object>> keys = (List<Map<String, Object>>) didDoc.getValue().get("publicKey");
+        assertEquals("newVerkey", keys.get(0).get("publicKeyBase58"));
+        assertEquals("did:web:localhost#key-2", keys.get(0).get("id"));
+    }
+
+    @Test
+    void testSameIdentityKeepsDidDoc() {
+        mgmt.identityChanged(OLD);
+
+        verify(didDocHolder, never()).updateDidDoc(any(), any());
+    }
+}
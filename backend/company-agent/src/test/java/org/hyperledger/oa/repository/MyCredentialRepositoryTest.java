@@ -19,8 +19,14 @@ package org.hyperledger.oa.repository;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.Instant;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 import javax.inject.Inject;
 
@@ -28,8 +34,13 @@ import org.hyperledger.aries.api.credential.CredentialExchange;
 import org.hyperledger.aries.config.GsonConfig;
 import org.hyperledger.oa.BaseTest;
 import org.hyperledger.oa.api.CredentialType;
+import org.hyperledger.oa.impl.aries.AriesCredentialManager;
 import org.hyperledger.oa.impl.util.Converter;
+import org.hyperledger.oa.impl.util.KeysetCursor;
 import org.hyperledger.oa.model.MyCredential;
+import org.hyperledger.oa.model.MyCredentialIssuer;
+import org.hyperledger.oa.model.Partner;
+import org.hyperledger.oa.model.PartnerDid;
 import org.junit.jupiter.api.Test;
 
 import io.micronaut.test.annotation.MicronautTest;
@@ -40,6 +51,9 @@ class MyCredentialRepositoryTest extends BaseTest {
     @Inject
     private MyCredentialRepository repo;
 
+    @Inject
+    private PartnerRepository partnerRepo;
+
     @Inject
     private Converter conv;
 
@@ -68,4 +82,84 @@ class MyCredentialRepositoryTest extends BaseTest {
         assertEquals(saved.getId(), credLoaded.get(0).getId());
     }
 
+    @Test
+    void testFindPage() {
+        for (int i = 0; i < 5; i++) {
+            repo.save(MyCredential
+                    .builder()
+                    .type(i % 2 == 0 ? CredentialType.BANK_ACCOUNT_CREDENTIAL : CredentialType.OTHER)
+                    .isPublic(Boolean.valueOf(i < 2))
+                    .connectionId("c" + i)
+                    .state(i == 4 ? "offer_received" : "credential_acked")
+                    .threadId("t" + i)
+                    // the last one is not issued yet
+                    .issuedAt(i < 4 ? Instant.ofEpochSecond(1000 + i) : null)
+                    .build());
+        }
+
+        List<MyCredential> first = repo.findPage(null, null, null, null, null, 2);
+        assertEquals(2, first.size());
+        assertEquals("t4", first.get(0).getThreadId());
+        KeysetCursor c = AriesCredentialManager.cursorOf(first.get(1));
+        List<MyCredential> second = repo.findPage(null, null, null, c.getTimestamp(), c.getId(), 10);
+        assertEquals(3, second.size());
+        assertTrue(second.stream().noneMatch(p -> first.stream().anyMatch(f -> f.getId().equals(p.getId()))));
+
+        assertEquals(3, repo.countFiltered(CredentialType.BANK_ACCOUNT_CREDENTIAL.name(), null, null));
+        assertEquals(2, repo.countFiltered(null, Boolean.TRUE, null));
+        assertEquals(1, repo.findPage(null, null, "offer_received", null, null, 10).size());
+        assertEquals(5, repo.countFiltered(null, null, null));
+    }
+
+    @Test
+    void testFindPageSplitsUnissuedCredentials() {
+        for (int i = 0; i < 7; i++) {
+            repo.save(MyCredential
+                    .builder()
+                    .type(CredentialType.OTHER)
+                    .isPublic(Boolean.TRUE)
+                    .connectionId("c" + i)
+                    .state(i < 4 ? "offer_received" : "credential_acked")
+                    .threadId("t" + i)
+                    .issuedAt(i < 4 ? null : Instant.ofEpochSecond(1000 + i))
+                    .build());
+        }
+
+        Set<UUID> seen = new HashSet<>();
+        KeysetCursor c = null;
+        int pages = 0;
+        List<MyCredential> page;
+        do {
+            page = repo.findPage(null, null, null,
+                    c != null ? c.getTimestamp() : null, c != null ? c.getId() : null, 3);
+            page.forEach(p -> assertTrue(seen.add(p.getId())));
+            if (!page.isEmpty()) {
+                // round trip like an api client would
+                c = KeysetCursor.decode(AriesCredentialManager.cursorOf(page.get(page.size() - 1)).encode());
+                pages++;
+            }
+        } while (page.size() == 3);
+
+        assertEquals(7, seen.size());
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void testResolveIssuers() {
+        partnerRepo.save(Partner.builder().did("did:sov:iil:1").connectionId("c1").ariesSupport(Boolean.TRUE).build());
+        partnerRepo.save(Partner.builder().did("did:sov:iil:2").connectionId("c2").ariesSupport(Boolean.TRUE).build());
+        MyCredential known = repo.save(MyCredential.builder().type(CredentialType.OTHER).isPublic(Boolean.TRUE)
+                .connectionId("c1").state("credential_acked").threadId("t1").build());
+        MyCredential unknown = repo.save(MyCredential.builder().type(CredentialType.OTHER).isPublic(Boolean.TRUE)
+                .connectionId("removed").state("credential_acked").threadId("t2").build());
+
+        List<PartnerDid> dids = partnerRepo.findByConnectionIdInList(List.of("c1", "c2", "removed"));
+        assertEquals(2, dids.size());
+        assertTrue(dids.stream().anyMatch(p -> "c2".equals(p.getConnectionId()) && "did:sov:iil:2".equals(p.getDid())));
+
+        MyCredentialIssuer withIssuer = repo.findWithIssuerById(known.getId()).orElseThrow();
+        assertEquals("did:sov:iil:1", withIssuer.getIssuerDid());
+        assertEquals("t1", withIssuer.toMyCredential().getThreadId());
+        assertNull(repo.findWithIssuerById(unknown.getId()).orElseThrow().getIssuerDid());
+    }
 }
@@ -18,14 +18,19 @@
 package org.hyperledger.oa.repository;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 import javax.inject.Inject;
 
+import org.hyperledger.oa.controller.api.partner.PartnerFilter;
 import org.hyperledger.oa.model.Partner;
+import org.hyperledger.oa.model.PartnerSummary;
 import org.junit.jupiter.api.Test;
 
 import io.micronaut.test.annotation.MicronautTest;
@@ -52,4 +57,50 @@ class PartnerRepositoryTest {
         assertEquals(0, nonExistingP);
     }
 
+    @Test
+    void testFindPage() {
+        for (int i = 0; i < 5; i++) {
+            repo.save(Partner.builder()
+                    .did("did" + i)
+                    .alias(i % 2 == 0 ? "even_" + i : "odd" + i)
+                    .state("active")
+                    .ariesSupport(Boolean.valueOf(i < 3))
+                    .build());
+        }
+
+        List<Partner> first = repo.findPage(null, null, null, null, null, null, null, 2);
+        assertEquals(2, first.size());
+        Partner last = first.get(1);
+        List<Partner> second = repo.findPage(null, null, null, null, null, last.getCreatedAt(), last.getId(), 2);
+        assertEquals(2, second.size());
+        assertTrue(second.stream().noneMatch(p -> first.stream().anyMatch(f -> f.getId().equals(p.getId()))));
+
+        assertEquals(3, repo.countFiltered(null, Boolean.TRUE, null, null, null));
+        assertEquals(0, repo.countFiltered("inactive", null, null, null, null));
+
+        // the underscore is escaped and matches only itself
+        String pattern = PartnerFilter.builder().aliasPrefix("even_").build().aliasPattern();
+        assertEquals(3, repo.findPage(null, null, null, null, pattern, null, null, 10).size());
+        assertEquals(1, repo.countFiltered(null, Boolean.FALSE, null, null, pattern));
+    }
+
+    @Test
+    void testFindSummaryPage() {
+        Map<String, Object> vp = Map.of("verifiableCredential", List.of(
+                Map.of("type", List.of("VerifiableCredential", "BankAccountCredential"),
+                        "credentialSubject", Map.of("iban", "1234")),
+                Map.of("type", List.of("VerifiableCredential", "OrganizationalProfileCredential"),
+                        "credentialSubject", Map.of("legalName", "Bosch"))));
+        repo.save(Partner.builder().did("withVP").alias("a").ariesSupport(Boolean.TRUE)
+                .verifiablePresentation(vp).build());
+        repo.save(Partner.builder().did("withoutVP").alias("b").ariesSupport(Boolean.FALSE).build());
+
+        List<PartnerSummary> page = repo.findSummaryPage(null, null, null, null, null, null, null, 10);
+        assertEquals(2, page.size());
+        assertEquals("withVP", page.get(0).getDid());
+        assertEquals("Bosch", page.get(0).getLegalName());
+        assertEquals("withoutVP", page.get(1).getDid());
+        assertNull(page.get(1).getLegalName());
+    }
+
 }
@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import org.hyperledger.oa.model.Partner;
+import org.junit.jupiter.api.Test;
+
+import io.micronaut.test.annotation.MicronautTest;
+
+@MicronautTest
+class PartnerStateUpdaterTest {
+
+    @Inject
+    PartnerRepository repo;
+
+    @Inject
+    PartnerStateUpdater updater;
+
+    @Test
+    void testUpdateStates() {
+        repo.save(Partner.builder().did("did1").connectionId("c1").state("active").ariesSupport(Boolean.TRUE).build());
+        repo.save(Partner.builder().did("did2").connectionId("c2").state("active").ariesSupport(Boolean.TRUE).build());
+        repo.save(Partner.builder().did("did3").connectionId("c3").state("active").ariesSupport(Boolean.TRUE).build());
+
+        int count = updater.updateStates(Map.of("c1", "inactive", "c2", "inactive", "unknown", "inactive"));
+        assertEquals(2, count);
+
+        assertEquals("inactive", repo.findByConnectionId("c1").orElseThrow().getState());
+        assertEquals("inactive", repo.findByConnectionId("c2").orElseThrow().getState());
+        assertEquals("active", repo.findByConnectionId("c3").orElseThrow().getState());
+
+        assertEquals(0, updater.updateStates(Map.of()));
+    }
+
+    @Test
+    void testUpsertByLabel() {
+        Partner p = Partner.builder()
+                .did("did:sov:iil:123")
+                .label("label")
+                .connectionId("c1")
+                .state("request")
+                .ariesSupport(Boolean.TRUE)
+                .incoming(Boolean.TRUE)
+                .build();
+        assertEquals(1, updater.upsertByLabel(p));
+        assertEquals(1, updater.upsertByLabel(p.setConnectionId("c2").setState("active")));
+
+        Partner dbP = repo.findByLabel("label").orElseThrow();
+        assertEquals("c1", dbP.getConnectionId());
+        assertEquals("active", dbP.getState());
+        assertEquals(1, repo.count());
+    }
+
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2020 - for information on the respective copyright owner
+ * see the NOTICE file and/or the repository at
+ * https://github.com/hyperledger-labs/organizational-agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hyperledger.oa.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import javax.inject.Inject;
+import javax.sql.DataSource;
+
+import org.hyperledger.oa.model.PartnerImportJob;
+import org.hyperledger.oa.model.WebhookEvent;
+import org.junit.jupiter.api.Test;
+
+import io.micronaut.test.annotation.MicronautTest;
+
+@MicronautTest
+class WorkLeasesTest {
+
+    private static final Duration LEASE = Duration.ofMinutes(1);
+
+    @Inject
+    WorkLeases leases;
+
+    @Inject
+    WebhookEventRepository eventRepo;
+
+    @Inject
+    PartnerImportJobRepository jobRepo;
+
+    @Inject
+    DataSource dataSource;
+
+    @Test
+    void testOnlyExpiredEventsAreClaimed() throws Exception {
+        WebhookEvent alive = event("node-a");
+        WebhookEvent gone = event("node-b");
+        expire("webhook_event", gone.getId());
+
+        assertEquals(List.of(gone.getId()), leases.claimEvents("node-c", LEASE, false, 10));
+        // claimed, so not expired any more
+        assertTrue(leases.claimEvents("node-d", LEASE, false, 10).isEmpty());
+
+        assertEquals(1, leases.renewEvents("node-a", LEASE));
+        assertEquals("node-c", eventRepo.findById(gone.getId()).orElseThrow().getOwner());
+        assertEquals("node-a", eventRepo.findById(alive.getId()).orElseThrow().getOwner());
+
+        // a single node takes everything of a previous run
+        assertEquals(2, leases.claimEvents("node-e", LEASE, true, 10).size());
+    }
+
+    @Test
+    void testJobIsOnlyProcessedByOneNode() throws Exception {
+        PartnerImportJob job = jobRepo.save(PartnerImportJob.builder()
+                .state(PartnerImportJob.RUNNING)
+                .total(Integer.valueOf(1))
+                .attempts(Integer.valueOf(0))
+                .owner("node-a")
+                .leaseUntil(Instant.now().plus(LEASE))
+                .build());
+
+        assertTrue(leases.claimJob(job.getId(), "node-a", LEASE, false));
+        assertFalse(leases.claimJob(job.getId(), "node-b", LEASE, false));
+        assertTrue(leases.claimJobs("node-b", LEASE, false).isEmpty());
+
+        expire("partner_import_job", job.getId());
+        assertEquals(List.of(job.getId()), leases.claimJobs("node-b", LEASE, false));
+        assertFalse(leases.claimJob(job.getId(), "node-a", LEASE, false));
+
+        leases.releaseJob(job.getId(), "node-b");
+        assertTrue(leases.claimJob(job.getId(), "node-a", LEASE, false));
+
+        // a deferred job is not resumed automatically before the delay, but by hand
+        leases.deferJob(job.getId(), "node-a", LEASE);
+        assertTrue(leases.claimJobs("node-b", LEASE, false).isEmpty());
+        assertTrue(leases.claimJob(job.getId(), "node-b", LEASE, false));
+
+        jobRepo.updateState(job.getId(), PartnerImportJob.FINISHED);
+        assertFalse(leases.claimJob(job.getId(), "node-a", LEASE, true));
+    }
+
+    private WebhookEvent event(String owner) {
+        return eventRepo.save(WebhookEvent.builder()
+                .topic("connections")
+                .partitionKey("1")
+                .payload("{}")
+                .attempts(Integer.valueOf(0))
+                .owner(owner)
+                .leaseUntil(Instant.now().plus(LEASE))
+                .build());
+    }
+
+    private void expire(String table, UUID id) throws Exception {
+        try (Connection c = dataSource.getConnection();
+                PreparedStatement ps = c.prepareStatement(
+                        "UPDATE " + table + " SET lease_until = LOCALTIMESTAMP - interval '1 second' WHERE id = ?")) {
+            ps.setObject(1, id);
+            ps.executeUpdate();
+        }
+    }
+}
@@ -28,6 +28,9 @@ export const getPartnerName = (partner) => {
         return partner.alias
     } else if ({}.hasOwnProperty.call(partner, 'profile') && partner.profile !== null && {}.hasOwnProperty.call(partner.profile, 'legalName')) {
         return partner.profile.legalName
+    } else if ({}.hasOwnProperty.call(partner, 'legalName')) {
+        // partner summary
+        return partner.legalName
     } else {
         return partner.id
     }